@@ -115,7 +115,7 @@ public class Bot extends ListenerAdapter {
                 AudioHandler ah = (AudioHandler) g.getAudioManager().getSendingHandler();
                 if (ah != null) {
                   ah.stopAndClear();
-                  ah.getPlayer().destroy();
+                  ah.destroy();
                 }
               });
       jda.shutdown();
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.sedmelluq.discord.lavaplayer.format.StandardAudioDataFormats;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrameProvider;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+import java.nio.ByteBuffer;
+
+/**
+ * Passes opus frames from a player on to JDA through a single frame and buffer that are reused for
+ * every frame, so sending audio allocates nothing once playback is under way. Not thread safe; JDA
+ * asks for audio from one thread per guild.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class AudioFrameSender {
+  private final ByteBuffer buffer =
+      ByteBuffer.allocate(StandardAudioDataFormats.DISCORD_OPUS.maximumChunkSize());
+  private final MutableAudioFrame frame = new MutableAudioFrame();
+
+  public AudioFrameSender() {
+    frame.setBuffer(buffer);
+  }
+
+  /**
+   * @param provider the player to take the next frame from
+   * @return whether the provider had a frame
+   */
+  public boolean provide(AudioFrameProvider provider) {
+    buffer.clear();
+    return provider.provide(frame);
+  }
+
+  /**
+   * @return the data of the last frame provided, valid until the next call to {@link #provide}
+   */
+  public ByteBuffer getData() {
+    return buffer.position(0).limit(frame.getDataLength());
+  }
+}
@@ -17,6 +17,7 @@ package com.jagrosh.jmusicbot.audio;
 
 import com.jagrosh.jmusicbot.playlist.PlaylistLoader.Playlist;
 import com.jagrosh.jmusicbot.queue.AbstractQueue;
+import com.jagrosh.jmusicbot.queue.QueueLimitException;
 import com.jagrosh.jmusicbot.settings.QueueType;
 import com.jagrosh.jmusicbot.settings.RepeatMode;
 import com.jagrosh.jmusicbot.settings.Settings;
@@ -29,12 +30,12 @@ import com.sedmelluq.discord.lavaplayer.source.youtube.YoutubeAudioTrack;
 import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason;
-import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
 import java.nio.ByteBuffer;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.MessageBuilder;
@@ -52,46 +53,100 @@ public class AudioHandler extends AudioEventAdapter implements AudioSendHandler
   public static final String PAUSE_EMOJI = "\u23F8"; // ⏸
   public static final String STOP_EMOJI = "\u23F9"; // ⏹
 
-  private final List<AudioTrack> defaultQueue = new LinkedList<>();
+  private final Queue<AudioTrack> defaultQueue = new ConcurrentLinkedQueue<>();
   private final Set<String> votes = new HashSet<>();
 
   private final PlayerManager manager;
-  private final AudioPlayer audioPlayer;
   private final AppConfiguration config;
   private final long guildId;
-
-  private AudioFrame lastFrame;
-  private AbstractQueue<QueuedTrack> queue;
+  private final AudioFrameSender sender = new AudioFrameSender();
+  private final AudioMetrics metrics;
+  private final OpusRecorder recorder;
+
+  // the player being heard; it trades places with the standby player on a gapless handover
+  private volatile AudioPlayer audioPlayer;
+  // loads the head of the queue, paused, while the current track plays out
+  private volatile AudioPlayer standby;
+  private volatile QueuedTrack preloaded;
+  // the track the look-ahead has already been started for, only touched by the audio thread
+  private AudioTrack lookedAhead;
+  // when a track last started or ended, or a command last asked for the handler
+  private volatile long lastUsed = System.currentTimeMillis();
+  // heard instead of the guild's own player while set
+  private volatile Broadcast.Tuner tuner;
+  // whether tuning in paused the guild's own track, which tuning out then resumes
+  private volatile boolean pausedForBroadcast;
+  // the stopped broadcast the audio thread already had the guild tune out of, only touched by it
+  private Broadcast.Tuner tunedOut;
+
+  // replaced when the queue type changes; every instance shares the same locked contents
+  private volatile AbstractQueue<QueuedTrack> queue;
 
   protected AudioHandler(
-      PlayerManager manager, Guild guild, AudioPlayer player, AppConfiguration config) {
+      PlayerManager manager,
+      Guild guild,
+      AudioPlayer player,
+      AudioPlayer standby,
+      AudioMetrics metrics,
+      AppConfiguration config) {
     this.manager = manager;
+    this.metrics = metrics;
+    this.recorder = new OpusRecorder(manager.getOpusCache());
     this.config = config;
     this.audioPlayer = player;
+    this.standby = standby;
     this.guildId = guild.getIdLong();
 
     this.setQueueType(manager.getBot().getSettingsManager().getSettings(guildId).getQueueType());
   }
 
-  public void setQueueType(QueueType type) {
-    queue = type.createInstance(queue);
+  public synchronized void setQueueType(QueueType type) {
+    queue = type.createInstance(queue != null ? queue : config.getQueuestorage().createQueue());
+    updateQueueLimits();
+  }
+
+  /** Applies the configured queue limits, with the guild's overrides, to the queue as it is */
+  public synchronized void updateQueueLimits() {
+    Settings settings = manager.getBot().getSettingsManager().getSettings(guildId);
+    queue.setLimits(config.parseQueueLimits().overriddenBy(settings.getQueueLimits()));
   }
 
   public int addTrackToFront(QueuedTrack qtrack) {
+    tuneOut();
     if (audioPlayer.getPlayingTrack() == null) {
-      audioPlayer.playTrack(qtrack.getTrack());
+      play(audioPlayer, qtrack.getTrack());
       return -1;
-    } else {
-      queue.addAt(0, qtrack);
-      return 0;
-    }
+    } else return queue.addNext(compact(qtrack));
   }
 
   public int addTrack(QueuedTrack qtrack) {
+    tuneOut();
     if (audioPlayer.getPlayingTrack() == null) {
-      audioPlayer.playTrack(qtrack.getTrack());
+      play(audioPlayer, qtrack.getTrack());
       return -1;
-    } else return queue.add(qtrack);
+    } else return queue.add(compact(qtrack));
+  }
+
+  /**
+   * Adds a batch of tracks in one go, starting the first one if nothing is playing. Stops at the
+   * first track that does not fit into the queue's limits.
+   *
+   * @param qtracks the tracks to add, in order
+   * @return how many of the tracks were played or added
+   * @throws QueueLimitException if none of the tracks fit into the queue's limits
+   */
+  public int addTracks(List<QueuedTrack> qtracks) {
+    if (qtracks.isEmpty()) return 0;
+    tuneOut();
+    if (audioPlayer.getPlayingTrack() == null) {
+      play(audioPlayer, qtracks.get(0).getTrack());
+      try {
+        return 1
+            + queue.addAll(qtracks.subList(1, qtracks.size()).stream().map(this::compact).toList());
+      } catch (QueueLimitException e) {
+        return 1;
+      }
+    } else return queue.addAll(qtracks.stream().map(this::compact).toList());
   }
 
   public AbstractQueue<QueuedTrack> getQueue() {
@@ -99,9 +154,104 @@ public class AudioHandler extends AudioEventAdapter implements AudioSendHandler
   }
 
   public void stopAndClear() {
-    queue.clear();
-    defaultQueue.clear();
-    audioPlayer.stopTrack();
+    leaveBroadcast();
+    stopPlayback();
+  }
+
+  public void destroy() {
+    standby.destroy();
+    audioPlayer.destroy();
+  }
+
+  /**
+   * Stops playback and hands both players back to the pool. The handler must not be used after.
+   *
+   * @param pool the pool to return the players to
+   */
+  public void close(AudioPlayerPool pool) {
+    stopAndClear();
+    recorder.close();
+    metrics.close();
+    audioPlayer.removeListener(this);
+    standby.removeListener(this);
+    pool.release(audioPlayer);
+    pool.release(standby);
+  }
+
+  /**
+   * Pauses the guild's own track and has it hear the broadcast instead, until it tunes out or plays
+   * something itself. The queue is kept, and goes on where it was once the guild tunes out. The
+   * guild's volume does not apply to a broadcast.
+   *
+   * @param broadcast the broadcast to hear
+   */
+  public synchronized void tuneIn(Broadcast broadcast) {
+    Broadcast.Tuner previous = tuner;
+    tuner = broadcast.tune();
+    if (previous != null) previous.close();
+    if (audioPlayer.getPlayingTrack() != null && !audioPlayer.isPaused()) {
+      audioPlayer.setPaused(true);
+      pausedForBroadcast = true;
+    }
+  }
+
+  /**
+   * Stops hearing the broadcast, if the guild was tuned in to one, and goes on with the guild's own
+   * track and queue
+   */
+  public synchronized void tuneOut() {
+    if (!leaveBroadcast() || audioPlayer.getPlayingTrack() != null) return;
+    // the track that was paused ended while the guild was tuned in, so the queue goes on
+    QueuedTrack next = queue.poll();
+    if (next == null || handOver(next)) return;
+    discardPreload();
+    play(audioPlayer, next.getTrack());
+  }
+
+  /** Tunes out of the given stopped broadcast, unless the guild has tuned in to another since */
+  private synchronized void tuneOutOf(Broadcast.Tuner stopped) {
+    if (tuner == stopped) tuneOut();
+  }
+
+  /**
+   * Stops hearing the broadcast, and resumes the guild's own track if tuning in paused it
+   *
+   * @return whether the guild was tuned in
+   */
+  private synchronized boolean leaveBroadcast() {
+    Broadcast.Tuner current = tuner;
+    if (current == null) return false;
+    tuner = null;
+    current.close();
+    if (pausedForBroadcast) {
+      pausedForBroadcast = false;
+      audioPlayer.setPaused(false);
+    }
+    return true;
+  }
+
+  /**
+   * @return the broadcast the guild hears, or null if it hears its own player
+   */
+  public Broadcast getBroadcast() {
+    Broadcast.Tuner current = tuner;
+    return current != null && current.isOpen() ? current.getBroadcast() : null;
+  }
+
+  /** Marks the handler as in use, which postpones its eviction */
+  public void touch() {
+    lastUsed = System.currentTimeMillis();
+  }
+
+  /**
+   * @param time a time in milliseconds since the epoch
+   * @return whether nothing has been playing, queued or asked for since the given time
+   */
+  public boolean isIdleSince(long time) {
+    return lastUsed < time
+        && audioPlayer.getPlayingTrack() == null
+        && queue.isEmpty()
+        && getBroadcast() == null;
   }
 
   public boolean isMusicPlaying(JDA jda) {
@@ -117,6 +267,10 @@ public class AudioHandler extends AudioEventAdapter implements AudioSendHandler
     return audioPlayer;
   }
 
+  public AudioMetrics getMetrics() {
+    return metrics;
+  }
+
   public RequestMetadata getRequestMetadata() {
     if (audioPlayer.getPlayingTrack() == null) return RequestMetadata.EMPTY;
     RequestMetadata rm = audioPlayer.getPlayingTrack().getUserData(RequestMetadata.class);
@@ -124,8 +278,9 @@ public class AudioHandler extends AudioEventAdapter implements AudioSendHandler
   }
 
   public boolean playFromDefault() {
-    if (!defaultQueue.isEmpty()) {
-      audioPlayer.playTrack(defaultQueue.remove(0));
+    AudioTrack next = defaultQueue.poll();
+    if (next != null) {
+      play(audioPlayer, next);
       return true;
     }
     Settings settings = manager.getBot().getSettingsManager().getSettings(guildId);
@@ -135,9 +290,12 @@ public class AudioHandler extends AudioEventAdapter implements AudioSendHandler
     if (pl == null || pl.getItems().isEmpty()) return false;
     pl.loadTracks(
         manager,
-        at -> {
-          if (audioPlayer.getPlayingTrack() == null) audioPlayer.playTrack(at);
-          else defaultQueue.add(at);
+        tracks -> {
+          for (AudioTrack at : tracks) {
+            if (audioPlayer.getPlayingTrack() == null) play(audioPlayer, at);
+            else defaultQueue.add(at);
+          }
+          return true;
         },
         () -> {
           if (pl.getTracks().isEmpty() && !config.isStayinchannel())
@@ -149,18 +307,40 @@ public class AudioHandler extends AudioEventAdapter implements AudioSendHandler
   // Audio Events
   @Override
   public void onTrackEnd(AudioPlayer player, AudioTrack track, AudioTrackEndReason endReason) {
+    // the standby player only ends tracks when a preload is thrown away
+    if (player != audioPlayer) return;
+    touch();
+    if (endReason == AudioTrackEndReason.FINISHED) recorder.finish(track);
+    else recorder.drop();
+    // a guild that hears a broadcast goes on with its queue once it tunes out
+    if (getBroadcast() != null) return;
     RepeatMode repeatMode =
         manager.getBot().getSettingsManager().getSettings(guildId).getRepeatMode();
     // if the track ended normally, and we're in repeat mode, re-add it to the queue
     if (endReason == AudioTrackEndReason.FINISHED && repeatMode != RepeatMode.OFF) {
       QueuedTrack clone =
-          new QueuedTrack(track.makeClone(), track.getUserData(RequestMetadata.class));
-      if (repeatMode == RepeatMode.ALL) queue.add(clone);
-      else queue.addAt(0, clone);
+          new QueuedTrack(
+              CachedOpusTrack.unwrap(track).makeClone(), track.getUserData(RequestMetadata.class));
+      if (repeatMode == RepeatMode.ALL) {
+        try {
+          queue.add(compact(clone));
+        } catch (QueueLimitException e) {
+          // the queue filled up while the track was playing, let it drop out of the rotation
+        }
+      } else queue.addRepeat(clone);
     }
 
-    if (queue.isEmpty()) {
+    // poll instead of checking isEmpty first, other threads may empty the queue in between
+    QueuedTrack qt = queue.poll();
+    metrics.transitionStarted();
+    if (qt != null && handOver(qt)) {
+      metrics.transitionFollowed(true);
+      return;
+    }
+    discardPreload();
+    if (qt == null) {
       if (!playFromDefault()) {
+        metrics.transitionCancelled();
         manager.getBot().getNowplayingHandler().onTrackUpdate(null);
         if (!config.isStayinchannel()) manager.getBot().closeAudioConnection(guildId);
         // unpause, in the case when the player was paused and the track has been skipped.
@@ -168,8 +348,8 @@ public class AudioHandler extends AudioEventAdapter implements AudioSendHandler
         player.setPaused(false);
       }
     } else {
-      QueuedTrack qt = queue.pull();
-      player.playTrack(qt.getTrack());
+      metrics.transitionFollowed(false);
+      play(player, qt.getTrack());
     }
   }
 
@@ -181,6 +361,10 @@ public class AudioHandler extends AudioEventAdapter implements AudioSendHandler
 
   @Override
   public void onTrackStart(AudioPlayer player, AudioTrack track) {
+    // a preload only counts as started once it is handed over
+    if (player != audioPlayer) return;
+    metrics.trackStarted();
+    touch();
     votes.clear();
     manager.getBot().getNowplayingHandler().onTrackUpdate(track);
   }
@@ -215,7 +399,7 @@ public class AudioHandler extends AudioEventAdapter implements AudioSendHandler
         eb.setTitle(track.getInfo().title);
       }
 
-      if (track instanceof YoutubeAudioTrack && config.isNpimages()) {
+      if (CachedOpusTrack.unwrap(track) instanceof YoutubeAudioTrack && config.isNpimages()) {
         eb.setThumbnail("https://img.youtube.com/vi/" + track.getIdentifier() + "/mqdefault.jpg");
       }
 
@@ -264,13 +448,50 @@ public class AudioHandler extends AudioEventAdapter implements AudioSendHandler
 
   @Override
   public boolean canProvide() {
-    lastFrame = audioPlayer.provide();
-    return lastFrame != null;
+    Broadcast.Tuner listening = tuner;
+    if (listening != null && listening.isOpen()) {
+      // lavaplayer stops the tracks of players that go unpolled for a while, so the guild's own
+      // players are polled too while they are paused, which keeps their tracks for later
+      if (audioPlayer.isPaused()) audioPlayer.provide();
+      if (preloaded != null) standby.provide();
+      if (sender.provide(listening)) {
+        metrics.frameSent();
+        return true;
+      }
+      if (listening.getBroadcast().isPlaying()) metrics.frameMissed();
+      return false;
+    }
+    if (listening != null && listening != tunedOut) {
+      // the broadcast was stopped, so the guild goes back to its own queue, off the audio thread
+      tunedOut = listening;
+      manager.getBot().getThreadpool().execute(() -> tuneOutOf(listening));
+    }
+    AudioPlayer player = audioPlayer;
+    boolean provided = sender.provide(player);
+    // the track ended while providing and the standby took over, so its first frame is due now
+    if (!provided && player != audioPlayer) provided = sender.provide(audioPlayer);
+    // lavaplayer stops the tracks of players that go unpolled for a while, so the paused standby
+    // is polled too, which keeps its preload without taking any of its frames
+    if (preloaded != null) standby.provide();
+    if (!provided) {
+      AudioPlayer current = audioPlayer;
+      if (current.getPlayingTrack() != null && !current.isPaused()) metrics.frameMissed();
+      return false;
+    }
+    metrics.frameSent();
+    AudioTrack track = audioPlayer.getPlayingTrack();
+    recorder.record(track, sender.getData(), audioPlayer.getVolume());
+    if (track != null && track != lookedAhead && isEndingSoon(track)) {
+      // loading touches the queue, the settings and the disk, so it is kept off the audio thread
+      lookedAhead = track;
+      manager.getBot().getThreadpool().execute(() -> lookAhead(track));
+    }
+    return true;
   }
 
   @Override
   public ByteBuffer provide20MsAudio() {
-    return ByteBuffer.wrap(lastFrame.getData());
+    return sender.getData();
   }
 
   @Override
@@ -279,6 +500,77 @@ public class AudioHandler extends AudioEventAdapter implements AudioSendHandler
   }
 
   // Private methods
+  /** Plays a track, from the frames cached of it if there are any */
+  private void play(AudioPlayer player, AudioTrack track) {
+    player.playTrack(manager.getOpusCache().wrap(track));
+  }
+
+  private void stopPlayback() {
+    queue.clear();
+    defaultQueue.clear();
+    discardPreload();
+    audioPlayer.stopTrack();
+  }
+
+  private boolean isEndingSoon(AudioTrack track) {
+    long lookahead = config.getLookahead() * 1000;
+    return lookahead > 0
+        && !track.getInfo().isStream
+        && track.getDuration() - track.getPosition() <= lookahead;
+  }
+
+  /** Starts loading the head of the queue into the standby player, paused */
+  private synchronized void lookAhead(AudioTrack track) {
+    // the track may have ended or been skipped before the look-ahead got its turn
+    if (audioPlayer.getPlayingTrack() != track) return;
+    // a repeated track is re-added when the current one ends, so the head is not what plays next
+    if (manager.getBot().getSettingsManager().getSettings(guildId).getRepeatMode()
+        == RepeatMode.SINGLE) return;
+    QueuedTrack next = queue.peek();
+    if (next == null || next == preloaded) return;
+    discardPreload();
+    preloaded = next;
+    // a track can only be played once, so the queued one is kept for when the preload is dropped
+    AudioTrack queued = next.getTrack();
+    AudioTrack copy = queued.makeClone();
+    copy.setPosition(queued.getPosition());
+    standby.setPaused(true);
+    play(standby, copy);
+  }
+
+  /**
+   * Lets the standby player take over if it has been loaded with the given track
+   *
+   * @return whether the standby player took over
+   */
+  private synchronized boolean handOver(QueuedTrack next) {
+    if (next != preloaded) return false;
+    if (standby.getPlayingTrack() == null) {
+      LoggerFactory.getLogger("AudioHandler")
+          .debug("Preload of " + next.getTrack().getIdentifier() + " was lost, starting it anew");
+      return false;
+    }
+    AudioPlayer previous = audioPlayer;
+    AudioPlayer player = standby;
+    preloaded = null;
+    player.setVolume(previous.getVolume());
+    standby = previous;
+    audioPlayer = player;
+    player.setPaused(previous.isPaused());
+    onTrackStart(player, player.getPlayingTrack());
+    return true;
+  }
+
+  private synchronized void discardPreload() {
+    if (preloaded == null) return;
+    preloaded = null;
+    standby.stopTrack();
+  }
+
+  private QueuedTrack compact(QueuedTrack qtrack) {
+    return config.isCompactqueue() ? qtrack.compact(manager) : qtrack;
+  }
+
   private Guild guild(JDA jda) {
     return jda.getGuildById(guildId);
   }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.jagrosh.jmusicbot.utils.MeterUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How well audio is being delivered to a guild, reported from the audio thread without allocating.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class AudioMetrics {
+  private final MeterRegistry registry;
+  private final Counter framesSent;
+  private final Counter framesMissed;
+  private final Timer firstFrame;
+  private final Timer transitionGap;
+  private final Counter gapless;
+  private final Counter reloaded;
+  private final Gauge longestUnderrun;
+  private final AtomicLong longest = new AtomicLong();
+
+  // frames missed in a row, only touched by the audio thread
+  private int underrun;
+  // when the current track was started or the last transition began, 0 once its first frame is out
+  private volatile long startedAt;
+  private volatile long transitionAt;
+
+  public AudioMetrics(MeterRegistry registry, long guildId) {
+    this.registry = registry;
+    Tags tags = Tags.of("guild", Long.toString(guildId));
+    this.framesSent =
+        MeterUtil.counter(registry, "jmusicbot.audio.frames.sent", "Audio frames sent", tags);
+    this.framesMissed =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.audio.frames.missed",
+            "Frames with no audio ready while a track was playing",
+            tags);
+    this.firstFrame =
+        MeterUtil.timer(
+            registry,
+            "jmusicbot.audio.first.frame",
+            "Time from starting a track until its first frame was sent",
+            tags,
+            0.5,
+            0.99);
+    this.transitionGap =
+        MeterUtil.timer(
+            registry,
+            "jmusicbot.track.transition.gap",
+            "Time from the end of a track until the first frame of the next one",
+            tags,
+            0.5,
+            0.99);
+    this.gapless =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.track.transitions",
+            "Tracks started after another, by whether a preload took over",
+            tags.and("path", "gapless"));
+    this.reloaded =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.track.transitions",
+            "Tracks started after another, by whether a preload took over",
+            tags.and("path", "reloaded"));
+    this.longestUnderrun =
+        Gauge.builder("jmusicbot.audio.underrun.longest", longest, AtomicLong::get)
+            .description("Most frames missed in a row")
+            .baseUnit("frames")
+            .tags(tags)
+            .register(registry);
+  }
+
+  /** A track has ended and the next one is about to be started */
+  public void transitionStarted() {
+    transitionAt = System.nanoTime();
+  }
+
+  /** The track that ended is not followed by another one */
+  public void transitionCancelled() {
+    transitionAt = 0;
+  }
+
+  /**
+   * The track that ended is followed by the next one from the queue
+   *
+   * @param preloaded whether the next track was preloaded and took over, instead of being started
+   *     from scratch
+   */
+  public void transitionFollowed(boolean preloaded) {
+    (preloaded ? gapless : reloaded).increment();
+  }
+
+  public void trackStarted() {
+    startedAt = System.nanoTime();
+  }
+
+  public void frameSent() {
+    framesSent.increment();
+    underrun = 0;
+    if (startedAt != 0 || transitionAt != 0) {
+      long now = System.nanoTime();
+      if (startedAt != 0) firstFrame.record(now - startedAt, TimeUnit.NANOSECONDS);
+      if (transitionAt != 0) transitionGap.record(now - transitionAt, TimeUnit.NANOSECONDS);
+      startedAt = 0;
+      transitionAt = 0;
+    }
+  }
+
+  /** No frame was ready, though a track is playing and not paused */
+  public void frameMissed() {
+    if (startedAt != 0) return;
+    framesMissed.increment();
+    if (++underrun > longest.get()) longest.set(underrun);
+  }
+
+  public long getFramesSent() {
+    return (long) framesSent.count();
+  }
+
+  public long getFramesMissed() {
+    return (long) framesMissed.count();
+  }
+
+  public long getLongestUnderrun() {
+    return longest.get();
+  }
+
+  public long getGaplessTransitions() {
+    return (long) gapless.count();
+  }
+
+  public Timer getFirstFrame() {
+    return firstFrame;
+  }
+
+  public Timer getTransitionGap() {
+    return transitionGap;
+  }
+
+  /** Removes the guild's meters from the registry */
+  public void close() {
+    for (Meter meter :
+        List.of(
+            framesSent,
+            framesMissed,
+            firstFrame,
+            transitionGap,
+            gapless,
+            reloaded,
+            longestUnderrun)) registry.remove(meter);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Keeps a bounded number of players that are no longer used by any guild, so guilds that come back
+ * get a player without creating one. Players beyond the bound are destroyed.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class AudioPlayerPool {
+  private final AudioPlayerManager manager;
+  private final int capacity;
+  private final Deque<AudioPlayer> idle = new ArrayDeque<>();
+
+  /**
+   * @param manager the manager to create players with when the pool is empty
+   * @param capacity how many unused players to keep at most
+   */
+  public AudioPlayerPool(AudioPlayerManager manager, int capacity) {
+    this.manager = manager;
+    this.capacity = capacity;
+  }
+
+  /**
+   * @return an unused player, stopped, unpaused and at full volume
+   */
+  public AudioPlayer acquire() {
+    AudioPlayer player;
+    synchronized (idle) {
+      player = idle.pollFirst();
+    }
+    return player != null ? player : manager.createPlayer();
+  }
+
+  /**
+   * Takes back a player. It must have no listeners left and not be used anymore by whoever
+   * released it.
+   *
+   * @param player the player
+   */
+  public void release(AudioPlayer player) {
+    player.stopTrack();
+    player.setPaused(false);
+    player.setVolume(100);
+    synchronized (idle) {
+      if (idle.size() < capacity) {
+        idle.addFirst(player);
+        return;
+      }
+    }
+    player.destroy();
+  }
+
+  /**
+   * @return how many unused players are kept
+   */
+  public int size() {
+    synchronized (idle) {
+      return idle.size();
+    }
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.sedmelluq.discord.lavaplayer.format.StandardAudioDataFormats;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.player.event.AudioEventAdapter;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrameProvider;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One player whose audio is heard by any number of guilds. Its tracks are loaded, decoded and
+ * encoded once; every frame is kept in a ring and copied as-is to each guild that has tuned in, so
+ * a listener costs a copy of a few hundred bytes per frame and nothing else.
+ *
+ * <p>Whichever listener is furthest ahead takes the next frame from the player, the others read it
+ * from the ring. A listener that falls further behind than the ring reaches rejoins at the newest
+ * frame. The player is not polled while nobody listens, so the broadcast stalls until someone tunes
+ * in; if lavaplayer stops the stalled track in the meantime, it is picked up where it was once
+ * someone does. The tracks are played in a loop, and a live stream that drops is started again.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class Broadcast extends AudioEventAdapter {
+  // a little over a second of audio, must be a power of two
+  private static final int FRAMES = 64;
+  private static final int MASK = FRAMES - 1;
+  private static final long RETRY_DELAY = 5;
+
+  private final String name;
+  private final AudioPlayer player;
+  private final ScheduledExecutorService scheduler;
+  private final ByteBuffer[] buffers = new ByteBuffer[FRAMES];
+  private final MutableAudioFrame[] frames = new MutableAudioFrame[FRAMES];
+  private final List<AudioTrack> tracks = new ArrayList<>();
+  private final AtomicInteger listeners = new AtomicInteger();
+
+  // how many frames have been taken from the player; the newest one is at head - 1
+  private long head;
+  private int position = -1;
+  // the track lavaplayer stopped while nobody listened, to be played once someone does
+  private AudioTrack suspended;
+  private volatile boolean stopped;
+
+  /**
+   * @param name the name listeners tune in by
+   * @param player the player to broadcast, which is destroyed when the broadcast is stopped
+   * @param scheduler runs retries of tracks that failed to load
+   */
+  public Broadcast(String name, AudioPlayer player, ScheduledExecutorService scheduler) {
+    this.name = name;
+    this.player = player;
+    this.scheduler = scheduler;
+    for (int i = 0; i < FRAMES; i++) {
+      buffers[i] = ByteBuffer.allocate(StandardAudioDataFormats.DISCORD_OPUS.maximumChunkSize());
+      frames[i] = new MutableAudioFrame();
+      frames[i].setBuffer(buffers[i]);
+    }
+    player.addListener(this);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public AudioPlayer getPlayer() {
+    return player;
+  }
+
+  /**
+   * @return how many guilds are tuned in
+   */
+  public int getListeners() {
+    return listeners.get();
+  }
+
+  public boolean isPlaying() {
+    return !stopped && player.getPlayingTrack() != null && !player.isPaused();
+  }
+
+  public boolean isStopped() {
+    return stopped;
+  }
+
+  /**
+   * Adds tracks to the end of the loop, and starts it if nothing has played yet
+   *
+   * @param added the tracks, which are not played themselves but cloned each time they come up
+   */
+  public synchronized void addTracks(List<AudioTrack> added) {
+    tracks.addAll(added);
+    if (position < 0) playNext();
+  }
+
+  public synchronized List<AudioTrack> getTracks() {
+    return new ArrayList<>(tracks);
+  }
+
+  /**
+   * @return a new listener, which starts at the newest frame
+   */
+  public synchronized Tuner tune() {
+    listeners.incrementAndGet();
+    return new Tuner(head);
+  }
+
+  /** Stops playback for good, after which every listener hears silence */
+  public synchronized void stop() {
+    if (stopped) return;
+    stopped = true;
+    player.removeListener(this);
+    player.destroy();
+  }
+
+  @Override
+  public void onTrackEnd(AudioPlayer player, AudioTrack track, AudioTrackEndReason endReason) {
+    // a stopped track is skipped, but stopping the broadcast itself removes this listener first
+    if (endReason == AudioTrackEndReason.FINISHED || endReason == AudioTrackEndReason.STOPPED)
+      playNext();
+    // a failing stream is retried after a while, rather than hammering its source
+    else if (endReason == AudioTrackEndReason.LOAD_FAILED)
+      scheduler.schedule(this::playNext, RETRY_DELAY, TimeUnit.SECONDS);
+    // lavaplayer stops the tracks of players nobody polls for a while
+    else if (endReason == AudioTrackEndReason.CLEANUP) suspend(track);
+  }
+
+  private synchronized void suspend(AudioTrack track) {
+    if (stopped) return;
+    suspended = track.makeClone();
+    if (!track.getInfo().isStream) suspended.setPosition(track.getPosition());
+  }
+
+  private synchronized void playNext() {
+    if (stopped || tracks.isEmpty()) return;
+    position = (position + 1) % tracks.size();
+    player.playTrack(tracks.get(position).makeClone());
+  }
+
+  /**
+   * Copies the frame after the listener's last one into the target, taking a new one from the
+   * player if the listener is the furthest ahead
+   */
+  private synchronized boolean read(Tuner tuner, MutableAudioFrame target) {
+    if (stopped) return false;
+    if (tuner.next == head) {
+      if (suspended != null) {
+        player.playTrack(suspended);
+        suspended = null;
+      }
+      int slot = (int) (head & MASK);
+      buffers[slot].clear();
+      if (!player.provide(frames[slot])) return false;
+      head++;
+    } else if (head - tuner.next > FRAMES) tuner.next = head - 1;
+    int slot = (int) (tuner.next++ & MASK);
+    target.store(buffers[slot].array(), 0, frames[slot].getDataLength());
+    return true;
+  }
+
+  /**
+   * A guild's place in the broadcast. Like a player, it provides frames to a single thread; the
+   * allocating variants allocate a frame of their own for every call.
+   */
+  public class Tuner implements AudioFrameProvider {
+    // the frame to send next, which is head if it has not been taken from the player yet
+    private long next;
+    private volatile boolean closed;
+
+    private Tuner(long next) {
+      this.next = next;
+    }
+
+    public Broadcast getBroadcast() {
+      return Broadcast.this;
+    }
+
+    /**
+     * @return whether the guild still listens and the broadcast is still going
+     */
+    public boolean isOpen() {
+      return !closed && !stopped;
+    }
+
+    /** Stops listening; the tuner provides no more frames after this */
+    public synchronized void close() {
+      if (closed) return;
+      closed = true;
+      listeners.decrementAndGet();
+    }
+
+    @Override
+    public AudioFrame provide() {
+      MutableAudioFrame frame = new MutableAudioFrame();
+      frame.setFormat(StandardAudioDataFormats.DISCORD_OPUS);
+      frame.setBuffer(
+          ByteBuffer.allocate(StandardAudioDataFormats.DISCORD_OPUS.maximumChunkSize()));
+      return provide(frame) ? frame : null;
+    }
+
+    /** Never waits, a frame is either in the ring or taken from the player right away */
+    @Override
+    public AudioFrame provide(long timeout, TimeUnit unit) {
+      return provide();
+    }
+
+    @Override
+    public boolean provide(MutableAudioFrame targetFrame) {
+      return !closed && read(this, targetFrame);
+    }
+
+    @Override
+    public boolean provide(MutableAudioFrame targetFrame, long timeout, TimeUnit unit) {
+      return provide(targetFrame);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * The broadcasts that are running, by lower-case name
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+@Component
+public class BroadcastManager {
+  private final PlayerManager manager;
+  private final Map<String, Broadcast> broadcasts = new ConcurrentHashMap<>();
+
+  public BroadcastManager(PlayerManager manager) {
+    this.manager = manager;
+  }
+
+  /**
+   * Starts a broadcast with nothing to play yet, replacing any broadcast of the same name
+   *
+   * @param name the name guilds tune in by
+   * @return the new broadcast
+   */
+  public Broadcast start(String name) {
+    Broadcast broadcast =
+        new Broadcast(name, manager.createPlayer(), manager.getBot().getThreadpool());
+    Broadcast previous = broadcasts.put(name.toLowerCase(), broadcast);
+    if (previous != null) previous.stop();
+    return broadcast;
+  }
+
+  /**
+   * @param name the name of the broadcast, in any case
+   * @return the broadcast, or null if none by that name is running
+   */
+  public Broadcast get(String name) {
+    return broadcasts.get(name.toLowerCase());
+  }
+
+  public Collection<Broadcast> getBroadcasts() {
+    return new ArrayList<>(broadcasts.values());
+  }
+
+  /**
+   * Stops a broadcast; the guilds tuned in to it go back to their own queues
+   *
+   * @param name the name of the broadcast, in any case
+   * @return whether a broadcast by that name was running
+   */
+  public boolean stop(String name) {
+    Broadcast broadcast = broadcasts.remove(name.toLowerCase());
+    if (broadcast == null) return false;
+    broadcast.stop();
+    return true;
+  }
+
+  /**
+   * Stops the given broadcast, but not one that has since replaced it
+   *
+   * @param broadcast the broadcast
+   */
+  public void stop(Broadcast broadcast) {
+    broadcasts.remove(broadcast.getName().toLowerCase(), broadcast);
+    broadcast.stop();
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.sedmelluq.discord.lavaplayer.container.common.OpusPacketRouter;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.DelegatedAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.InternalAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Plays a track from the opus frames the {@link OpusCache} recorded of it. The frames are passed on
+ * as they are unless the volume has been changed, so playing the track takes neither the network
+ * nor transcoding. If the segment has been evicted since the track was created, the original track
+ * is played instead.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class CachedOpusTrack extends DelegatedAudioTrack {
+  private final AudioTrack original;
+  private final Path segment;
+
+  /**
+   * @param original the track the frames were recorded from
+   * @param segment the file of the recorded frames
+   */
+  public CachedOpusTrack(AudioTrack original, Path segment) {
+    super(original.getInfo());
+    this.original = original;
+    this.segment = segment;
+  }
+
+  /**
+   * @return the track the frames were recorded from
+   */
+  public AudioTrack getOriginal() {
+    return original;
+  }
+
+  /**
+   * @param track a track
+   * @return the track the given one plays the cached frames of, or the track itself
+   */
+  public static AudioTrack unwrap(AudioTrack track) {
+    return track instanceof CachedOpusTrack cached ? cached.original : track;
+  }
+
+  @Override
+  public void process(LocalAudioTrackExecutor executor) throws Exception {
+    OpusSegment frames;
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      // the mapping stays valid once the channel is closed, even if the file is evicted
+      frames = OpusSegment.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (IOException e) {
+      processDelegate((InternalAudioTrack) original.makeClone(), executor);
+      return;
+    }
+    OpusPacketRouter router =
+        new OpusPacketRouter(
+            executor.getProcessingContext(), OpusSegment.SAMPLE_RATE, OpusSegment.CHANNELS);
+    int[] next = {0};
+    try {
+      executor.executeProcessingLoop(
+          () -> {
+            while (next[0] < frames.getFrameCount()) router.process(frames.getFrame(next[0]++));
+            router.flush();
+          },
+          position -> {
+            next[0] = frames.frameAt(position);
+            router.seekPerformed(position, OpusSegment.timecodeOf(next[0]));
+          });
+    } finally {
+      router.close();
+    }
+  }
+
+  @Override
+  protected AudioTrack makeShallowClone() {
+    return new CachedOpusTrack(original, segment);
+  }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.jagrosh.jmusicbot.utils.MeterUtil;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageInput;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageOutput;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.DecodedTrackHolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Remembers what identifiers and searches resolved to, so loading them again skips the source.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class LoadCache {
+  private static final Pattern SEARCH =
+      Pattern.compile("(\\w+search):\\s*(.*)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  private static final Pattern SPACES = Pattern.compile("\\s+");
+
+  private final AudioPlayerManager codec;
+  private final long capacity;
+  private final long ttl;
+  private final long noMatchTtl;
+  // by normalized identifier, least recently used first
+  private final Map<String, Result> results = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+
+  private final Counter hits;
+  private final Counter misses;
+
+  /**
+   * @param codec the manager that encodes and decodes the tracks
+   * @param capacity how many tracks the results may hold together; 0 disables the cache
+   * @param ttl how many milliseconds a result is kept for
+   * @param noMatchTtl how many milliseconds a result without matches is kept for
+   * @param registry the registry to report hits, misses and the cache size to
+   */
+  public LoadCache(
+      AudioPlayerManager codec, long capacity, long ttl, long noMatchTtl, MeterRegistry registry) {
+    this.codec = codec;
+    this.capacity = capacity;
+    this.ttl = ttl;
+    this.noMatchTtl = noMatchTtl;
+    this.hits =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.load.cache.requests",
+            "Loads of identifiers and searches that had their result cached",
+            "result",
+            "hit");
+    this.misses =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.load.cache.requests",
+            "Loads of identifiers and searches that had their result cached",
+            "result",
+            "miss");
+    Gauge.builder("jmusicbot.load.cache.size", this, LoadCache::getSize)
+        .description("Tracks held by cached load results")
+        .register(registry);
+    Gauge.builder("jmusicbot.load.cache.hit.ratio", this, LoadCache::getHitRatio)
+        .description("Share of loads that had their result cached")
+        .register(registry);
+  }
+
+  public boolean isEnabled() {
+    return capacity > 0;
+  }
+
+  /**
+   * @return how many tracks the cached results hold together
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  public double getHitRatio() {
+    double total = hits.count() + misses.count();
+    return total == 0 ? 0 : hits.count() / total;
+  }
+
+  /**
+   * @param identifier an identifier or search query
+   * @return what the result of loading it is cached under; searches differing only in case and
+   *     spacing share it
+   */
+  public static String keyOf(String identifier) {
+    String trimmed = identifier.trim();
+    Matcher search = SEARCH.matcher(trimmed);
+    if (!search.matches()) return trimmed;
+    String query = SPACES.matcher(search.group(2).trim()).replaceAll(" ");
+    return search.group(1).toLowerCase(Locale.ROOT) + ":" + query.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Answers the handler from the cache if it holds the identifier's result, or else has the loader
+   * load it and caches what it finds
+   *
+   * @param identifier the identifier or search query to load
+   * @param handler the handler to answer
+   * @param loader starts a load of the identifier for the given handler
+   * @return the load's future, which is already done if the result was cached
+   */
+  public Future<Void> load(
+      String identifier,
+      AudioLoadResultHandler handler,
+      Function<AudioLoadResultHandler, Future<Void>> loader) {
+    if (!isEnabled()) return loader.apply(handler);
+    String key = keyOf(identifier);
+    Result result = get(key);
+    if (result != null && result.answer(handler)) {
+      hits.increment();
+      return CompletableFuture.completedFuture(null);
+    }
+    misses.increment();
+    return loader.apply(new Recorder(key, handler));
+  }
+
+  private synchronized Result get(String key) {
+    Result result = results.get(key);
+    if (result == null || result.expires >= System.currentTimeMillis()) return result;
+    remove(key);
+    return null;
+  }
+
+  private synchronized void put(String key, Result result) {
+    if (result.weight() > capacity) return;
+    remove(key);
+    results.put(key, result);
+    size += result.weight();
+    Iterator<Result> eldest = results.values().iterator();
+    while (size > capacity && eldest.hasNext()) {
+      size -= eldest.next().weight();
+      eldest.remove();
+    }
+  }
+
+  private synchronized void remove(String key) {
+    Result removed = results.remove(key);
+    if (removed != null) size -= removed.weight();
+  }
+
+  /**
+   * @return the track as encoded by the codec, or null if its source cannot encode it
+   */
+  private byte[] encode(AudioTrack track) {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+      codec.encodeTrack(new MessageOutput(out), track);
+      return out.toByteArray();
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return a new track decoded from what the codec encoded, or null if it cannot be decoded
+   */
+  private AudioTrack decode(byte[] encoded) {
+    try {
+      DecodedTrackHolder holder =
+          codec.decodeTrack(new MessageInput(new ByteArrayInputStream(encoded)));
+      return holder == null ? null : holder.decodedTrack;
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /** A cached load result; a single track, a playlist, or no matches */
+  private class Result {
+    private final long expires;
+    // null if nothing matched
+    private final List<byte[]> tracks;
+    private final boolean playlist;
+    private final String name;
+    private final int selected;
+    private final boolean search;
+
+    private Result(long ttl, List<byte[]> tracks) {
+      this(ttl, tracks, false, null, -1, false);
+    }
+
+    private Result(
+        long ttl,
+        List<byte[]> tracks,
+        boolean playlist,
+        String name,
+        int selected,
+        boolean search) {
+      this.expires = System.currentTimeMillis() + ttl;
+      this.tracks = tracks;
+      this.playlist = playlist;
+      this.name = name;
+      this.selected = selected;
+      this.search = search;
+    }
+
+    private long weight() {
+      return tracks == null ? 1 : Math.max(1, tracks.size());
+    }
+
+    /**
+     * @return whether the handler was answered, which it is not if a track cannot be decoded
+     */
+    private boolean answer(AudioLoadResultHandler handler) {
+      if (tracks == null) {
+        handler.noMatches();
+        return true;
+      }
+      List<AudioTrack> decoded = new ArrayList<>(tracks.size());
+      for (byte[] encoded : tracks) {
+        AudioTrack track = decode(encoded);
+        if (track == null) return false;
+        decoded.add(track);
+      }
+      if (!playlist) handler.trackLoaded(decoded.get(0));
+      else
+        handler.playlistLoaded(
+            new BasicAudioPlaylist(
+                name, decoded, selected < 0 ? null : decoded.get(selected), search));
+      return true;
+    }
+  }
+
+  /** Caches the result of a load on its way to the handler that asked for it */
+  private class Recorder implements AudioLoadResultHandler {
+    private final String key;
+    private final AudioLoadResultHandler handler;
+
+    private Recorder(String key, AudioLoadResultHandler handler) {
+      this.key = key;
+      this.handler = handler;
+    }
+
+    @Override
+    public void trackLoaded(AudioTrack track) {
+      byte[] encoded = encode(track);
+      if (encoded != null) put(key, new Result(ttl, List.of(encoded)));
+      handler.trackLoaded(track);
+    }
+
+    @Override
+    public void playlistLoaded(AudioPlaylist playlist) {
+      // encoded before the handler gets to change the tracks' positions or user data
+      List<byte[]> tracks = new ArrayList<>(playlist.getTracks().size());
+      for (AudioTrack track : playlist.getTracks()) {
+        byte[] encoded = encode(track);
+        if (encoded == null) break;
+        tracks.add(encoded);
+      }
+      if (tracks.size() == playlist.getTracks().size()) {
+        AudioTrack selectedTrack = playlist.getSelectedTrack();
+        int selected = selectedTrack == null ? -1 : playlist.getTracks().indexOf(selectedTrack);
+        put(
+            key,
+            new Result(ttl, tracks, true, playlist.getName(), selected, playlist.isSearchResult()));
+      }
+      handler.playlistLoaded(playlist);
+    }
+
+    @Override
+    public void noMatches() {
+      put(key, new Result(noMatchTtl, null));
+      handler.noMatches();
+    }
+
+    @Override
+    public void loadFailed(FriendlyException exception) {
+      handler.loadFailed(exception);
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.jagrosh.jmusicbot.utils.MeterUtil;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collapses loads of the same identifier that overlap in time into a single load.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class LoadCoalescer {
+  private static final Logger LOG = LoggerFactory.getLogger("LoadCoalescer");
+
+  // by identifier, as the load cache keys it, the loads still waiting for their result
+  private final Map<String, Flight> flights = new HashMap<>();
+  private final Counter collapsed;
+
+  public LoadCoalescer(MeterRegistry registry) {
+    this.collapsed =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.load.collapsed",
+            "Loads that joined an identical load already in flight");
+    Gauge.builder("jmusicbot.load.inflight", this, LoadCoalescer::getInFlight)
+        .description("Distinct loads waiting for their result")
+        .register(registry);
+  }
+
+  public synchronized int getInFlight() {
+    return flights.size();
+  }
+
+  /**
+   * Joins the load of the identifier that is in flight, or else has the loader start one
+   *
+   * @param identifier the identifier or search query to load
+   * @param handler the handler to answer
+   * @param loader starts a load of the identifier for the given handler
+   * @return a future that is done once the handler has been answered, and that takes the handler
+   *     off the load when cancelled
+   */
+  public Future<Void> load(
+      String identifier,
+      AudioLoadResultHandler handler,
+      Function<AudioLoadResultHandler, Future<Void>> loader) {
+    String key = LoadCache.keyOf(identifier);
+    Flight flight;
+    synchronized (this) {
+      flight = flights.get(key);
+      if (flight != null) {
+        flight.handlers.add(handler);
+        collapsed.increment();
+        return new Seat(flight, handler);
+      }
+      flight = new Flight(key, handler);
+      flights.put(key, flight);
+    }
+    try {
+      flight.started(loader.apply(flight));
+    } catch (RuntimeException e) {
+      flight.loadFailed(
+          new FriendlyException("Could not start loading.", FriendlyException.Severity.FAULT, e));
+    }
+    return new Seat(flight, handler);
+  }
+
+  /** A load in flight, which answers every handler that joined it */
+  private class Flight implements AudioLoadResultHandler {
+    private final String key;
+    private final List<AudioLoadResultHandler> handlers = new ArrayList<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    // the load, once started, and whether every handler left before it was
+    private Future<Void> load;
+    private boolean abandoned;
+
+    private Flight(String key, AudioLoadResultHandler handler) {
+      this.key = key;
+      this.handlers.add(handler);
+    }
+
+    private void started(Future<Void> load) {
+      boolean cancel;
+      synchronized (LoadCoalescer.this) {
+        this.load = load;
+        cancel = abandoned;
+      }
+      if (cancel) load.cancel(true);
+    }
+
+    /**
+     * @return every handler that joined, after stopping any more from joining or leaving
+     */
+    private List<AudioLoadResultHandler> land() {
+      synchronized (LoadCoalescer.this) {
+        if (flights.get(key) == this) flights.remove(key);
+        List<AudioLoadResultHandler> joined = new ArrayList<>(handlers);
+        handlers.clear();
+        return joined;
+      }
+    }
+
+    /** Answers each handler with its own copy of the result, whatever the others do with theirs */
+    private <T> void answer(
+        List<AudioLoadResultHandler> joined,
+        List<T> copies,
+        BiConsumer<AudioLoadResultHandler, T> answer) {
+      for (int i = 0; i < joined.size(); i++) {
+        try {
+          answer.accept(joined.get(i), copies.get(i));
+        } catch (RuntimeException e) {
+          LOG.error("Load result handler failed for " + key, e);
+        }
+      }
+      done.complete(null);
+    }
+
+    @Override
+    public void trackLoaded(AudioTrack track) {
+      List<AudioLoadResultHandler> joined = land();
+      // cloned before the first handler gets to change the track
+      List<AudioTrack> copies = new ArrayList<>(joined.size());
+      copies.add(track);
+      while (copies.size() < joined.size()) copies.add(track.makeClone());
+      answer(joined, copies, AudioLoadResultHandler::trackLoaded);
+    }
+
+    @Override
+    public void playlistLoaded(AudioPlaylist playlist) {
+      List<AudioLoadResultHandler> joined = land();
+      List<AudioPlaylist> copies = new ArrayList<>(joined.size());
+      copies.add(playlist);
+      while (copies.size() < joined.size()) copies.add(cloneOf(playlist));
+      answer(joined, copies, AudioLoadResultHandler::playlistLoaded);
+    }
+
+    @Override
+    public void noMatches() {
+      List<AudioLoadResultHandler> joined = land();
+      answer(joined, Collections.nCopies(joined.size(), null), (h, none) -> h.noMatches());
+    }
+
+    @Override
+    public void loadFailed(FriendlyException exception) {
+      List<AudioLoadResultHandler> joined = land();
+      answer(joined, Collections.nCopies(joined.size(), exception), (h, e) -> h.loadFailed(e));
+    }
+  }
+
+  /** A handler's place on a flight */
+  private class Seat implements Future<Void> {
+    private final Flight flight;
+    private final AudioLoadResultHandler handler;
+    private boolean cancelled;
+
+    private Seat(Flight flight, AudioLoadResultHandler handler) {
+      this.flight = flight;
+      this.handler = handler;
+    }
+
+    /** Takes the handler off the flight, and cancels the load if it was the last one on it */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      Future<Void> abandon = null;
+      synchronized (LoadCoalescer.this) {
+        if (!flight.handlers.remove(handler)) return false;
+        cancelled = true;
+        if (flight.handlers.isEmpty()) {
+          flight.abandoned = true;
+          if (flights.get(flight.key) == flight) flights.remove(flight.key);
+          abandon = flight.load;
+        }
+      }
+      if (abandon != null) abandon.cancel(mayInterruptIfRunning);
+      return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      synchronized (LoadCoalescer.this) {
+        return cancelled;
+      }
+    }
+
+    @Override
+    public boolean isDone() {
+      return isCancelled() || flight.done.isDone();
+    }
+
+    @Override
+    public Void get() throws InterruptedException, ExecutionException {
+      if (isCancelled()) throw new CancellationException();
+      return flight.done.get();
+    }
+
+    @Override
+    public Void get(long timeout, TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+      if (isCancelled()) throw new CancellationException();
+      return flight.done.get(timeout, unit);
+    }
+  }
+
+  private static AudioPlaylist cloneOf(AudioPlaylist playlist) {
+    List<AudioTrack> tracks = new ArrayList<>(playlist.getTracks().size());
+    AudioTrack selected = null;
+    for (AudioTrack track : playlist.getTracks()) {
+      AudioTrack clone = track.makeClone();
+      if (track == playlist.getSelectedTrack()) selected = clone;
+      tracks.add(clone);
+    }
+    return new BasicAudioPlaylist(playlist.getName(), tracks, selected, playlist.isSearchResult());
+  }
+}
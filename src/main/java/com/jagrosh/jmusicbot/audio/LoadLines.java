@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Lines up loads that share an ordering key, so each is started once the one before it has been
+ * answered, as the player manager does with its ordered loads. Loads answered without asking a
+ * source, which would otherwise overtake those that do, keep their place in the line this way.
+ * Cancelling a load that has not been answered yet lets the next one start.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class LoadLines {
+  private final Executor executor;
+  // by ordering key, when the latest load lined up with it is over
+  private final Map<Object, CompletableFuture<Void>> lines = new HashMap<>();
+
+  /**
+   * @param executor starts the loads that had to wait for the one before them
+   */
+  public LoadLines(Executor executor) {
+    this.executor = executor;
+  }
+
+  public synchronized int getLines() {
+    return lines.size();
+  }
+
+  /**
+   * Has the loader start a load for the handler once every load lined up with the same ordering
+   * key before it is over
+   *
+   * @param orderingKey the key of the line to join
+   * @param handler the handler to answer
+   * @param loader starts a load for the given handler
+   * @return a future that is done once the handler has been answered
+   */
+  public Future<Void> load(
+      Object orderingKey,
+      AudioLoadResultHandler handler,
+      Function<AudioLoadResultHandler, Future<Void>> loader) {
+    Place place = new Place(handler);
+    CompletableFuture<Void> before;
+    synchronized (this) {
+      before = lines.put(orderingKey, place.over);
+    }
+    place.over.whenComplete(
+        (result, error) -> {
+          synchronized (this) {
+            lines.remove(orderingKey, place.over);
+          }
+        });
+    if (before == null || before.isDone()) place.start(loader);
+    else before.whenCompleteAsync((result, error) -> place.start(loader), executor);
+    return place;
+  }
+
+  /** A load's place in its line, which is over once its handler has been answered */
+  private static class Place implements AudioLoadResultHandler, Future<Void> {
+    private final AudioLoadResultHandler handler;
+    private final CompletableFuture<Void> over = new CompletableFuture<>();
+    private Future<Void> load;
+    private boolean cancelled;
+
+    private Place(AudioLoadResultHandler handler) {
+      this.handler = handler;
+    }
+
+    private void start(Function<AudioLoadResultHandler, Future<Void>> loader) {
+      synchronized (this) {
+        if (cancelled) return;
+      }
+      Future<Void> started;
+      try {
+        started = loader.apply(this);
+      } catch (RuntimeException e) {
+        loadFailed(
+            new FriendlyException("Could not start loading.", FriendlyException.Severity.FAULT, e));
+        return;
+      }
+      boolean cancel;
+      synchronized (this) {
+        load = started;
+        cancel = cancelled;
+      }
+      if (cancel) started.cancel(true);
+    }
+
+    @Override
+    public void trackLoaded(AudioTrack track) {
+      try {
+        handler.trackLoaded(track);
+      } finally {
+        over.complete(null);
+      }
+    }
+
+    @Override
+    public void playlistLoaded(AudioPlaylist playlist) {
+      try {
+        handler.playlistLoaded(playlist);
+      } finally {
+        over.complete(null);
+      }
+    }
+
+    @Override
+    public void noMatches() {
+      try {
+        handler.noMatches();
+      } finally {
+        over.complete(null);
+      }
+    }
+
+    @Override
+    public void loadFailed(FriendlyException exception) {
+      try {
+        handler.loadFailed(exception);
+      } finally {
+        over.complete(null);
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      Future<Void> started;
+      synchronized (this) {
+        if (cancelled || over.isDone()) return false;
+        cancelled = true;
+        started = load;
+      }
+      if (started != null) started.cancel(mayInterruptIfRunning);
+      over.complete(null);
+      return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+      return over.isDone();
+    }
+
+    @Override
+    public Void get() throws InterruptedException, ExecutionException {
+      over.get();
+      if (isCancelled()) throw new CancellationException();
+      return null;
+    }
+
+    @Override
+    public Void get(long timeout, TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+      over.get(timeout, unit);
+      if (isCancelled()) throw new CancellationException();
+      return null;
+    }
+  }
+}
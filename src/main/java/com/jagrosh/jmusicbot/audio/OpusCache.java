@@ -0,0 +1,360 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.jagrosh.jmusicbot.utils.MeterUtil;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the opus frames of played tracks on disk, so replays skip the network and transcoding.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class OpusCache {
+  private static final Logger LOG = LoggerFactory.getLogger("OpusCache");
+  private static final String EXTENSION = ".seg";
+  // how often the recorders are drained, well within what their rings hold
+  private static final long DRAIN_MILLIS = 100;
+
+  private final Path folder;
+  private final long capacity;
+  private final long recordingCapacity;
+  private final ExecutorService writer =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread thread = new Thread(r, "opus-cache");
+            thread.setDaemon(true);
+            return thread;
+          });
+  // recordings are drained on a thread of their own, so writing a segment does not hold them up
+  private final ScheduledExecutorService drainer =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread thread = new Thread(r, "opus-recording");
+            thread.setDaemon(true);
+            return thread;
+          });
+  private final Set<OpusRecorder> recorders = ConcurrentHashMap.newKeySet();
+  // segment file name to size, least recently used first
+  private final Map<String, Long> segments = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+  // bytes of memory taken up by recordings, until they are written
+  private long recording;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  /**
+   * @param folder the folder to keep segments in, which is created if needed
+   * @param capacity how many bytes the segments may take up together; 0 disables the cache
+   * @param recordingCapacity how many bytes of memory the recordings of tracks that are playing may
+   *     take up together
+   * @param registry the registry to report hits, misses and the cache size to
+   */
+  public OpusCache(Path folder, long capacity, long recordingCapacity, MeterRegistry registry) {
+    this.folder = folder;
+    this.capacity = capacity;
+    this.recordingCapacity = recordingCapacity;
+    this.hits =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.opus.cache.requests",
+            "Tracks played that had their frames cached",
+            "result",
+            "hit");
+    this.misses =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.opus.cache.requests",
+            "Tracks played that had their frames cached",
+            "result",
+            "miss");
+    this.evictions =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.opus.cache.evictions",
+            "Segments deleted to keep the cache within its size");
+    Gauge.builder("jmusicbot.opus.cache.size", this, OpusCache::getSize)
+        .description("Bytes taken up by cached segments")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("jmusicbot.opus.cache.recording", this, OpusCache::getRecording)
+        .description("Bytes of memory taken up by recordings of tracks that are playing")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("jmusicbot.opus.cache.hit.ratio", this, OpusCache::getHitRatio)
+        .description("Share of played tracks that had their frames cached")
+        .register(registry);
+    if (isEnabled()) {
+      writer.execute(this::scan);
+      drainer.scheduleWithFixedDelay(
+          this::drain, DRAIN_MILLIS, DRAIN_MILLIS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public boolean isEnabled() {
+    return capacity > 0;
+  }
+
+  /**
+   * @return the most a single segment may take up
+   */
+  public long getMaxSegmentSize() {
+    return capacity / 8;
+  }
+
+  /**
+   * @param recorder a recorder to drain in the background, until it is closed
+   */
+  void attach(OpusRecorder recorder) {
+    recorders.add(recorder);
+  }
+
+  private void drain() {
+    for (OpusRecorder recorder : recorders) {
+      try {
+        // a recorder is closed before its last drain, so nothing it recorded is left behind
+        boolean closed = recorder.isClosed();
+        recorder.drain();
+        if (closed) recorders.remove(recorder);
+      } catch (RuntimeException e) {
+        LOG.warn("Could not drain a recording", e);
+      }
+    }
+  }
+
+  public synchronized long getSize() {
+    return size;
+  }
+
+  public synchronized long getRecording() {
+    return recording;
+  }
+
+  /**
+   * @param bytes how many more bytes of memory a recording is about to take up
+   * @return whether they fit within what recordings may take up together, in which case they are
+   *     counted until they are {@link #release(long) released}
+   */
+  public synchronized boolean reserve(long bytes) {
+    if (recording + bytes > recordingCapacity) return false;
+    recording += bytes;
+    return true;
+  }
+
+  /**
+   * @param bytes how many bytes of memory a recording no longer takes up
+   */
+  public synchronized void release(long bytes) {
+    recording -= bytes;
+  }
+
+  public synchronized int getSegmentCount() {
+    return segments.size();
+  }
+
+  public double getHitRatio() {
+    double total = hits.count() + misses.count();
+    return total == 0 ? 0 : hits.count() / total;
+  }
+
+  /**
+   * @param track a track
+   * @return what the track's frames are cached under, or null if they cannot be cached
+   */
+  public static String keyOf(AudioTrack track) {
+    if (track instanceof CachedOpusTrack
+        || track.getInfo().isStream
+        || track.getSourceManager() == null) return null;
+    String source = track.getSourceManager().getSourceName();
+    // local files are read without the network already
+    if (source.equals("local")) return null;
+    return source + ":" + track.getIdentifier();
+  }
+
+  /**
+   * @param track a track that is about to be played
+   * @return a track playing the cached frames of the given one, with its position and user data, or
+   *     the track itself if it has no cached frames
+   */
+  public AudioTrack wrap(AudioTrack track) {
+    String key = isEnabled() ? keyOf(track) : null;
+    if (key == null) return track;
+    String name = fileName(key);
+    synchronized (this) {
+      if (segments.get(name) == null) {
+        misses.increment();
+        return track;
+      }
+    }
+    hits.increment();
+    Path path = folder.resolve(name);
+    // the last time a segment was played decides what is evicted first after a restart
+    writer.execute(() -> touch(path));
+    CachedOpusTrack cached = new CachedOpusTrack(track, path);
+    cached.setUserData(track.getUserData());
+    cached.setPosition(track.getPosition());
+    return cached;
+  }
+
+  /**
+   * Stores the frames of a track that was played through, in the background
+   *
+   * @param key what the frames are cached under
+   * @param frameData the frames, one after another, from the start of the buffer, which must not be
+   *     changed after
+   * @param ends where each frame ends in the frame data, which must not be changed after
+   * @param frames how many frames there are
+   * @param reserved how many bytes of memory the recording was counted as taking up, which are
+   *     released once it is written
+   */
+  public void store(String key, ByteBuffer frameData, int[] ends, int frames, long reserved) {
+    String name = fileName(key);
+    synchronized (this) {
+      if (segments.containsKey(name)) {
+        recording -= reserved;
+        return;
+      }
+    }
+    writer.execute(
+        () -> {
+          try {
+            write(name, frameData, ends, frames);
+          } finally {
+            release(reserved);
+          }
+        });
+  }
+
+  private void write(String name, ByteBuffer frameData, int[] ends, int frames) {
+    Path path = folder.resolve(name);
+    Path temp = folder.resolve(name + ".tmp");
+    long written;
+    try {
+      Files.createDirectories(folder);
+      written = OpusSegment.write(temp, frameData, ends, frames);
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOG.warn("Could not write segment " + path, e);
+      delete(temp);
+      return;
+    }
+    synchronized (this) {
+      Long previous = segments.put(name, written);
+      size += written - (previous == null ? 0 : previous);
+    }
+    evict();
+  }
+
+  /** Deletes the least recently used segments until the cache is within its size */
+  private void evict() {
+    while (true) {
+      String name;
+      synchronized (this) {
+        if (size <= capacity || segments.isEmpty()) return;
+        Iterator<Map.Entry<String, Long>> eldest = segments.entrySet().iterator();
+        Map.Entry<String, Long> entry = eldest.next();
+        name = entry.getKey();
+        size -= entry.getValue();
+        eldest.remove();
+      }
+      evictions.increment();
+      delete(folder.resolve(name));
+    }
+  }
+
+  /** Picks up the segments left by earlier runs, least recently used first */
+  private void scan() {
+    if (!Files.isDirectory(folder)) return;
+    List<Path> found;
+    try (Stream<Path> files = Files.list(folder)) {
+      found =
+          files
+              .filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+              .sorted(Comparator.comparing(OpusCache::lastModified))
+              .toList();
+    } catch (IOException e) {
+      LOG.warn("Could not read the opus cache folder " + folder, e);
+      return;
+    }
+    for (Path path : found) {
+      try {
+        long bytes = Files.size(path);
+        synchronized (this) {
+          // a segment written since the cache started is counted already
+          if (segments.putIfAbsent(path.getFileName().toString(), bytes) == null) size += bytes;
+        }
+      } catch (IOException e) {
+        LOG.warn("Could not read segment " + path, e);
+      }
+    }
+    evict();
+  }
+
+  private static String fileName(String key) {
+    return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + EXTENSION;
+  }
+
+  private static FileTime lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  private static void touch(Path path) {
+    try {
+      Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      // evicted in the meantime
+    }
+  }
+
+  private static void delete(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      LOG.warn("Could not delete segment " + path, e);
+    }
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Records the frames a guild sends of each track, and hands them to the {@link OpusCache} if the
+ * track was played through from its start, at full volume and without seeking. Anything else would
+ * not sound like the track does. Recordings only take up as much memory as the cache lets them, all
+ * guilds' together, and are dropped once they would take up more.
+ *
+ * <p>Frames are fed from the guild's audio thread, which must not wait or allocate, so they are
+ * only copied into a ring that is allocated up front, and the cache {@link #drain() drains} the
+ * ring into the recording in the background. Tracks end on whichever thread stopped or replaced
+ * them, and their ends are queued to be handled in line with the frames. A recording that loses
+ * frames because the ring was full is dropped.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class OpusRecorder {
+  // how far the track's position may stray from the frames recorded before it counts as a seek
+  private static final long TOLERANCE = 1000;
+  // how many frames the buffers first have room for, a few seconds' worth; they grow as needed
+  private static final int INITIAL_FRAMES = 128;
+  // what a frame usually takes up, to size the first buffer
+  private static final int FRAME_ESTIMATE = 256;
+  // longer tracks are not recorded, as their buffer would take up too much memory
+  private static final long MAX_LENGTH = 30 * 60 * 1000;
+  // how many frames the ring holds until it is drained, a few seconds' worth
+  private static final int SLOTS = 128;
+  // how many bytes of frames the ring holds, a power of two
+  private static final int BYTES = 1 << 16;
+
+  private final OpusCache cache;
+
+  // the ring, written by the audio thread and read by the drainer; null if the cache is disabled
+  private final byte[] ring;
+  private final AudioTrack[] tracks;
+  private final long[] positions;
+  private final int[] volumes;
+  private final int[] lengths;
+  // whether frames were lost before each frame
+  private final boolean[] gaps;
+  // frames and bytes put in the ring, only written by the audio thread
+  private volatile long written;
+  private long bytesWritten;
+  // frames and bytes taken out of the ring, only written by the drainer
+  private volatile long read;
+  private volatile long bytesRead;
+  // whether frames were lost since the last frame that fit in the ring
+  private volatile boolean losing;
+  private final Queue<Ending> endings = new ConcurrentLinkedQueue<>();
+  // how many frames had been put in the ring at the last drop
+  private volatile long dropped = -1;
+  private volatile boolean closed;
+
+  // the recording, only touched by the drainer
+  private AudioTrack track;
+  // null while the current track is not being recorded
+  private String key;
+  private long start;
+  private ByteBuffer data;
+  private int[] ends;
+  private int frames;
+  // how many bytes of memory the cache counts the recording as taking up
+  private long reserved;
+
+  public OpusRecorder(OpusCache cache) {
+    this.cache = cache;
+    boolean enabled = cache.isEnabled();
+    ring = enabled ? new byte[BYTES] : null;
+    tracks = enabled ? new AudioTrack[SLOTS] : null;
+    positions = enabled ? new long[SLOTS] : null;
+    volumes = enabled ? new int[SLOTS] : null;
+    lengths = enabled ? new int[SLOTS] : null;
+    gaps = enabled ? new boolean[SLOTS] : null;
+    if (enabled) cache.attach(this);
+  }
+
+  /**
+   * Puts a frame in the ring, without waiting or allocating
+   *
+   * @param track the track the frame is from
+   * @param frame the frame, between the buffer's position and limit, which are left as they are
+   * @param volume the volume the frame was played at
+   */
+  public void record(AudioTrack track, ByteBuffer frame, int volume) {
+    if (ring == null || track == null) return;
+    long slot = written;
+    int length = frame.remaining();
+    if (slot - read == SLOTS || bytesWritten + length - bytesRead > BYTES) {
+      losing = true;
+      return;
+    }
+    int index = (int) (slot % SLOTS);
+    int at = (int) (bytesWritten & (BYTES - 1));
+    int first = Math.min(length, BYTES - at);
+    frame.get(frame.position(), ring, at, first);
+    frame.get(frame.position() + first, ring, 0, length - first);
+    tracks[index] = track;
+    positions[index] = track.getPosition();
+    volumes[index] = volume;
+    lengths[index] = length;
+    gaps[index] = losing;
+    losing = false;
+    bytesWritten += length;
+    written = slot + 1;
+  }
+
+  /**
+   * Hands the recording to the cache if the given track was recorded in full
+   *
+   * @param track a track that has ended, having been played through
+   */
+  public void finish(AudioTrack track) {
+    if (ring != null) endings.offer(new Ending(losing ? null : track, written));
+  }
+
+  /** Drops the recording of the current track, which was not played through, if there is one */
+  public void drop() {
+    if (ring == null) return;
+    long frame = written;
+    // drops at the same frame are alike, so a thread that keeps dropping only queues one of them
+    if (frame == dropped) return;
+    endings.offer(new Ending(null, frame));
+    dropped = frame;
+  }
+
+  /** Drops the recording, and stops the cache from draining the recorder once it is drained */
+  public void close() {
+    drop();
+    closed = true;
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Moves the frames in the ring into the recording, and hands the recordings of tracks that ended
+   * to the cache. The cache does this in the background, and it must not be done on the audio
+   * thread.
+   */
+  public synchronized void drain() {
+    if (ring == null) return;
+    long available = written;
+    while (true) {
+      Ending ending = endings.peek();
+      long until = ending == null ? available : Math.min(available, ending.frame());
+      while (read < until) take();
+      if (ending == null || ending.frame() > available) return;
+      endings.poll();
+      end(ending.track());
+    }
+  }
+
+  /** Takes the oldest frame out of the ring, and adds it to the recording if it still fits */
+  private void take() {
+    int index = (int) (read % SLOTS);
+    AudioTrack track = tracks[index];
+    tracks[index] = null;
+    int length = lengths[index];
+    long at = bytesRead;
+    if (gaps[index]) abandon();
+    append(track, positions[index], volumes[index], at, length);
+    bytesRead = at + length;
+    read++;
+  }
+
+  private void append(AudioTrack track, long position, int volume, long at, int length) {
+    if (track != this.track) begin(track, position);
+    if (key == null) return;
+    long expected = start + OpusSegment.timecodeOf(frames);
+    if (volume != 100 || Math.abs(position - expected) > TOLERANCE) {
+      abandon();
+      return;
+    }
+    if (frames == ends.length) {
+      if (!reserve((long) ends.length * Integer.BYTES)) return;
+      ends = Arrays.copyOf(ends, ends.length * 2);
+    }
+    if (data.remaining() < length) {
+      if (data.position() + length > cache.getMaxSegmentSize()) {
+        abandon();
+        return;
+      }
+      long grown =
+          Math.max(
+              Math.min(data.capacity() * 2L, cache.getMaxSegmentSize()), data.position() + length);
+      if (!reserve(grown - data.capacity())) return;
+      data = ByteBuffer.allocate((int) grown).put(data.flip());
+    }
+    int offset = (int) (at & (BYTES - 1));
+    int first = Math.min(length, BYTES - offset);
+    data.put(ring, offset, first).put(ring, 0, length - first);
+    ends[frames++] = data.position();
+  }
+
+  /**
+   * @param track the track that ended, if it was played through, or null if it was not
+   */
+  private void end(AudioTrack track) {
+    if (track != null && track == this.track && key != null && frames > 0) {
+      cache.store(key, data, ends, frames, reserved);
+      reserved = 0;
+    }
+    this.track = null;
+    abandon();
+  }
+
+  private void begin(AudioTrack track, long position) {
+    this.track = track;
+    abandon();
+    if (position > TOLERANCE || track.getDuration() > MAX_LENGTH) return;
+    key = OpusCache.keyOf(track);
+    if (key == null) return;
+    start = position;
+    // every playing guild records, so the buffers start small rather than sized for the track
+    long size = Math.min((long) INITIAL_FRAMES * FRAME_ESTIMATE, cache.getMaxSegmentSize());
+    if (!reserve(size + (long) INITIAL_FRAMES * Integer.BYTES)) return;
+    ends = new int[INITIAL_FRAMES];
+    data = ByteBuffer.allocate((int) size);
+    frames = 0;
+  }
+
+  /**
+   * @param bytes how many more bytes of memory the recording is about to take up
+   * @return whether the cache lets it; if not, the recording is dropped
+   */
+  private boolean reserve(long bytes) {
+    if (cache.reserve(bytes)) {
+      reserved += bytes;
+      return true;
+    }
+    abandon();
+    return false;
+  }
+
+  private void abandon() {
+    key = null;
+    data = null;
+    ends = null;
+    cache.release(reserved);
+    reserved = 0;
+  }
+
+  /**
+   * @param track the track that ended, if it was played through, or null if it was dropped
+   * @param frame how many frames had been put in the ring when it ended
+   */
+  private record Ending(AudioTrack track, long frame) {}
+}
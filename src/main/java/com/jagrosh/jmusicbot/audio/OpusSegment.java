@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The opus frames of a whole track, as stored in the {@link OpusCache}. A segment starts with a
+ * header of a magic number, a version and the number of frames, followed by where each frame ends
+ * and then by the frames themselves, so any frame can be found without reading the ones before it.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class OpusSegment {
+  public static final int SAMPLE_RATE = 48000;
+  public static final int CHANNELS = 2;
+  public static final int FRAME_MILLIS = 20;
+
+  private static final int MAGIC = 0x4A4D4F53; // JMOS
+  private static final int VERSION = 1;
+  private static final int HEADER = 12;
+
+  private final ByteBuffer buffer;
+  private final int frames;
+  private final int data;
+
+  private OpusSegment(ByteBuffer buffer, int frames) {
+    this.buffer = buffer;
+    this.frames = frames;
+    this.data = HEADER + frames * Integer.BYTES;
+  }
+
+  /**
+   * @param buffer a whole segment, usually mapped from its file
+   * @return the segment, reading from a view of the buffer
+   * @throws IOException if the buffer does not hold a segment of this version
+   */
+  public static OpusSegment read(ByteBuffer buffer) throws IOException {
+    ByteBuffer view = buffer.duplicate();
+    if (view.remaining() < HEADER || view.getInt(0) != MAGIC || view.getInt(4) != VERSION)
+      throw new IOException("Not an opus segment");
+    int frames = view.getInt(8);
+    long data = HEADER + (long) frames * Integer.BYTES;
+    if (frames < 0
+        || data > view.limit()
+        || (frames > 0 && data + view.getInt(HEADER + (frames - 1) * Integer.BYTES) > view.limit()))
+      throw new IOException("Truncated opus segment");
+    return new OpusSegment(view, frames);
+  }
+
+  /**
+   * Writes a segment to a file, replacing the file if it exists
+   *
+   * @param path the file
+   * @param frameData the frames, one after another, from the start of the buffer
+   * @param ends where each frame ends in the frame data
+   * @param frames how many frames there are
+   * @return the size of the file
+   */
+  public static long write(Path path, ByteBuffer frameData, int[] ends, int frames)
+      throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER + frames * Integer.BYTES);
+    header.putInt(MAGIC).putInt(VERSION).putInt(frames);
+    for (int i = 0; i < frames; i++) header.putInt(ends[i]);
+    header.flip();
+    ByteBuffer body = frameData.duplicate();
+    body.position(0).limit(frames == 0 ? 0 : ends[frames - 1]);
+    try (FileChannel channel =
+        FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      while (header.hasRemaining() || body.hasRemaining())
+        channel.write(new ByteBuffer[] {header, body});
+      return channel.size();
+    }
+  }
+
+  public int getFrameCount() {
+    return frames;
+  }
+
+  /**
+   * @param index the index of a frame
+   * @return the frame, between the position and limit of a buffer that is shared by every frame,
+   *     so it is only valid until the next call
+   */
+  public ByteBuffer getFrame(int index) {
+    int start = index == 0 ? 0 : buffer.getInt(HEADER + (index - 1) * Integer.BYTES);
+    int end = buffer.getInt(HEADER + index * Integer.BYTES);
+    buffer.limit(data + end).position(data + start);
+    return buffer;
+  }
+
+  /**
+   * @param position a position in the track, in milliseconds
+   * @return the index of the frame that plays at the position, or the frame count if it is past
+   *     the end
+   */
+  public int frameAt(long position) {
+    return (int) Math.min(frames, Math.max(0, position / FRAME_MILLIS));
+  }
+
+  /**
+   * @param index the index of a frame
+   * @return where the frame starts in the track, in milliseconds
+   */
+  public static long timecodeOf(int index) {
+    return (long) index * FRAME_MILLIS;
+  }
+}
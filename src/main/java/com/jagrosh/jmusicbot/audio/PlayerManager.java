@@ -16,10 +16,15 @@
 package com.jagrosh.jmusicbot.audio;
 
 import com.jagrosh.jmusicbot.Bot;
+import com.jagrosh.jmusicbot.http.CachingRequestExecutor;
+import com.jagrosh.jmusicbot.http.HttpConnectionPool;
+import com.jagrosh.jmusicbot.http.HttpRangeCache;
 import com.jagrosh.jmusicbot.spring.AppConfiguration;
 import com.sedmelluq.discord.lavaplayer.container.MediaContainerRegistry;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
 import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManagers;
 import com.sedmelluq.discord.lavaplayer.source.bandcamp.BandcampAudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.source.beam.BeamAudioSourceManager;
@@ -29,8 +34,21 @@ import com.sedmelluq.discord.lavaplayer.source.nico.NicoAudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.source.soundcloud.SoundCloudAudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.source.twitch.TwitchStreamAudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.source.vimeo.VimeoAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpConfigurable;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import com.sedmelluq.discord.lavaplayer.track.playback.NonAllocatingAudioFrameBuffer;
 import dev.lavalink.youtube.YoutubeAudioSourceManager;
 import dev.lavalink.youtube.clients.Web;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import net.dv8tion.jda.api.entities.Guild;
 import org.springframework.stereotype.Component;
 
@@ -39,16 +57,83 @@ import org.springframework.stereotype.Component;
  */
 @Component
 public class PlayerManager extends DefaultAudioPlayerManager {
+  private static final AppConfiguration.SourceLimitsConfig NO_LIMITS =
+      new AppConfiguration.SourceLimitsConfig();
+
   private final Bot bot;
   private final AppConfiguration config;
+  private final MeterRegistry registry;
+  private final AudioPlayerPool pool;
+  private final OpusCache opusCache;
+  private final HttpRangeCache httpCache;
+  private final HttpConnectionPool httpPool;
+  private final LoadCache loadCache;
+  private final LoadCoalescer loadCoalescer;
+  private final LoadLines loadLines;
+  private final SourceRouter router;
+  private final List<SourceCircuitBreaker> breakers = new CopyOnWriteArrayList<>();
+  private final QueryLoader queryLoader;
+  // every guild's handler, which is also installed as the guild's sending handler
+  private final Map<Long, AudioHandler> handlers = new ConcurrentHashMap<>();
 
-  public PlayerManager(Bot bot, AppConfiguration config) {
+  public PlayerManager(Bot bot, AppConfiguration config, MeterRegistry registry) {
     this.bot = bot;
     this.bot.setPlayers(this);
     this.config = config;
+    this.registry = registry;
+    this.pool = new AudioPlayerPool(this, config.getPlayerpoolsize());
+    this.opusCache =
+        new OpusCache(
+            Paths.get(config.getOpuscachefolder()),
+            config.getOpuscachesize() * 1024 * 1024,
+            config.getOpuscacherecording() * 1024 * 1024,
+            registry);
+    this.httpCache =
+        new HttpRangeCache(
+            Paths.get(config.getHttpcachefolder()),
+            config.getHttpcachesize() * 1024 * 1024,
+            registry);
+    this.httpPool =
+        new HttpConnectionPool(
+            config.getHttpmaxconnections(),
+            config.getHttpmaxperhost(),
+            config.getHttphostlimits(),
+            config.getHttpkeepalive() * 1000,
+            config.getHttpdnsttl() * 1000,
+            config.getHttptimeout() * 1000,
+            registry);
+    this.loadCache =
+        new LoadCache(
+            this,
+            config.getLoadcachesize(),
+            config.getLoadcachettl() * 1000,
+            config.getLoadcachenomatchttl() * 1000,
+            registry);
+    this.loadCoalescer = new LoadCoalescer(registry);
+    this.loadLines = new LoadLines(bot.getThreadpool());
+    this.router = config.isLoaderrouting() ? new SourceRouter(registry) : null;
+
+    setItemLoaderThreadPoolSize(config.getLoaderthreads());
+
+    // frames are handed to JDA through one reused buffer, so they need not be copied out either
+    getConfiguration().setFrameBufferFactory(NonAllocatingAudioFrameBuffer::new);
 
-    TransformativeAudioSourceManager.createTransforms(config.getTransforms())
-        .forEach(t -> registerSourceManager(t));
+    // asked before every other source, which it then asks itself
+    if (router != null) super.registerSourceManager(router);
+
+    // the pages transforms read are fetched over the shared connections too
+    HttpInterfaceManager pages = HttpClientTools.createDefaultThreadLocalManager();
+    pages.configureBuilder(httpPool::configure);
+    List<TransformativeAudioSourceManager> transforms =
+        TransformativeAudioSourceManager.createTransforms(
+            config.getTransforms(),
+            pages,
+            config.getTransformtimeout() * 1000,
+            config.getTransformcachettl() * 1000);
+    transforms.forEach(t -> registerSourceManager(t));
+    this.queryLoader =
+        new QueryLoader(
+            this, loadLines, query -> transforms.stream().anyMatch(t -> t.claims(query)), registry);
 
     if (config.getPoToken() != null && config.getVisitorData() != null) {
       Web.setPoTokenAndVisitorData(config.getPoToken(), config.getVisitorData());
@@ -58,35 +143,193 @@ public class PlayerManager extends DefaultAudioPlayerManager {
     yt.setPlaylistPageCount(config.getMaxytplaylistpages());
     registerSourceManager(yt);
 
-    registerSourceManager(SoundCloudAudioSourceManager.createDefault());
-    registerSourceManager(new BandcampAudioSourceManager());
+    SoundCloudAudioSourceManager soundcloud = SoundCloudAudioSourceManager.createDefault();
+    BandcampAudioSourceManager bandcamp = new BandcampAudioSourceManager();
+    HttpAudioSourceManager http =
+        new HttpAudioSourceManager(MediaContainerRegistry.DEFAULT_REGISTRY);
+    // these download whole files, which are kept so seeks back and replays need not fetch them
+    // again
+    if (httpCache.isEnabled()) {
+      CachingRequestExecutor caching = new CachingRequestExecutor(httpCache);
+      soundcloud.configureBuilder(caching::configure);
+      bandcamp.configureBuilder(caching::configure);
+      http.configureBuilder(caching::configure);
+    }
+
+    registerSourceManager(soundcloud);
+    registerSourceManager(bandcamp);
     registerSourceManager(new VimeoAudioSourceManager());
     registerSourceManager(new TwitchStreamAudioSourceManager());
     registerSourceManager(new BeamAudioSourceManager());
     registerSourceManager(new GetyarnAudioSourceManager());
     registerSourceManager(new NicoAudioSourceManager());
-    registerSourceManager(new HttpAudioSourceManager(MediaContainerRegistry.DEFAULT_REGISTRY));
+    registerSourceManager(http);
 
     AudioSourceManagers.registerLocalSource(this);
+
+    bot.getThreadpool().scheduleWithFixedDelay(httpPool::closeIdle, 30, 30, TimeUnit.SECONDS);
+    if (config.getIdletimeuntilevict() > 0)
+      bot.getThreadpool().scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.MINUTES);
   }
 
   public Bot getBot() {
     return bot;
   }
 
+  public OpusCache getOpusCache() {
+    return opusCache;
+  }
+
+  public HttpRangeCache getHttpCache() {
+    return httpCache;
+  }
+
+  public LoadCache getLoadCache() {
+    return loadCache;
+  }
+
+  public QueryLoader getQueryLoader() {
+    return queryLoader;
+  }
+
+  public List<SourceCircuitBreaker> getBreakers() {
+    return breakers;
+  }
+
+  /**
+   * Registers the source behind a breaker and that behind a bulkhead of its own sized by the loader
+   * settings, unless it claims every identifier, and hands it to the router. The breaker
+   * judges the source by the loads it runs, without the time they waited for a free slot of the
+   * bulkhead; the http and local sources get no breaker, as they play from any site or file. Sources
+   * that make HTTP requests make them over the shared connections.
+   */
+  @Override
+  public void registerSourceManager(AudioSourceManager source) {
+    if (source instanceof HttpConfigurable configurable)
+      configurable.configureBuilder(httpPool::configure);
+    AudioSourceManager registered = limit(source, guard(source));
+    super.registerSourceManager(registered);
+    if (router != null)
+      router.add(
+          registered,
+          source instanceof TransformativeAudioSourceManager transform ? transform::claims : null);
+  }
+
+  private AudioSourceManager limit(AudioSourceManager source, AudioSourceManager guarded) {
+    AppConfiguration.SourceLimitsConfig limits =
+        config.getLoaderlimits().getOrDefault(source.getSourceName(), NO_LIMITS);
+    int concurrency =
+        limits.getConcurrency() == null ? config.getLoaderconcurrency() : limits.getConcurrency();
+    // every load would have to get a slot of a source that claims everything
+    if (concurrency <= 0 || claimsEverything(source)) return guarded;
+    int queue = limits.getQueue() == null ? config.getLoaderqueue() : limits.getQueue();
+    long timeout = limits.getTimeout() == null ? config.getLoadertimeout() : limits.getTimeout();
+    return new SourceBulkhead(
+        guarded, SourceBulkhead.claimsOf(source), concurrency, queue, timeout * 1000, registry);
+  }
+
+  private AudioSourceManager guard(AudioSourceManager source) {
+    // a breaker on a source that claims everything would turn away loads meant for no source, and
+    // one on a source of any site or file would cut off all of them for the failures of one
+    if (config.getBreakerwindow() <= 0 || claimsEverything(source) || isCatchAll(source))
+      return source;
+    SourceCircuitBreaker breaker =
+        new SourceCircuitBreaker(
+            source,
+            SourceBulkhead.claimsOf(source),
+            config.getBreakerwindow(),
+            config.getBreakerfailurerate(),
+            config.getBreakerlatency() * 1000,
+            config.getBreakeropen() * 1000,
+            registry);
+    breakers.add(breaker);
+    return breaker;
+  }
+
+  /** @return whether the source cannot tell identifiers that are its own from others */
+  private static boolean claimsEverything(AudioSourceManager source) {
+    return !(source instanceof TransformativeAudioSourceManager)
+        && !SourceRouter.routes(source.getSourceName())
+        && !isCatchAll(source);
+  }
+
+  /** @return whether the source plays whatever links or files no other source is for */
+  private static boolean isCatchAll(AudioSourceManager source) {
+    return source.getSourceName().equals("http") || source.getSourceName().equals("local");
+  }
+
+  @Override
+  public Future<Void> loadItem(AudioReference reference, AudioLoadResultHandler handler) {
+    String identifier = reference.identifier;
+    // identical loads in flight are joined before the cache is asked, so a result that is not
+    // cached yet is loaded and encoded once however many handlers wait for it
+    return loadCoalescer.load(
+        identifier,
+        handler,
+        h -> loadCache.load(identifier, h, c -> super.loadItem(reference, c)));
+  }
+
+  @Override
+  public Future<Void> loadItemOrdered(
+      Object orderingKey, AudioReference reference, AudioLoadResultHandler handler) {
+    String identifier = reference.identifier;
+    // lined up first, so cached results and loads that join another one are answered in line too,
+    // instead of ahead of the loads before them
+    return loadLines.load(
+        orderingKey,
+        handler,
+        l ->
+            loadCoalescer.load(
+                identifier,
+                l,
+                h ->
+                    loadCache.load(
+                        identifier, h, c -> super.loadItemOrdered(orderingKey, reference, c))));
+  }
+
   public boolean hasHandler(Guild guild) {
     return guild.getAudioManager().getSendingHandler() != null;
   }
 
   public AudioHandler getOrCreateAudioHandler(Guild guild) {
-    AudioHandler handler;
-    if (guild.getAudioManager().getSendingHandler() == null) {
-      AudioPlayer player = createPlayer();
-      player.setVolume(bot.getSettingsManager().getSettings(guild).getVolume());
-      handler = new AudioHandler(this, guild, player, config);
-      player.addListener(handler);
-      guild.getAudioManager().setSendingHandler(handler);
-    } else handler = (AudioHandler) guild.getAudioManager().getSendingHandler();
+    // computed under the map's lock, so a handler is never handed out while it is being evicted
+    return handlers.compute(
+        guild.getIdLong(),
+        (id, handler) -> {
+          if (handler == null) handler = createAudioHandler(guild);
+          handler.touch();
+          return handler;
+        });
+  }
+
+  private AudioHandler createAudioHandler(Guild guild) {
+    AudioPlayer player = pool.acquire();
+    AudioPlayer standby = pool.acquire();
+    player.setVolume(bot.getSettingsManager().getSettings(guild).getVolume());
+    AudioHandler handler =
+        new AudioHandler(
+            this, guild, player, standby, new AudioMetrics(registry, guild.getIdLong()), config);
+    player.addListener(handler);
+    standby.addListener(handler);
+    guild.getAudioManager().setSendingHandler(handler);
     return handler;
   }
+
+  /** Frees the handlers of guilds that have not used them for a while */
+  private void evictIdle() {
+    long cutoff = System.currentTimeMillis() - config.getIdletimeuntilevict() * 1000;
+    for (long guildId : handlers.keySet()) {
+      handlers.computeIfPresent(
+          guildId,
+          (id, handler) -> {
+            Guild guild = bot.getJDA().getGuildById(id);
+            if (guild != null && guild.getAudioManager().isConnected()) return handler;
+            if (!handler.isIdleSince(cutoff)) return handler;
+            if (guild != null && guild.getAudioManager().getSendingHandler() == handler)
+              guild.getAudioManager().setSendingHandler(null);
+            handler.close(pool);
+            return null;
+          });
+    }
+  }
 }
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.jagrosh.jmusicbot.utils.MeterUtil;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Loads what was given to a play command, which may be a link or a search. Queries that are plainly
+ * text are searched for right away, and queries that are plainly identifiers are loaded and only
+ * searched for if nothing matched them, as before. Queries that could be either are loaded and
+ * searched for at the same time: the identifier's result wins if there is one, and the search is
+ * cancelled, but if nothing matched the identifier the search is already underway. The race keeps
+ * its place in the guild's line until it has answered.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class QueryLoader {
+  private static final String SEARCH_PREFIX = "ytsearch:";
+
+  private static final Pattern SEARCH = Pattern.compile("^\\w+search:", Pattern.CASE_INSENSITIVE);
+  private static final Pattern SPACE = Pattern.compile("\\s");
+
+  /** How a query is loaded */
+  public enum Kind {
+    /** plainly text, searched for right away */
+    SEARCH,
+    /** plainly an identifier, searched for only if nothing matched it */
+    IDENTIFIER,
+    /** either, loaded and searched for at the same time */
+    RACE
+  }
+
+  private final AudioPlayerManager manager;
+  private final LoadLines lines;
+  private final Predicate<String> claimed;
+  private final MeterRegistry registry;
+
+  /**
+   * @param manager the manager to load with
+   * @param lines the lines the manager's ordered loads join
+   * @param claimed whether a transform claims an identifier, which makes it plainly an identifier
+   * @param registry the registry to report how long queries took to be answered to
+   */
+  public QueryLoader(
+      AudioPlayerManager manager,
+      LoadLines lines,
+      Predicate<String> claimed,
+      MeterRegistry registry) {
+    this.manager = manager;
+    this.lines = lines;
+    this.claimed = claimed;
+    this.registry = registry;
+  }
+
+  /**
+   * @param query what was given to the play command
+   * @return how the query is loaded
+   */
+  public Kind classify(String query) {
+    if (query.contains("://")
+        || SEARCH.matcher(query).find()
+        || claimed.test(query)
+        || new File(query).isFile()) return Kind.IDENTIFIER;
+    // no source takes identifiers with spaces in them, other than files
+    return SPACE.matcher(query).find() ? Kind.SEARCH : Kind.RACE;
+  }
+
+  /**
+   * Loads the query in its guild's order, and answers the handler with what it found
+   *
+   * @param orderingKey the key to keep loads in order by
+   * @param query what was given to the play command
+   * @param since when the command was given, as by {@link System#nanoTime()}
+   * @param handler the handler to answer; nothing matched only if the search found nothing either
+   */
+  public void load(Object orderingKey, String query, long since, AudioLoadResultHandler handler) {
+    Kind kind = classify(query);
+    AudioLoadResultHandler timed = new Timed(kind, since, handler);
+    switch (kind) {
+      case SEARCH -> manager.loadItemOrdered(orderingKey, SEARCH_PREFIX + query, timed);
+      case IDENTIFIER ->
+          manager.loadItemOrdered(
+              orderingKey,
+              query,
+              SEARCH.matcher(query).find() ? timed : new Fallback(orderingKey, query, timed));
+      case RACE ->
+          // both halves run inside the race's place in line, so later loads wait for its answer
+          lines.load(
+              orderingKey,
+              timed,
+              h -> {
+                Race race = new Race(h);
+                race.identifying(manager.loadItem(query, race.identifier));
+                race.searching(manager.loadItem(SEARCH_PREFIX + query, race.search));
+                return race;
+              });
+    }
+  }
+
+  /** Searches for the query if nothing matched it as an identifier */
+  private class Fallback extends Relay {
+    private final Object orderingKey;
+    private final String query;
+
+    private Fallback(Object orderingKey, String query, AudioLoadResultHandler handler) {
+      super(handler);
+      this.orderingKey = orderingKey;
+      this.query = query;
+    }
+
+    @Override
+    public void noMatches() {
+      manager.loadItemOrdered(orderingKey, SEARCH_PREFIX + query, handler);
+    }
+  }
+
+  /**
+   * An identifier load and a search of the same query. The identifier's result is passed on if
+   * there is one; otherwise the search's is, whichever of the two comes in first. Done once it has
+   * passed a result on, and cancelling it cancels both loads.
+   */
+  private static class Race extends CompletableFuture<Void> {
+    private final AudioLoadResultHandler handler;
+    private Future<Void> identifying;
+    private Future<Void> searching;
+    // the search's result, while it waits for the identifier's
+    private Consumer<AudioLoadResultHandler> found;
+    private boolean identified;
+    private boolean unidentified;
+
+    private final AudioLoadResultHandler identifier =
+        new Answers() {
+          @Override
+          void answer(Consumer<AudioLoadResultHandler> result, boolean matched) {
+            identified(result, matched);
+          }
+        };
+    private final AudioLoadResultHandler search =
+        new Answers() {
+          @Override
+          void answer(Consumer<AudioLoadResultHandler> result, boolean matched) {
+            found(result);
+          }
+        };
+
+    private Race(AudioLoadResultHandler handler) {
+      this.handler = handler;
+    }
+
+    private void identifying(Future<Void> identifying) {
+      synchronized (this) {
+        this.identifying = identifying;
+      }
+      if (isCancelled()) identifying.cancel(true);
+    }
+
+    private void searching(Future<Void> searching) {
+      boolean cancel;
+      synchronized (this) {
+        this.searching = searching;
+        cancel = identified;
+      }
+      if (cancel || isCancelled()) searching.cancel(true);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      if (!super.cancel(mayInterruptIfRunning)) return false;
+      Future<Void> identifying;
+      Future<Void> searching;
+      synchronized (this) {
+        identifying = this.identifying;
+        searching = this.searching;
+      }
+      if (identifying != null) identifying.cancel(mayInterruptIfRunning);
+      if (searching != null) searching.cancel(mayInterruptIfRunning);
+      return true;
+    }
+
+    private void answer(Consumer<AudioLoadResultHandler> result) {
+      try {
+        result.accept(handler);
+      } finally {
+        complete(null);
+      }
+    }
+
+    private void identified(Consumer<AudioLoadResultHandler> result, boolean matched) {
+      Consumer<AudioLoadResultHandler> answer;
+      Future<Void> cancel = null;
+      synchronized (this) {
+        if (matched) {
+          identified = true;
+          cancel = searching;
+          answer = result;
+        } else {
+          unidentified = true;
+          answer = found;
+        }
+      }
+      if (cancel != null) cancel.cancel(true);
+      if (answer != null) answer(answer);
+    }
+
+    private void found(Consumer<AudioLoadResultHandler> result) {
+      synchronized (this) {
+        if (identified) return;
+        if (!unidentified) {
+          found = result;
+          return;
+        }
+      }
+      answer(result);
+    }
+  }
+
+  /** Turns the answers of a load into results that can be passed on later */
+  private abstract static class Answers implements AudioLoadResultHandler {
+    /**
+     * @param result passes the answer on to a handler
+     * @param matched whether the answer is anything but no matches, or a source being unavailable
+     */
+    abstract void answer(Consumer<AudioLoadResultHandler> result, boolean matched);
+
+    @Override
+    public void trackLoaded(AudioTrack track) {
+      answer(h -> h.trackLoaded(track), true);
+    }
+
+    @Override
+    public void playlistLoaded(AudioPlaylist playlist) {
+      answer(h -> h.playlistLoaded(playlist), true);
+    }
+
+    @Override
+    public void noMatches() {
+      answer(AudioLoadResultHandler::noMatches, false);
+    }
+
+    @Override
+    public void loadFailed(FriendlyException exception) {
+      // a source that was unavailable tells nothing of the identifier, so the search goes on
+      boolean matched = !(exception instanceof SourceUnavailableException);
+      answer(h -> h.loadFailed(exception), matched);
+    }
+  }
+
+  /** Records how long the query took to be answered, by how it was loaded and what it found */
+  private class Timed extends Relay {
+    private final Kind kind;
+    private final long since;
+
+    private Timed(Kind kind, long since, AudioLoadResultHandler handler) {
+      super(handler);
+      this.kind = kind;
+      this.since = since;
+    }
+
+    @Override
+    public void trackLoaded(AudioTrack track) {
+      super.trackLoaded(track);
+      record("track");
+    }
+
+    @Override
+    public void playlistLoaded(AudioPlaylist playlist) {
+      super.playlistLoaded(playlist);
+      record("playlist");
+    }
+
+    @Override
+    public void noMatches() {
+      super.noMatches();
+      record("nomatches");
+    }
+
+    @Override
+    public void loadFailed(FriendlyException exception) {
+      super.loadFailed(exception);
+      record("failed");
+    }
+
+    private void record(String result) {
+      MeterUtil.timer(
+              registry,
+              "jmusicbot.play.latency",
+              "Time from a play command to its answer, by how its query was loaded",
+              Tags.of("query", kind.name().toLowerCase(Locale.ROOT), "result", result))
+          .record(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** Passes every answer on to a handler */
+  private static class Relay implements AudioLoadResultHandler {
+    final AudioLoadResultHandler handler;
+
+    private Relay(AudioLoadResultHandler handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    public void trackLoaded(AudioTrack track) {
+      handler.trackLoaded(track);
+    }
+
+    @Override
+    public void playlistLoaded(AudioPlaylist playlist) {
+      handler.playlistLoaded(playlist);
+    }
+
+    @Override
+    public void noMatches() {
+      handler.noMatches();
+    }
+
+    @Override
+    public void loadFailed(FriendlyException exception) {
+      handler.loadFailed(exception);
+    }
+  }
+}
@@ -17,42 +17,125 @@ package com.jagrosh.jmusicbot.audio;
 
 import com.jagrosh.jmusicbot.queue.Queueable;
 import com.jagrosh.jmusicbot.utils.TimeUtil;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageInput;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageOutput;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.sedmelluq.discord.lavaplayer.track.DecodedTrackHolder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
+ * A track waiting in a queue. It either holds the track itself, or, once {@link #compact
+ * compacted}, only the track as encoded by the player manager, which is decoded again every time
+ * the track is needed.
+ *
  * @author John Grosh <john.a.grosh@gmail.com>
  */
 public class QueuedTrack implements Queueable {
   private final AudioTrack track;
+  private final byte[] encoded;
+  private final AudioPlayerManager decoder;
+  private final long duration;
+  private final boolean stream;
   private final RequestMetadata requestMetadata;
 
   public QueuedTrack(AudioTrack track, RequestMetadata rm) {
     this.track = track;
     this.track.setUserData(rm == null ? RequestMetadata.EMPTY : rm);
+    this.encoded = null;
+    this.decoder = null;
+    this.duration = track.getDuration();
+    this.stream = track.getInfo().isStream;
 
     this.requestMetadata = rm;
     if (this.track.isSeekable() && rm != null) track.setPosition(rm.requestInfo.startTimestamp);
   }
 
+  private QueuedTrack(
+      byte[] encoded,
+      AudioPlayerManager decoder,
+      long duration,
+      boolean stream,
+      RequestMetadata rm) {
+    this.track = null;
+    this.encoded = encoded;
+    this.decoder = decoder;
+    this.duration = duration;
+    this.stream = stream;
+    this.requestMetadata = rm;
+  }
+
+  /**
+   * Encodes the track with the given manager, dropping the track object along with everything it
+   * references
+   *
+   * @param manager the manager that loaded the track, and that will decode it again
+   * @return a compact copy of this, or this if it is already compact or cannot be encoded
+   */
+  public QueuedTrack compact(AudioPlayerManager manager) {
+    if (track == null) return this;
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+      manager.encodeTrack(new MessageOutput(out), track);
+      return new QueuedTrack(out.toByteArray(), manager, duration, stream, requestMetadata);
+    } catch (IOException | RuntimeException e) {
+      // some sources refuse to encode their tracks, those stay materialized
+      return this;
+    }
+  }
+
   @Override
   public long getIdentifier() {
     return requestMetadata.getOwner();
   }
 
+  /**
+   * @return the track's duration, without decoding a compact track
+   */
+  @Override
+  public long getDuration() {
+    return duration;
+  }
+
+  @Override
+  public boolean isStream() {
+    return stream;
+  }
+
+  /**
+   * @return the track; decoded into a new instance on every call if this is compact
+   */
   public AudioTrack getTrack() {
-    return track;
+    if (track != null) return track;
+    DecodedTrackHolder holder;
+    try {
+      holder = decoder.decodeTrack(new MessageInput(new ByteArrayInputStream(encoded)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (holder == null || holder.decodedTrack == null)
+      throw new IllegalStateException("Queued track could not be decoded");
+    AudioTrack decoded = holder.decodedTrack;
+    decoded.setUserData(requestMetadata == null ? RequestMetadata.EMPTY : requestMetadata);
+    if (decoded.isSeekable() && requestMetadata != null)
+      decoded.setPosition(requestMetadata.requestInfo.startTimestamp);
+    return decoded;
   }
 
   @Override
   public String toString() {
-    String entry = "`[" + TimeUtil.formatTime(track.getDuration()) + "]` ";
-    AudioTrackInfo trackInfo = track.getInfo();
+    AudioTrack at = getTrack();
+    String entry = "`[" + TimeUtil.formatTime(at.getDuration()) + "]` ";
+    AudioTrackInfo trackInfo = at.getInfo();
     entry =
         entry
             + (trackInfo.uri.startsWith("http")
                 ? "[**" + trackInfo.title + "**](" + trackInfo.uri + ")"
                 : "**" + trackInfo.title + "**");
-    return entry + " - <@" + track.getUserData(RequestMetadata.class).getOwner() + ">";
+    return entry + " - <@" + at.getUserData(RequestMetadata.class).getOwner() + ">";
   }
 }
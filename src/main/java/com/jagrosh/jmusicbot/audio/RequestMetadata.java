@@ -52,6 +52,14 @@ public class RequestMetadata {
         event.getAuthor(), new RequestInfo(event.getArgs(), track.getInfo().uri));
   }
 
+  /**
+   * Metadata for everything loaded by one command. The request info only depends on the query, so
+   * a single instance can be shared by all tracks of a playlist.
+   */
+  public static RequestMetadata fromResultHandler(CommandEvent event) {
+    return new RequestMetadata(event.getAuthor(), new RequestInfo(event.getArgs(), null));
+  }
+
   public static class RequestInfo {
     public final long startTimestamp;
 
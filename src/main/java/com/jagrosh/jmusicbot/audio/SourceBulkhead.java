@@ -0,0 +1,233 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.jagrosh.jmusicbot.utils.MeterUtil;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.source.ProbingAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Limits how many loads of one source run at once, and how many may wait for their turn.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class SourceBulkhead implements AudioSourceManager {
+  // redirects a probing source may hand back to itself before the load gives up on them
+  private static final int MAX_REDIRECTS = 5;
+
+  private final AudioSourceManager delegate;
+  private final Predicate<String> claims;
+  private final long timeout;
+  private final int concurrency;
+  private final int queueDepth;
+  // fair, so loads get the slots in the order they started waiting for them
+  private final Semaphore slots;
+  private final AtomicInteger waiting = new AtomicInteger();
+
+  private final Timer queueWait;
+  private final Counter busy;
+  private final Counter timedOut;
+
+  /**
+   * @param delegate the source to run loads of
+   * @param claims whether an identifier belongs to the source
+   * @param concurrency how many loads the source may run at once
+   * @param queueDepth how many loads may wait for one of those to finish
+   * @param timeout how many milliseconds a load may wait for a free slot
+   * @param registry the registry to report waits and rejections to, tagged with the source's name
+   */
+  public SourceBulkhead(
+      AudioSourceManager delegate,
+      Predicate<String> claims,
+      int concurrency,
+      int queueDepth,
+      long timeout,
+      MeterRegistry registry) {
+    this.delegate = delegate;
+    this.claims = claims;
+    this.timeout = timeout;
+    this.concurrency = concurrency;
+    this.queueDepth = queueDepth;
+    this.slots = new Semaphore(concurrency, true);
+    String name = delegate.getSourceName();
+    this.queueWait =
+        MeterUtil.timer(
+            registry,
+            "jmusicbot.source.queue.wait",
+            "Time loads waited for a free slot of their source",
+            Tags.of("source", name));
+    this.busy =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.source.rejected",
+            "Loads turned away before they reached their source, by why",
+            "source",
+            name,
+            "reason",
+            "busy");
+    this.timedOut =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.source.rejected",
+            "Loads turned away before they reached their source, by why",
+            "source",
+            name,
+            "reason",
+            "timeout");
+    Gauge.builder("jmusicbot.source.active", this, b -> b.concurrency - b.slots.availablePermits())
+        .description("Loads their source is running")
+        .tag("source", name)
+        .register(registry);
+    Gauge.builder("jmusicbot.source.queued", waiting, AtomicInteger::get)
+        .description("Loads waiting for a free slot of their source")
+        .tag("source", name)
+        .register(registry);
+  }
+
+  /**
+   * @param source a source
+   * @return whether an identifier belongs to the source, as far as can be told without asking it
+   */
+  public static Predicate<String> claimsOf(AudioSourceManager source) {
+    if (source instanceof TransformativeAudioSourceManager transform) return transform::claims;
+    String name = source.getSourceName();
+    // the http source plays links to every site no other source is for, the local one files
+    if (name.equals("http"))
+      return identifier -> identifier.contains("://") && SourceRouter.classify(identifier) == null;
+    if (name.equals("local")) return SourceRouter::isFile;
+    // other sources the router cannot tell identifiers of apart claim everything
+    if (!SourceRouter.routes(name)) return identifier -> true;
+    return identifier -> name.equals(SourceRouter.classify(identifier));
+  }
+
+  public AudioSourceManager getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public String getSourceName() {
+    return delegate.getSourceName();
+  }
+
+  @Override
+  public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
+    if (reference.identifier == null || !claims.test(reference.identifier))
+      return load(manager, reference);
+    acquire();
+    try {
+      return load(manager, reference);
+    } finally {
+      slots.release();
+    }
+  }
+
+  /**
+   * Takes a slot of the source, waiting in line for one if there is room in it
+   *
+   * @throws FriendlyException if the line is full, or no slot came free in time
+   */
+  private void acquire() {
+    long queued = System.nanoTime();
+    try {
+      // a timed attempt, as an untimed one would jump the line
+      if (!slots.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+        if (waiting.incrementAndGet() > queueDepth) {
+          waiting.decrementAndGet();
+          busy.increment();
+          throw busy(null);
+        }
+        try {
+          if (!slots.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+            timedOut.increment();
+            throw busy(null);
+          }
+        } finally {
+          waiting.decrementAndGet();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw busy(e);
+    }
+    queueWait.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+  }
+
+  private AudioItem load(AudioPlayerManager manager, AudioReference reference) {
+    AudioItem item = delegate.loadItem(manager, reference);
+    // only probing sources can follow references to a known container, and this wrapper is not
+    // one, so such references are followed here instead of by the player manager
+    int redirects = 0;
+    while (isProbing()
+        && item instanceof AudioReference redirect
+        && redirect.containerDescriptor != null
+        && redirects++ < MAX_REDIRECTS) item = delegate.loadItem(manager, redirect);
+    return item;
+  }
+
+  /**
+   * @return whether the source behind the bulkhead, and a breaker it may have, is probing
+   */
+  private boolean isProbing() {
+    AudioSourceManager source =
+        delegate instanceof SourceCircuitBreaker breaker ? breaker.getDelegate() : delegate;
+    return source instanceof ProbingAudioSourceManager;
+  }
+
+  private FriendlyException busy(Throwable cause) {
+    return new FriendlyException(
+        "The " + delegate.getSourceName() + " source is busy right now, try again in a moment.",
+        FriendlyException.Severity.COMMON,
+        cause);
+  }
+
+  @Override
+  public boolean isTrackEncodable(AudioTrack track) {
+    return delegate.isTrackEncodable(track);
+  }
+
+  @Override
+  public void encodeTrack(AudioTrack track, DataOutput output) throws IOException {
+    delegate.encodeTrack(track, output);
+  }
+
+  @Override
+  public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) throws IOException {
+    return delegate.decodeTrack(trackInfo, input);
+  }
+
+  @Override
+  public void shutdown() {
+    delegate.shutdown();
+  }
+}
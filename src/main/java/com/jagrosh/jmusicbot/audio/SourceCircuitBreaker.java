@@ -0,0 +1,278 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.jagrosh.jmusicbot.utils.MeterUtil;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * Fails loads of a source at once while the source keeps failing or answering slowly.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class SourceCircuitBreaker implements AudioSourceManager {
+  /** Whether loads are let through to the source */
+  public enum State {
+    /** every load is let through */
+    CLOSED,
+    /** a single load is let through, to probe whether the source recovered */
+    HALF_OPEN,
+    /** no load is let through */
+    OPEN
+  }
+
+  // the share of the latest loads the slowest of which may not take too long
+  private static final double SLOW_PERCENTILE = 0.9;
+
+  private final AudioSourceManager delegate;
+  private final Predicate<String> claims;
+  private final int failureRate;
+  private final long latency;
+  private final long openFor;
+
+  // the latest loads, as a ring of their latencies and whether they failed
+  private final long[] latencies;
+  private final boolean[] failures;
+  private int next;
+  private int size;
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private boolean probing;
+
+  private final Timer loads;
+  private final Counter rejected;
+
+  /**
+   * @param delegate the source to guard
+   * @param claims whether an identifier belongs to the source
+   * @param window how many of the latest loads the source is judged by; it is not judged until half
+   *     of them were made
+   * @param failureRate the percentage of those loads that may fail before the breaker opens
+   * @param latency how many milliseconds the slowest of the fastest nine in ten of those loads may
+   *     take before the breaker opens, or 0 for no limit
+   * @param openFor how many milliseconds the breaker stays open before it lets a probe through
+   * @param registry the registry to report latencies and the breaker's state to, tagged with the
+   *     source's name
+   */
+  public SourceCircuitBreaker(
+      AudioSourceManager delegate,
+      Predicate<String> claims,
+      int window,
+      int failureRate,
+      long latency,
+      long openFor,
+      MeterRegistry registry) {
+    this.delegate = delegate;
+    this.claims = claims;
+    this.failureRate = failureRate;
+    this.latency = TimeUnit.MILLISECONDS.toNanos(latency);
+    this.openFor = TimeUnit.MILLISECONDS.toNanos(openFor);
+    this.latencies = new long[window];
+    this.failures = new boolean[window];
+    String name = delegate.getSourceName();
+    this.loads =
+        MeterUtil.timer(
+            registry,
+            "jmusicbot.source.load.latency",
+            "Time loads took at their source",
+            Tags.of("source", name),
+            0.5,
+            0.9,
+            0.99);
+    this.rejected =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.source.rejected",
+            "Loads turned away before they reached their source, by why",
+            "source",
+            name,
+            "reason",
+            "unavailable");
+    for (State s : State.values())
+      Gauge.builder("jmusicbot.source.breaker", this, b -> b.getState() == s ? 1 : 0)
+          .description("1 for the state the breaker of a source is in, 0 for the others")
+          .tag("source", name)
+          .tag("state", s.name().toLowerCase(Locale.ROOT))
+          .register(registry);
+  }
+
+  public AudioSourceManager getDelegate() {
+    return delegate;
+  }
+
+  public synchronized State getState() {
+    return current(System.nanoTime());
+  }
+
+  /**
+   * @return the percentage of the latest loads that failed, or 0 if none were made since the
+   *     breaker last closed
+   */
+  public synchronized int getFailureRate() {
+    return failureRate();
+  }
+
+  /**
+   * @param percentile the share of the latest loads, between 0 and 1
+   * @return how many milliseconds the slowest of that share of the fastest loads took, or 0 if none
+   *     were made since the breaker last closed
+   */
+  public synchronized long getLatency(double percentile) {
+    return TimeUnit.NANOSECONDS.toMillis(latency(percentile));
+  }
+
+  @Override
+  public String getSourceName() {
+    return delegate.getSourceName();
+  }
+
+  @Override
+  public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
+    if (reference.identifier == null || !claims.test(reference.identifier))
+      return delegate.loadItem(manager, reference);
+    boolean probe = admit();
+    long start = System.nanoTime();
+    boolean failed = true;
+    AudioItem item = null;
+    try {
+      item = delegate.loadItem(manager, reference);
+      failed = false;
+      return item;
+    } catch (FriendlyException e) {
+      failed =
+          e.severity != FriendlyException.Severity.COMMON
+              || e.getCause() instanceof TimeoutException;
+      throw e;
+    } finally {
+      if (failed || item != null) record(probe, System.nanoTime() - start, failed);
+      else if (probe) unprobe();
+    }
+  }
+
+  /**
+   * @return whether the load is the probe of a half-open breaker
+   * @throws SourceUnavailableException if the load is turned away
+   */
+  private boolean admit() {
+    synchronized (this) {
+      State current = current(System.nanoTime());
+      if (current == State.CLOSED) return false;
+      if (current == State.HALF_OPEN && !probing) {
+        probing = true;
+        return true;
+      }
+    }
+    rejected.increment();
+    throw new SourceUnavailableException(delegate.getSourceName());
+  }
+
+  private void record(boolean probe, long nanos, boolean failed) {
+    loads.record(nanos, TimeUnit.NANOSECONDS);
+    boolean slow = latency > 0 && nanos > latency;
+    synchronized (this) {
+      if (probe) {
+        probing = false;
+        if (failed || slow) open();
+        else close();
+        return;
+      }
+      // loads let through before the breaker opened are not judged once it did
+      if (state != State.CLOSED) return;
+      latencies[next] = nanos;
+      failures[next] = failed;
+      next = (next + 1) % latencies.length;
+      size = Math.min(size + 1, latencies.length);
+      if (size * 2 < latencies.length) return;
+      if (failureRate() > failureRate || (latency > 0 && latency(SLOW_PERCENTILE) > latency))
+        open();
+    }
+  }
+
+  /** Lets another load probe the source, as this one told nothing about it */
+  private synchronized void unprobe() {
+    probing = false;
+  }
+
+  private State current(long now) {
+    if (state == State.OPEN && now - openedAt >= openFor) state = State.HALF_OPEN;
+    return state;
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = System.nanoTime();
+  }
+
+  private void close() {
+    state = State.CLOSED;
+    next = 0;
+    size = 0;
+  }
+
+  private int failureRate() {
+    if (size == 0) return 0;
+    int failed = 0;
+    for (int i = 0; i < size; i++) if (failures[i]) failed++;
+    return failed * 100 / size;
+  }
+
+  private long latency(double percentile) {
+    if (size == 0) return 0;
+    long[] sorted = Arrays.copyOf(latencies, size);
+    Arrays.sort(sorted);
+    return sorted[Math.max(0, (int) Math.ceil(percentile * size) - 1)];
+  }
+
+  @Override
+  public boolean isTrackEncodable(AudioTrack track) {
+    return delegate.isTrackEncodable(track);
+  }
+
+  @Override
+  public void encodeTrack(AudioTrack track, DataOutput output) throws IOException {
+    delegate.encodeTrack(track, output);
+  }
+
+  @Override
+  public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) throws IOException {
+    return delegate.decodeTrack(trackInfo, input);
+  }
+
+  @Override
+  public void shutdown() {
+    delegate.shutdown();
+  }
+}
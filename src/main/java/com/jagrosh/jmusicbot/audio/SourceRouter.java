@@ -0,0 +1,200 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.jagrosh.jmusicbot.utils.MeterUtil;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends every load straight to the source it belongs to, instead of offering it to each source in
+ * turn. It is registered before every other source, so the player manager asks it first, and it
+ * answers every load itself: identifiers claimed by a transform go to that transform, searches and
+ * links to the hosts of the built-in sources go to those sources, and paths of existing files go to
+ * the local source. Whatever the chosen source does not load, and every identifier that cannot be
+ * told apart this way, is offered to all sources in the order they were registered, as the player
+ * manager would have.
+ *
+ * <p>This relies on the built-in sources turning down each other's hosts, which they do, so
+ * skipping them changes nothing but the time it takes.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class SourceRouter implements AudioSourceManager {
+  private static final Map<String, String> SEARCHES =
+      Map.of("ytsearch", "youtube", "ytmsearch", "youtube", "scsearch", "soundcloud");
+  private static final Map<String, String> HOSTS =
+      Map.of(
+          "youtube.com", "youtube",
+          "youtu.be", "youtube",
+          "soundcloud.com", "soundcloud",
+          "bandcamp.com", "bandcamp",
+          "vimeo.com", "vimeo",
+          "twitch.tv", "twitch",
+          "beam.pro", "beam.pro",
+          "getyarn.io", "getyarn.io",
+          "nicovideo.jp", "niconico",
+          "nico.ms", "niconico");
+  private static final Pattern SEARCH = Pattern.compile("^(\\w+):");
+  private static final Pattern URL =
+      Pattern.compile("^https?://([^/:?#@]+)", Pattern.CASE_INSENSITIVE);
+
+  // every source after this one, in the order they were registered
+  private final List<Route> sources = new CopyOnWriteArrayList<>();
+  // the first of those by name, other than transforms
+  private final Map<String, AudioSourceManager> byName = new ConcurrentHashMap<>();
+  private final Counter routed;
+  private final Counter unrouted;
+
+  public SourceRouter(MeterRegistry registry) {
+    this.routed =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.load.routing",
+            "Loads, by whether they could be sent straight to their source",
+            "result",
+            "routed");
+    this.unrouted =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.load.routing",
+            "Loads, by whether they could be sent straight to their source",
+            "result",
+            "unrouted");
+  }
+
+  /**
+   * @param identifier an identifier being loaded
+   * @return the name of the built-in source the identifier belongs to, or null if it cannot be told
+   *     without asking the sources
+   */
+  public static String classify(String identifier) {
+    Matcher url = URL.matcher(identifier);
+    if (url.find()) {
+      // the host itself or any domain it is under, such as www.youtube.com under youtube.com
+      String host = url.group(1).toLowerCase(Locale.ROOT);
+      while (true) {
+        String source = HOSTS.get(host);
+        if (source != null) return source;
+        int dot = host.indexOf('.');
+        if (dot < 0) return null;
+        host = host.substring(dot + 1);
+      }
+    }
+    Matcher search = SEARCH.matcher(identifier);
+    return search.find() ? SEARCHES.get(search.group(1).toLowerCase(Locale.ROOT)) : null;
+  }
+
+  /**
+   * @param identifier an identifier being loaded
+   * @return whether the identifier is the path of an existing file, for the local source
+   */
+  public static boolean isFile(String identifier) {
+    return !identifier.contains("://") && new File(identifier).isFile();
+  }
+
+  /**
+   * @param name the name of a source
+   * @return whether identifiers are routed to the source by {@link #classify}
+   */
+  public static boolean routes(String name) {
+    return HOSTS.containsValue(name);
+  }
+
+  /**
+   * @param source the source as it is registered with the player manager
+   * @param claims whether an identifier belongs to a transform, or null if the source is none
+   */
+  public void add(AudioSourceManager source, Predicate<String> claims) {
+    sources.add(new Route(source, claims));
+    if (claims == null) byName.putIfAbsent(source.getSourceName(), source);
+  }
+
+  @Override
+  public String getSourceName() {
+    return "router";
+  }
+
+  @Override
+  public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
+    AudioSourceManager target = reference.identifier == null ? null : route(reference.identifier);
+    if (target != null) {
+      routed.increment();
+      AudioItem item = target.loadItem(manager, reference);
+      if (item != null) return item;
+    } else unrouted.increment();
+    for (Route route : sources) {
+      if (route.source == target) continue;
+      AudioItem item = route.source.loadItem(manager, reference);
+      if (item != null) return item;
+    }
+    return AudioReference.NO_TRACK;
+  }
+
+  private AudioSourceManager route(String identifier) {
+    // transforms come before every other source, so they keep coming first
+    for (Route route : sources)
+      if (route.claims != null && route.claims.test(identifier)) return route.source;
+    String name = classify(identifier);
+    if (name == null && isFile(identifier)) name = "local";
+    return name == null ? null : byName.get(name);
+  }
+
+  @Override
+  public boolean isTrackEncodable(AudioTrack track) {
+    return false;
+  }
+
+  @Override
+  public void encodeTrack(AudioTrack track, DataOutput output) {
+    // the router makes no tracks of its own, so it has none to encode
+  }
+
+  @Override
+  public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) {
+    return null;
+  }
+
+  @Override
+  public void shutdown() {}
+
+  private static class Route {
+    private final AudioSourceManager source;
+    private final Predicate<String> claims;
+
+    private Route(AudioSourceManager source, Predicate<String> claims) {
+      this.source = source;
+      this.claims = claims;
+    }
+  }
+}
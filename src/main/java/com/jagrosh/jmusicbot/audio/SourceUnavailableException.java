@@ -0,0 +1,36 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.audio;
+
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+
+/**
+ * Thrown for a load an open {@link SourceCircuitBreaker} turned away before its source saw it, so
+ * it tells nothing about whether the source would have matched the identifier.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class SourceUnavailableException extends FriendlyException {
+  /**
+   * @param source the name of the source the load was turned away from
+   */
+  public SourceUnavailableException(String source) {
+    super(
+        "The " + source + " source is unavailable right now, try again later.",
+        Severity.COMMON,
+        null);
+  }
+}
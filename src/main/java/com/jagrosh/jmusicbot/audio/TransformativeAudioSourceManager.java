@@ -19,14 +19,28 @@ import com.jagrosh.jmusicbot.spring.AppConfiguration;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.track.AudioItem;
 import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
 import dev.lavalink.youtube.YoutubeAudioSourceManager;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,25 +49,91 @@ import org.slf4j.LoggerFactory;
  */
 public class TransformativeAudioSourceManager extends YoutubeAudioSourceManager {
   private static final Logger log = LoggerFactory.getLogger(TransformativeAudioSourceManager.class);
+  // gives up on fetches that take longer than their transform allows
+  private static final ScheduledExecutorService ABORTS =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread thread = new Thread(r, "transform-timeout");
+            thread.setDaemon(true);
+            return thread;
+          });
+  // how many pages a transform remembers what it read from
+  private static final int CACHE_SIZE = 1000;
+
   private final String name;
-  private final String regex;
+  private final HttpInterfaceManager pages;
+  // null if the regex is not a valid pattern
+  private final Pattern pattern;
   private final String replacement;
   private final String selector;
   private final String format;
+  private final long timeout;
+  private final long cacheTtl;
+  // by page URL, what was read from the page, least recently used first
+  private final Map<String, Value> values = new LinkedHashMap<>(16, 0.75f, true);
 
   public TransformativeAudioSourceManager(
-      String name, AppConfiguration.TransformativeAudioSourceManagerConfig object) {
+      String name,
+      AppConfiguration.TransformativeAudioSourceManagerConfig object,
+      HttpInterfaceManager pages,
+      long timeout,
+      long cacheTtl) {
     this(
-        name, object.getRegex(), object.getReplacement(), object.getSelector(), object.getFormat());
+        name,
+        pages,
+        object.getRegex(),
+        object.getReplacement(),
+        object.getSelector(),
+        object.getFormat(),
+        timeout,
+        cacheTtl);
   }
 
+  /**
+   * @param pages the HTTP clients to fetch pages with, which may be shared with other transforms
+   * @param timeout how many milliseconds fetching a page may take, in all, and each wait of the
+   *     requests the load then makes may take; 0 or less for no limit
+   * @param cacheTtl how many milliseconds what was read from a page is reused for
+   */
   public TransformativeAudioSourceManager(
-      String name, String regex, String replacement, String selector, String format) {
+      String name,
+      HttpInterfaceManager pages,
+      String regex,
+      String replacement,
+      String selector,
+      String format,
+      long timeout,
+      long cacheTtl) {
     this.name = name;
-    this.regex = regex;
+    this.pages = pages;
+    this.pattern = compile(name, regex);
     this.replacement = replacement;
     this.selector = selector;
     this.format = format;
+    this.timeout = timeout;
+    this.cacheTtl = cacheTtl;
+    // the load of what was read runs on the loader thread too, so its requests are bounded alike
+    if (timeout > 0) configureRequests(config -> bounded(RequestConfig.copy(config)));
+  }
+
+  /** @return the config with every wait bounded by the transform's timeout */
+  private RequestConfig bounded(RequestConfig.Builder config) {
+    int ms = (int) timeout;
+    return config
+        .setConnectionRequestTimeout(ms)
+        .setConnectTimeout(ms)
+        .setSocketTimeout(ms)
+        .build();
+  }
+
+  private static Pattern compile(String name, String regex) {
+    try {
+      if (regex != null) return Pattern.compile(regex);
+    } catch (PatternSyntaxException ex) {
+      // reported below, like a missing one
+    }
+    log.info(String.format("Invalid pattern syntax '%s' in source '%s'", regex, name));
+    return null;
   }
 
   @Override
@@ -61,17 +141,21 @@ public class TransformativeAudioSourceManager extends YoutubeAudioSourceManager
     return name;
   }
 
+  /**
+   * @param identifier an identifier being loaded
+   * @return whether this transforms the identifier
+   */
+  public boolean claims(String identifier) {
+    return pattern != null && pattern.matcher(identifier).matches();
+  }
+
   @Override
   public AudioItem loadItem(AudioPlayerManager apm, AudioReference ar) {
-    if (ar.identifier == null || !ar.identifier.matches(regex)) return null;
+    if (ar.identifier == null || !claims(ar.identifier)) return null;
     try {
-      String url = ar.identifier.replaceAll(regex, replacement);
-      Document doc = Jsoup.connect(url).get();
-      String value = doc.selectFirst(selector).ownText();
-      String formattedValue = String.format(format, value);
-      return super.loadItem(apm, new AudioReference(formattedValue, null));
-    } catch (PatternSyntaxException ex) {
-      log.info(String.format("Invalid pattern syntax '%s' in source '%s'", regex, name));
+      String transformed = transform(ar.identifier);
+      if (transformed == null) return null;
+      return super.loadItem(apm, new AudioReference(transformed, null));
     } catch (IOException ex) {
       log.warn(String.format("Failed to resolve URL in source '%s': ", name), ex);
     } catch (Exception ex) {
@@ -80,15 +164,94 @@ public class TransformativeAudioSourceManager extends YoutubeAudioSourceManager
     return null;
   }
 
+  /**
+   * @param identifier an identifier this {@link #claims claims}
+   * @return what the identifier is loaded as, read from the page it leads to, or null if nothing
+   *     on the page matched
+   * @throws IOException if the page could not be fetched in time
+   */
+  public String transform(String identifier) throws IOException {
+    String url = pattern.matcher(identifier).replaceAll(replacement);
+    String value = read(url);
+    if (value == null) {
+      log.info(String.format("Nothing matched '%s' on the page of source '%s'", selector, name));
+      return null;
+    }
+    return String.format(format, value);
+  }
+
+  /**
+   * @return the text of the first element on the page the selector matches, or null if none does
+   */
+  private String read(String url) throws IOException {
+    String value = cached(url);
+    if (value != null) return value;
+    HttpGet get = new HttpGet(url);
+    ScheduledFuture<?> abort = null;
+    if (timeout > 0) {
+      get.setConfig(bounded(RequestConfig.custom()));
+      // the timeouts above each bound a single wait, and a page trickling in could take far longer
+      abort = ABORTS.schedule(get::abort, timeout, TimeUnit.MILLISECONDS);
+    }
+    Document doc;
+    try (HttpInterface http = pages.getInterface();
+        CloseableHttpResponse response = http.execute(get)) {
+      HttpClientTools.assertSuccessWithContent(response, "transform page");
+      doc = Jsoup.parse(response.getEntity().getContent(), null, url);
+    } finally {
+      if (abort != null) abort.cancel(false);
+    }
+    Element element = doc.selectFirst(selector);
+    if (element == null) return null;
+    value = element.ownText();
+    cache(url, value);
+    return value;
+  }
+
+  private synchronized String cached(String url) {
+    Value value = values.get(url);
+    if (value == null) return null;
+    if (value.expires >= System.currentTimeMillis()) return value.text;
+    values.remove(url);
+    return null;
+  }
+
+  private synchronized void cache(String url, String text) {
+    if (cacheTtl <= 0) return;
+    values.put(url, new Value(text, System.currentTimeMillis() + cacheTtl));
+    Iterator<Value> eldest = values.values().iterator();
+    while (values.size() > CACHE_SIZE && eldest.hasNext()) {
+      eldest.next();
+      eldest.remove();
+    }
+  }
+
   public static List<TransformativeAudioSourceManager> createTransforms(
-      Map<String, AppConfiguration.TransformativeAudioSourceManagerConfig> transforms) {
+      Map<String, AppConfiguration.TransformativeAudioSourceManagerConfig> transforms,
+      HttpInterfaceManager pages,
+      long timeout,
+      long cacheTtl) {
     try {
       return transforms.entrySet().stream()
-          .map(e -> new TransformativeAudioSourceManager(e.getKey(), e.getValue()))
+          .map(
+              e ->
+                  new TransformativeAudioSourceManager(
+                      e.getKey(), e.getValue(), pages, timeout, cacheTtl))
           .toList();
     } catch (Exception ex) {
       log.warn("Invalid transform ", ex);
       return Collections.emptyList();
     }
   }
+
+  /** What was read from a page */
+  private static class Value {
+    private final String text;
+    private final long expires;
+
+    private Value(String text, long expires) {
+      this.text = text;
+      this.expires = expires;
+    }
+  }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.commands.admin;
+
+import com.jagrosh.jmusicbot.audio.AudioHandler;
+import com.jagrosh.jmusicbot.commands.AdminCommand;
+import com.jagrosh.jmusicbot.jdautils.CommandEvent;
+import com.jagrosh.jmusicbot.queue.QueueLimits;
+import com.jagrosh.jmusicbot.settings.Settings;
+import com.jagrosh.jmusicbot.spring.AppConfiguration;
+import com.jagrosh.jmusicbot.utils.TimeUtil;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+@Component
+public class QueueLimitsCmd extends AdminCommand {
+  private static final String LIMITS = "size|time|usersize|usertime";
+
+  private final AppConfiguration config;
+
+  public QueueLimitsCmd(AppConfiguration config) {
+    this.config = config;
+    this.name = "queuelimits";
+    this.help = "sets server-specific limits on how much can be queued";
+    this.arguments = "[<" + LIMITS + "> <value|0|DEFAULT>]";
+    this.aliases = config.getAliases().get(this.name);
+  }
+
+  @Override
+  protected void execute(CommandEvent event) {
+    Settings settings = event.getClient().getSettingsFor(event.getGuild());
+    String[] args = event.getArgs().trim().split("\\s+", 2);
+    if (args[0].isEmpty()) {
+      event.reply(describe(config.parseQueueLimits().overriddenBy(settings.getQueueLimits())));
+      return;
+    }
+    if (args.length < 2) {
+      event.replyError("Please include a limit (" + LIMITS + ") and its value, 0 or DEFAULT");
+      return;
+    }
+    String limit = args[0].toLowerCase();
+    boolean time = limit.endsWith("time");
+    long value;
+    if (args[1].equalsIgnoreCase("default")) value = -1;
+    else {
+      value = time ? TimeUtil.parseColonTime(args[1]) : parseCount(args[1]);
+      if (value < 0) value = time ? TimeUtil.parseUnitTime(args[1]) : -1;
+      if (value < 0) {
+        event.replyError(
+            "`"
+                + args[1]
+                + "` is not a valid "
+                + (time ? "time, such as `1:30:00` or `1h30m`." : "number of entries."));
+        return;
+      }
+      if (time) value /= 1000;
+    }
+
+    QueueLimits current = settings.getQueueLimits();
+    QueueLimits limits;
+    switch (limit) {
+      case "size" -> limits =
+          new QueueLimits(
+              (int) value,
+              current.getMaxQueueTime(),
+              current.getMaxUserQueueSize(),
+              current.getMaxUserQueueTime());
+      case "time" -> limits =
+          new QueueLimits(
+              current.getMaxQueueSize(),
+              value,
+              current.getMaxUserQueueSize(),
+              current.getMaxUserQueueTime());
+      case "usersize" -> limits =
+          new QueueLimits(
+              current.getMaxQueueSize(),
+              current.getMaxQueueTime(),
+              (int) value,
+              current.getMaxUserQueueTime());
+      case "usertime" -> limits =
+          new QueueLimits(
+              current.getMaxQueueSize(),
+              current.getMaxQueueTime(),
+              current.getMaxUserQueueSize(),
+              value);
+      default -> {
+        event.replyError("Valid limits are: " + LIMITS);
+        return;
+      }
+    }
+    settings.setQueueLimits(limits);
+
+    AudioHandler handler = (AudioHandler) event.getGuild().getAudioManager().getSendingHandler();
+    if (handler != null) handler.updateQueueLimits();
+
+    event.replySuccess(
+        "Queue limits of *"
+            + event.getGuild().getName()
+            + "* were updated. "
+            + describe(config.parseQueueLimits().overriddenBy(limits)));
+  }
+
+  private static int parseCount(String arg) {
+    try {
+      return Integer.parseInt(arg);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static String describe(QueueLimits limits) {
+    return "Queue: "
+        + size(limits.getMaxQueueSize())
+        + ", "
+        + time(limits.getMaxQueueTime())
+        + ". Per user: "
+        + size(limits.getMaxUserQueueSize())
+        + ", "
+        + time(limits.getMaxUserQueueTime())
+        + ".";
+  }
+
+  private static String size(int size) {
+    return size > 0 ? "`" + size + "` entries" : "any number of entries";
+  }
+
+  private static String time(long seconds) {
+    return seconds > 0 ? "`" + TimeUtil.formatTime(seconds * 1000) + "` of music" : "any length";
+  }
+}
@@ -57,6 +57,7 @@ public class PlaynextCmd extends DJCommand {
       event.replyWarning("Please include a song title or URL!");
       return;
     }
+    long since = System.nanoTime();
     String args =
         event.getArgs().startsWith("<") && event.getArgs().endsWith(">")
             ? event.getArgs().substring(1, event.getArgs().length() - 1)
@@ -67,18 +68,17 @@ public class PlaynextCmd extends DJCommand {
         loadingEmoji + " Loading... `[" + args + "]`",
         m ->
             bot.getPlayerManager()
-                .loadItemOrdered(event.getGuild(), args, new ResultHandler(m, event, false)));
+                .getQueryLoader()
+                .load(event.getGuild(), args, since, new ResultHandler(m, event)));
   }
 
   private class ResultHandler implements AudioLoadResultHandler {
     private final Message m;
     private final CommandEvent event;
-    private final boolean ytsearch;
 
-    private ResultHandler(Message m, CommandEvent event, boolean ytsearch) {
+    private ResultHandler(Message m, CommandEvent event) {
       this.m = m;
       this.event = event;
-      this.ytsearch = ytsearch;
     }
 
     private void loadSingle(AudioTrack track) {
@@ -133,18 +133,13 @@ public class PlaynextCmd extends DJCommand {
 
     @Override
     public void noMatches() {
-      if (ytsearch)
-        m.editMessage(
-                FormatUtil.filter(
-                    event.getClient().getWarning()
-                        + " No results found for `"
-                        + event.getArgs()
-                        + "`."))
-            .queue();
-      else
-        bot.getPlayerManager()
-            .loadItemOrdered(
-                event.getGuild(), "ytsearch:" + event.getArgs(), new ResultHandler(m, event, true));
+      m.editMessage(
+              FormatUtil.filter(
+                  event.getClient().getWarning()
+                      + " No results found for `"
+                      + event.getArgs()
+                      + "`."))
+          .queue();
     }
 
     @Override
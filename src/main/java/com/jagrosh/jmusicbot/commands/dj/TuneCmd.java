@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.commands.dj;
+
+import com.jagrosh.jmusicbot.Bot;
+import com.jagrosh.jmusicbot.audio.AudioHandler;
+import com.jagrosh.jmusicbot.audio.Broadcast;
+import com.jagrosh.jmusicbot.audio.BroadcastManager;
+import com.jagrosh.jmusicbot.commands.DJCommand;
+import com.jagrosh.jmusicbot.jdautils.CommandEvent;
+import com.jagrosh.jmusicbot.spring.AppConfiguration;
+import com.jagrosh.jmusicbot.utils.FormatUtil;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+@Component
+public class TuneCmd extends DJCommand {
+  private final BroadcastManager broadcasts;
+
+  public TuneCmd(Bot bot, AppConfiguration config, BroadcastManager broadcasts) {
+    super(bot);
+    this.broadcasts = broadcasts;
+    this.name = "tune";
+    this.help = "plays a broadcast instead of the queue, or stops playing it";
+    this.arguments = "<broadcast|OFF>";
+    this.aliases = config.getAliases().get(this.name);
+    this.beListening = true;
+    this.bePlaying = false;
+  }
+
+  @Override
+  public void doCommand(CommandEvent event) {
+    AudioHandler handler = (AudioHandler) event.getGuild().getAudioManager().getSendingHandler();
+    String args = event.getArgs().trim();
+    if (args.isEmpty()) {
+      Broadcast current = handler.getBroadcast();
+      if (current == null) event.replyError("Please include the name of a broadcast, or OFF");
+      else event.replySuccess("Tuned in to broadcast `" + current.getName() + "`.");
+      return;
+    }
+    if (args.equalsIgnoreCase("off")) {
+      if (handler.getBroadcast() == null) {
+        event.replyWarning("No broadcast is playing.");
+        return;
+      }
+      handler.tuneOut();
+      event.replySuccess("Tuned out of the broadcast.");
+      return;
+    }
+    Broadcast broadcast = broadcasts.get(args);
+    if (broadcast == null) {
+      event.replyError("There is no broadcast named `" + FormatUtil.filter(args) + "`.");
+      return;
+    }
+    boolean kept = handler.getPlayer().getPlayingTrack() != null || !handler.getQueue().isEmpty();
+    handler.tuneIn(broadcast);
+    AudioTrack track = broadcast.getPlayer().getPlayingTrack();
+    event.replySuccess(
+        "Tuned in to broadcast `"
+            + broadcast.getName()
+            + "`"
+            + (track == null ? "." : ", now playing **" + track.getInfo().title + "**.")
+            + (kept
+                ? " The queue is on hold until you use `"
+                    + event.getClient().getPrefix()
+                    + name
+                    + " off`."
+                : ""));
+  }
+}
@@ -25,6 +25,7 @@ import com.jagrosh.jmusicbot.jdautils.Command;
 import com.jagrosh.jmusicbot.jdautils.CommandEvent;
 import com.jagrosh.jmusicbot.jdautils.utils.ButtonMenu;
 import com.jagrosh.jmusicbot.playlist.PlaylistLoader.Playlist;
+import com.jagrosh.jmusicbot.queue.QueueLimitException;
 import com.jagrosh.jmusicbot.spring.AppConfiguration;
 import com.jagrosh.jmusicbot.utils.FormatUtil;
 import com.jagrosh.jmusicbot.utils.TimeUtil;
@@ -33,6 +34,8 @@ import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
 import com.sedmelluq.discord.lavaplayer.tools.FriendlyException.Severity;
 import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Message;
@@ -69,6 +72,8 @@ public class PlayCmd extends MusicCommand {
       AudioHandler handler = (AudioHandler) event.getGuild().getAudioManager().getSendingHandler();
       if (handler.getPlayer().getPlayingTrack() != null && handler.getPlayer().isPaused()) {
         if (DJCommand.checkDJPermission(event)) {
+          // a track paused for a broadcast is resumed by tuning out of it
+          handler.tuneOut();
           handler.getPlayer().setPaused(false);
           event.replySuccess(
               "Resumed **" + handler.getPlayer().getPlayingTrack().getInfo().title + "**.");
@@ -101,6 +106,7 @@ public class PlayCmd extends MusicCommand {
       event.reply(builder.toString());
       return;
     }
+    long since = System.nanoTime();
     String args =
         event.getArgs().startsWith("<") && event.getArgs().endsWith(">")
             ? event.getArgs().substring(1, event.getArgs().length() - 1)
@@ -111,18 +117,18 @@ public class PlayCmd extends MusicCommand {
         loadingEmoji + " Loading... `[" + args + "]`",
         m ->
             bot.getPlayerManager()
-                .loadItemOrdered(event.getGuild(), args, new ResultHandler(m, event, false)));
+                .getQueryLoader()
+                .load(event.getGuild(), args, since, new ResultHandler(m, event)));
   }
 
   private class ResultHandler implements AudioLoadResultHandler {
     private final Message m;
     private final CommandEvent event;
-    private final boolean ytsearch;
+    private boolean limited;
 
-    private ResultHandler(Message m, CommandEvent event, boolean ytsearch) {
+    private ResultHandler(Message m, CommandEvent event) {
       this.m = m;
       this.event = event;
-      this.ytsearch = ytsearch;
     }
 
     private void loadSingle(AudioTrack track, AudioPlaylist playlist) {
@@ -141,9 +147,23 @@ public class PlayCmd extends MusicCommand {
         return;
       }
       AudioHandler handler = (AudioHandler) event.getGuild().getAudioManager().getSendingHandler();
-      int pos =
-          handler.addTrack(new QueuedTrack(track, RequestMetadata.fromResultHandler(track, event)))
-              + 1;
+      int pos;
+      try {
+        pos =
+            handler.addTrack(
+                    new QueuedTrack(track, RequestMetadata.fromResultHandler(track, event)))
+                + 1;
+      } catch (QueueLimitException e) {
+        m.editMessage(
+                FormatUtil.filter(
+                    event.getClient().getWarning()
+                        + " Could not add **"
+                        + track.getInfo().title
+                        + "**: "
+                        + e.getMessage()))
+            .queue();
+        return;
+      }
       String addMsg =
           FormatUtil.filter(
               event.getClient().getSuccess()
@@ -174,16 +194,22 @@ public class PlayCmd extends MusicCommand {
             .setTimeout(30, TimeUnit.SECONDS)
             .setAction(
                 re -> {
-                  if (re.getName().equals(LOAD))
-                    m.editMessage(
-                            addMsg
-                                + "\n"
-                                + event.getClient().getSuccess()
-                                + " Loaded **"
-                                + loadPlaylist(playlist, track)
-                                + "** additional tracks!")
-                        .queue();
-                  else m.editMessage(addMsg).queue();
+                  if (!re.getName().equals(LOAD)) {
+                    m.editMessage(addMsg).queue();
+                    return;
+                  }
+                  String loadMsg;
+                  try {
+                    loadMsg =
+                        event.getClient().getSuccess()
+                            + " Loaded **"
+                            + loadPlaylist(playlist, track)
+                            + "** additional tracks!"
+                            + limitedNote();
+                  } catch (QueueLimitException e) {
+                    loadMsg = event.getClient().getWarning() + " " + e.getMessage();
+                  }
+                  m.editMessage(addMsg + "\n" + loadMsg).queue();
                 })
             .setFinalAction(
                 msg -> {
@@ -198,20 +224,28 @@ public class PlayCmd extends MusicCommand {
       }
     }
 
+    /**
+     * @return how many tracks were added
+     * @throws QueueLimitException if none of the tracks fit into the queue's limits
+     */
     private int loadPlaylist(AudioPlaylist playlist, AudioTrack exclude) {
-      int[] count = {0};
-      playlist.getTracks().stream()
-          .forEach(
-              track -> {
-                if (!config.calcIsTooLong(track) && !track.equals(exclude)) {
-                  AudioHandler handler =
-                      (AudioHandler) event.getGuild().getAudioManager().getSendingHandler();
-                  handler.addTrack(
-                      new QueuedTrack(track, RequestMetadata.fromResultHandler(track, event)));
-                  count[0]++;
-                }
-              });
-      return count[0];
+      RequestMetadata rm = RequestMetadata.fromResultHandler(event);
+      List<QueuedTrack> qtracks = new ArrayList<>(playlist.getTracks().size());
+      for (AudioTrack track : playlist.getTracks())
+        if (!config.calcIsTooLong(track) && !track.equals(exclude))
+          qtracks.add(new QueuedTrack(track, rm));
+      AudioHandler handler = (AudioHandler) event.getGuild().getAudioManager().getSendingHandler();
+      int added = handler.addTracks(qtracks);
+      limited = added < qtracks.size();
+      return added;
+    }
+
+    private String limitedNote() {
+      return limited
+          ? "\n"
+              + event.getClient().getWarning()
+              + " The queue limits were reached, so the rest of the playlist was not added."
+          : "";
     }
 
     @Override
@@ -231,7 +265,14 @@ public class PlayCmd extends MusicCommand {
         AudioTrack single = playlist.getSelectedTrack();
         loadSingle(single, playlist);
       } else {
-        int count = loadPlaylist(playlist, null);
+        int count;
+        try {
+          count = loadPlaylist(playlist, null);
+        } catch (QueueLimitException e) {
+          m.editMessage(FormatUtil.filter(event.getClient().getWarning() + " " + e.getMessage()))
+              .queue();
+          return;
+        }
         if (playlist.getTracks().isEmpty()) {
           m.editMessage(
                   FormatUtil.filter(
@@ -261,13 +302,15 @@ public class PlayCmd extends MusicCommand {
                           + " with `"
                           + playlist.getTracks().size()
                           + "` entries; added to the queue!"
-                          + (count < playlist.getTracks().size()
-                              ? "\n"
-                                  + event.getClient().getWarning()
-                                  + " Tracks longer than the allowed maximum (`"
-                                  + config.getMaxtime()
-                                  + "`) have been omitted."
-                              : "")))
+                          + (limited
+                              ? limitedNote()
+                              : count < playlist.getTracks().size()
+                                  ? "\n"
+                                      + event.getClient().getWarning()
+                                      + " Tracks longer than the allowed maximum (`"
+                                      + config.getMaxtime()
+                                      + "`) have been omitted."
+                                  : "")))
               .queue();
         }
       }
@@ -275,18 +318,13 @@ public class PlayCmd extends MusicCommand {
 
     @Override
     public void noMatches() {
-      if (ytsearch)
-        m.editMessage(
-                FormatUtil.filter(
-                    event.getClient().getWarning()
-                        + " No results found for `"
-                        + event.getArgs()
-                        + "`."))
-            .queue();
-      else
-        bot.getPlayerManager()
-            .loadItemOrdered(
-                event.getGuild(), "ytsearch:" + event.getArgs(), new ResultHandler(m, event, true));
+      m.editMessage(
+              FormatUtil.filter(
+                  event.getClient().getWarning()
+                      + " No results found for `"
+                      + event.getArgs()
+                      + "`."))
+          .queue();
     }
 
     @Override
@@ -333,20 +371,40 @@ public class PlayCmd extends MusicCommand {
               m -> {
                 AudioHandler handler =
                     (AudioHandler) event.getGuild().getAudioManager().getSendingHandler();
+                RequestMetadata rm = RequestMetadata.fromResultHandler(event);
+                int[] added = {0};
+                String[] limit = {null};
                 playlist.loadTracks(
                     bot.getPlayerManager(),
-                    at ->
-                        handler.addTrack(
-                            new QueuedTrack(at, RequestMetadata.fromResultHandler(at, event))),
+                    tracks -> {
+                      List<QueuedTrack> qtracks =
+                          tracks.stream().map(at -> new QueuedTrack(at, rm)).toList();
+                      try {
+                        added[0] += handler.addTracks(qtracks);
+                        if (added[0] == playlist.getTracks().size()) return true;
+                        limit[0] = "The queue limits were reached.";
+                      } catch (QueueLimitException e) {
+                        limit[0] = e.getMessage();
+                      }
+                      // stop loading the rest of the playlist
+                      return false;
+                    },
                     () -> {
                       StringBuilder builder =
                           new StringBuilder(
-                              playlist.getTracks().isEmpty()
+                              added[0] == 0
                                   ? event.getClient().getWarning() + " No tracks were loaded!"
                                   : event.getClient().getSuccess()
                                       + " Loaded **"
-                                      + playlist.getTracks().size()
+                                      + added[0]
                                       + "** tracks!");
+                      if (limit[0] != null)
+                        builder
+                            .append("\n")
+                            .append(event.getClient().getWarning())
+                            .append(" ")
+                            .append(limit[0])
+                            .append(" The rest of the playlist was not loaded.");
                       if (!playlist.getErrors().isEmpty())
                         builder.append("\nThe following tracks failed to load:");
                       playlist
@@ -97,13 +97,12 @@ public class QueueCmd extends MusicCommand {
       return;
     }
     String[] songs = new String[list.size()];
-    long total = 0;
-    for (int i = 0; i < list.size(); i++) {
-      total += list.get(i).getTrack().getDuration();
-      songs[i] = list.get(i).toString();
-    }
+    int i = 0;
+    for (QueuedTrack qt : list) songs[i++] = qt.toString();
     Settings settings = event.getClient().getSettingsFor(event.getGuild());
-    long fintotal = total;
+    long total = ah.getQueue().getTotalDuration();
+    int streams = ah.getQueue().getStreamCount();
+    int own = ah.getQueue().countOf(event.getAuthor().getIdLong());
     builder
         .setText(
             (i1, i2) ->
@@ -111,7 +110,9 @@ public class QueueCmd extends MusicCommand {
                     ah,
                     event.getClient().getSuccess(),
                     songs.length,
-                    fintotal,
+                    total,
+                    streams,
+                    own,
                     settings.getRepeatMode(),
                     settings.getQueueType()))
         .setItems(songs)
@@ -125,6 +126,8 @@ public class QueueCmd extends MusicCommand {
       String success,
       int songslength,
       long total,
+      int streams,
+      int own,
       RepeatMode repeatmode,
       QueueType queueType) {
     StringBuilder sb = new StringBuilder();
@@ -138,8 +141,11 @@ public class QueueCmd extends MusicCommand {
         sb.append(success)
             .append(" Current Queue | ")
             .append(songslength)
-            .append(" entries | `")
+            .append(" entries")
+            .append(own > 0 ? " (" + own + " yours)" : "")
+            .append(" | `")
             .append(TimeUtil.formatTime(total))
+            .append(streams > 0 ? " + " + streams + " live" : "")
             .append("` ")
             .append("| ")
             .append(queueType.getEmoji())
@@ -22,6 +22,7 @@ import com.jagrosh.jmusicbot.audio.RequestMetadata;
 import com.jagrosh.jmusicbot.commands.MusicCommand;
 import com.jagrosh.jmusicbot.jdautils.CommandEvent;
 import com.jagrosh.jmusicbot.jdautils.utils.OrderedMenu;
+import com.jagrosh.jmusicbot.queue.QueueLimitException;
 import com.jagrosh.jmusicbot.spring.AppConfiguration;
 import com.jagrosh.jmusicbot.utils.FormatUtil;
 import com.jagrosh.jmusicbot.utils.TimeUtil;
@@ -105,9 +106,23 @@ public class SearchCmd extends MusicCommand {
         return;
       }
       AudioHandler handler = (AudioHandler) event.getGuild().getAudioManager().getSendingHandler();
-      int pos =
-          handler.addTrack(new QueuedTrack(track, RequestMetadata.fromResultHandler(track, event)))
-              + 1;
+      int pos;
+      try {
+        pos =
+            handler.addTrack(
+                    new QueuedTrack(track, RequestMetadata.fromResultHandler(track, event)))
+                + 1;
+      } catch (QueueLimitException e) {
+        m.editMessage(
+                FormatUtil.filter(
+                    event.getClient().getWarning()
+                        + " Could not add **"
+                        + track.getInfo().title
+                        + "**: "
+                        + e.getMessage()))
+            .queue();
+        return;
+      }
       m.editMessage(
               FormatUtil.filter(
                   event.getClient().getSuccess()
@@ -147,10 +162,21 @@ public class SearchCmd extends MusicCommand {
                 }
                 AudioHandler handler =
                     (AudioHandler) event.getGuild().getAudioManager().getSendingHandler();
-                int pos =
-                    handler.addTrack(
-                            new QueuedTrack(track, RequestMetadata.fromResultHandler(track, event)))
-                        + 1;
+                int pos;
+                try {
+                  pos =
+                      handler.addTrack(
+                              new QueuedTrack(
+                                  track, RequestMetadata.fromResultHandler(track, event)))
+                          + 1;
+                } catch (QueueLimitException e) {
+                  event.replyWarning(
+                      "Could not add **"
+                          + FormatUtil.filter(track.getInfo().title)
+                          + "**: "
+                          + e.getMessage());
+                  return;
+                }
                 event.replySuccess(
                     "Added **"
                         + FormatUtil.filter(track.getInfo().title)
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.commands.owner;
+
+import com.jagrosh.jmusicbot.Bot;
+import com.jagrosh.jmusicbot.audio.Broadcast;
+import com.jagrosh.jmusicbot.audio.BroadcastManager;
+import com.jagrosh.jmusicbot.commands.OwnerCommand;
+import com.jagrosh.jmusicbot.jdautils.Command;
+import com.jagrosh.jmusicbot.jdautils.CommandEvent;
+import com.jagrosh.jmusicbot.playlist.PlaylistLoader.Playlist;
+import com.jagrosh.jmusicbot.spring.AppConfiguration;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+@Component
+public class BroadcastCmd extends OwnerCommand {
+  private final Bot bot;
+  private final AppConfiguration config;
+  private final BroadcastManager broadcasts;
+
+  public BroadcastCmd(Bot bot, AppConfiguration config, BroadcastManager broadcasts) {
+    this.bot = bot;
+    this.config = config;
+    this.broadcasts = broadcasts;
+    this.guildOnly = false;
+    this.name = "broadcast";
+    this.arguments = "<start|stop|all>";
+    this.help = "broadcast management";
+    this.aliases = config.getAliases().get(this.name);
+    this.children = new OwnerCommand[] {new StartCmd(), new StopCmd(), new ListCmd()};
+  }
+
+  @Override
+  public void execute(CommandEvent event) {
+    StringBuilder builder =
+        new StringBuilder(event.getClient().getWarning() + " Broadcast Management Commands:\n");
+    for (Command cmd : this.children)
+      builder
+          .append("\n`")
+          .append(event.getClient().getPrefix())
+          .append(name)
+          .append(" ")
+          .append(cmd.getName())
+          .append(" ")
+          .append(cmd.getArguments() == null ? "" : cmd.getArguments())
+          .append("` - ")
+          .append(cmd.getHelp());
+    event.reply(builder.toString());
+  }
+
+  public class StartCmd extends OwnerCommand {
+    public StartCmd() {
+      this.name = "start";
+      this.aliases = config.getAliases().get(this.name);
+      this.help = "starts a broadcast of a playlist or URL, replacing one of the same name";
+      this.arguments = "<name> <playlist|URL>";
+      this.guildOnly = false;
+    }
+
+    @Override
+    protected void execute(CommandEvent event) {
+      String[] parts = event.getArgs().split("\\s+", 2);
+      if (parts.length < 2) {
+        event.replyError("Please include a name for the broadcast and a playlist or URL to play!");
+        return;
+      }
+      String query = parts[1].trim();
+      if (query.startsWith("<") && query.endsWith(">"))
+        query = query.substring(1, query.length() - 1);
+      Broadcast broadcast = broadcasts.start(parts[0]);
+      Playlist playlist = bot.getPlaylistLoader().getPlaylist(query.replaceAll("\\s+", "_"));
+      if (playlist != null) {
+        playlist.loadTracks(
+            bot.getPlayerManager(),
+            tracks -> {
+              broadcast.addTracks(tracks);
+              return !broadcast.isStopped();
+            },
+            () -> started(event, broadcast));
+        return;
+      }
+      bot.getPlayerManager()
+          .loadItemOrdered(
+              broadcast,
+              query,
+              new AudioLoadResultHandler() {
+                @Override
+                public void trackLoaded(AudioTrack track) {
+                  broadcast.addTracks(List.of(track));
+                  started(event, broadcast);
+                }
+
+                @Override
+                public void playlistLoaded(AudioPlaylist playlist) {
+                  broadcast.addTracks(playlist.getTracks());
+                  started(event, broadcast);
+                }
+
+                @Override
+                public void noMatches() {
+                  broadcasts.stop(broadcast);
+                  event.replyError("No results found for `" + event.getArgs() + "`.");
+                }
+
+                @Override
+                public void loadFailed(FriendlyException exception) {
+                  broadcasts.stop(broadcast);
+                  event.replyError("Error loading: " + exception.getMessage());
+                }
+              });
+    }
+
+    private void started(CommandEvent event, Broadcast broadcast) {
+      if (broadcast.isStopped())
+        event.replyWarning("Broadcast `" + broadcast.getName() + "` was stopped while loading.");
+      else if (broadcast.getTracks().isEmpty()) {
+        broadcasts.stop(broadcast);
+        event.replyError("Nothing could be loaded for broadcast `" + broadcast.getName() + "`.");
+      } else
+        event.replySuccess(
+            "Broadcast `"
+                + broadcast.getName()
+                + "` is playing "
+                + broadcast.getTracks().size()
+                + " tracks in a loop.");
+    }
+  }
+
+  public class StopCmd extends OwnerCommand {
+    public StopCmd() {
+      this.name = "stop";
+      this.aliases = config.getAliases().get(this.name);
+      this.help = "stops a broadcast, silencing every server tuned in to it";
+      this.arguments = "<name>";
+      this.guildOnly = false;
+    }
+
+    @Override
+    protected void execute(CommandEvent event) {
+      if (broadcasts.stop(event.getArgs().trim()))
+        event.replySuccess("Stopped broadcast `" + event.getArgs().trim() + "`.");
+      else event.replyError("There is no broadcast named `" + event.getArgs().trim() + "`.");
+    }
+  }
+
+  public class ListCmd extends OwnerCommand {
+    public ListCmd() {
+      this.name = "all";
+      this.aliases = config.getAliases().get(this.name);
+      this.help = "lists the running broadcasts";
+      this.guildOnly = false;
+    }
+
+    @Override
+    protected void execute(CommandEvent event) {
+      Collection<Broadcast> running = broadcasts.getBroadcasts();
+      if (running.isEmpty()) {
+        event.reply(event.getClient().getWarning() + " There are no broadcasts running!");
+        return;
+      }
+      StringBuilder builder =
+          new StringBuilder(event.getClient().getSuccess() + " Running broadcasts:\n");
+      for (Broadcast broadcast : running) {
+        AudioTrack track = broadcast.getPlayer().getPlayingTrack();
+        builder
+            .append("\n`")
+            .append(broadcast.getName())
+            .append("` - ")
+            .append(broadcast.getListeners())
+            .append(" listening, ")
+            .append(
+                track == null ? "nothing playing" : "playing **" + track.getInfo().title + "**");
+      }
+      event.reply(builder.toString());
+    }
+  }
+}
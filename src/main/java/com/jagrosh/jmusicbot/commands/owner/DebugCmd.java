@@ -15,14 +15,24 @@
  */
 package com.jagrosh.jmusicbot.commands.owner;
 
+import com.jagrosh.jmusicbot.Bot;
+import com.jagrosh.jmusicbot.audio.AudioHandler;
+import com.jagrosh.jmusicbot.audio.AudioMetrics;
+import com.jagrosh.jmusicbot.audio.SourceCircuitBreaker;
 import com.jagrosh.jmusicbot.commands.OwnerCommand;
+import com.jagrosh.jmusicbot.entities.Pair;
 import com.jagrosh.jmusicbot.jdautils.CommandEvent;
 import com.jagrosh.jmusicbot.jdautils.utils.JDAUtilitiesInfo;
 import com.jagrosh.jmusicbot.spring.AppConfiguration;
 import com.sedmelluq.discord.lavaplayer.tools.PlayerLibrary;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import net.dv8tion.jda.api.JDAInfo;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.ChannelType;
+import net.dv8tion.jda.api.entities.Guild;
 import org.springframework.stereotype.Component;
 
 /**
@@ -41,9 +51,11 @@ public class DebugCmd extends OwnerCommand {
     "os.name"
   };
 
+  private final Bot bot;
   private final AppConfiguration config;
 
-  public DebugCmd(AppConfiguration config) {
+  public DebugCmd(Bot bot, AppConfiguration config) {
+    this.bot = bot;
     this.config = config;
     this.name = "debug";
     this.help = "shows debug info";
@@ -93,6 +105,8 @@ public class DebugCmd extends OwnerCommand {
         .append(event.getJDA().getGuildCache().size())
         .append("\n  Users = ")
         .append(event.getJDA().getUserCache().size());
+    appendAudioInformation(sb, event);
+    appendSourceInformation(sb);
     sb.append("\n```");
 
     if (event.isFromType(ChannelType.PRIVATE)
@@ -102,4 +116,62 @@ public class DebugCmd extends OwnerCommand {
       event.getChannel().sendFile(sb.toString().getBytes(), "debug_information.txt").queue();
     else event.reply("Debug Information: " + sb);
   }
+
+  private void appendAudioInformation(StringBuilder sb, CommandEvent event) {
+    List<Pair<Guild, AudioMetrics>> playing = new ArrayList<>();
+    for (Guild guild : event.getJDA().getGuilds())
+      if (guild.getAudioManager().getSendingHandler() instanceof AudioHandler handler)
+        playing.add(new Pair<>(guild, handler.getMetrics()));
+    long sent = playing.stream().mapToLong(p -> p.getValue().getFramesSent()).sum();
+    long missed = playing.stream().mapToLong(p -> p.getValue().getFramesMissed()).sum();
+    sb.append("\n\nAudio Information:")
+        .append("\n  Players = ")
+        .append(playing.size())
+        .append("\n  Frames Sent = ")
+        .append(sent)
+        .append("\n  Frames Missed = ")
+        .append(missed);
+    playing.removeIf(p -> p.getValue().getFramesMissed() == 0);
+    if (playing.isEmpty()) return;
+    playing.sort(
+        Comparator.comparingLong((Pair<Guild, AudioMetrics> p) -> p.getValue().getFramesMissed())
+            .reversed());
+    sb.append("\n  Most Missed Frames:");
+    for (Pair<Guild, AudioMetrics> p : playing.subList(0, Math.min(5, playing.size()))) {
+      AudioMetrics metrics = p.getValue();
+      sb.append("\n    ")
+          .append(p.getKey().getName())
+          .append(" (")
+          .append(p.getKey().getId())
+          .append("): missed ")
+          .append(metrics.getFramesMissed())
+          .append(" of ")
+          .append(metrics.getFramesSent() + metrics.getFramesMissed())
+          .append(", longest underrun ")
+          .append(metrics.getLongestUnderrun() * 20)
+          .append("ms, first frame after ")
+          .append(Math.round(metrics.getFirstFrame().mean(TimeUnit.MILLISECONDS)))
+          .append("ms on average");
+    }
+  }
+
+  private void appendSourceInformation(StringBuilder sb) {
+    List<SourceCircuitBreaker> breakers = bot.getPlayerManager().getBreakers();
+    if (breakers.isEmpty()) return;
+    sb.append("\n\nSource Information:");
+    for (SourceCircuitBreaker breaker : breakers)
+      sb.append("\n  ")
+          .append(breaker.getSourceName())
+          .append(" = ")
+          .append(breaker.getState())
+          .append(", ")
+          .append(breaker.getFailureRate())
+          .append("% failed, ")
+          .append(breaker.getLatency(0.5))
+          .append("ms median, ")
+          .append(breaker.getLatency(0.9))
+          .append("ms p90, ")
+          .append(breaker.getLatency(0.99))
+          .append("ms p99");
+  }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.http;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Hands out the connections of another manager, but leaves those leased for requests the {@link
+ * CachingRequestExecutor} holds all of unopened. Such a connection goes back to the pool unused
+ * and is dropped there. Connections through a proxy are opened regardless, since the tunnel
+ * through it is built before the request is executed. Connecting takes no longer than the
+ * manager's timeout, whatever the request allows.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class CacheAwareConnectionManager implements HttpClientConnectionManager {
+  private final HttpClientConnectionManager delegate;
+  private final int connectTimeout;
+
+  /**
+   * @param delegate the manager to hand out the connections of
+   * @param connectTimeout how many milliseconds connecting may take at most; 0 for as long as
+   *     requests allow
+   */
+  public CacheAwareConnectionManager(HttpClientConnectionManager delegate, int connectTimeout) {
+    this.delegate = delegate;
+    this.connectTimeout = connectTimeout;
+  }
+
+  @Override
+  public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+    return delegate.requestConnection(route, state);
+  }
+
+  @Override
+  public void releaseConnection(
+      HttpClientConnection conn, Object newState, long validDuration, TimeUnit timeUnit) {
+    delegate.releaseConnection(conn, newState, validDuration, timeUnit);
+  }
+
+  @Override
+  public void connect(
+      HttpClientConnection conn, HttpRoute route, int connectTimeout, HttpContext context)
+      throws IOException {
+    if (route.getProxyHost() == null && context.getAttribute(CachingRequestExecutor.HIT) != null)
+      return;
+    delegate.connect(conn, route, bound(connectTimeout), context);
+  }
+
+  /**
+   * @param requested how many milliseconds a request allows connecting to take, 0 for no limit
+   * @return the shorter of that and the manager's timeout
+   */
+  private int bound(int requested) {
+    if (connectTimeout <= 0) return requested;
+    return requested <= 0 ? connectTimeout : Math.min(requested, connectTimeout);
+  }
+
+  @Override
+  public void upgrade(HttpClientConnection conn, HttpRoute route, HttpContext context)
+      throws IOException {
+    delegate.upgrade(conn, route, context);
+  }
+
+  @Override
+  public void routeComplete(HttpClientConnection conn, HttpRoute route, HttpContext context)
+      throws IOException {
+    delegate.routeComplete(conn, route, context);
+  }
+
+  @Override
+  public void closeIdleConnections(long idletime, TimeUnit timeUnit) {
+    delegate.closeIdleConnections(idletime, timeUnit);
+  }
+
+  @Override
+  public void closeExpiredConnections() {
+    delegate.closeExpiredConnections();
+  }
+
+  @Override
+  public void shutdown() {
+    delegate.shutdown();
+  }
+}
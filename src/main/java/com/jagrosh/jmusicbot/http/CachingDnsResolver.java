@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.http;
+
+import com.jagrosh.jmusicbot.utils.MeterUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.http.conn.DnsResolver;
+
+/**
+ * Remembers what hosts resolved to for a while, so new connections to a host need not wait for a
+ * lookup. Failed lookups are not remembered.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class CachingDnsResolver implements DnsResolver {
+  private final DnsResolver delegate;
+  private final long ttl;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private final Counter hits;
+  private final Counter misses;
+
+  /**
+   * @param delegate the resolver to look hosts up with
+   * @param ttl how many milliseconds a lookup is remembered for; 0 disables the cache
+   * @param registry the registry to report hits and misses to
+   */
+  public CachingDnsResolver(DnsResolver delegate, long ttl, MeterRegistry registry) {
+    this.delegate = delegate;
+    this.ttl = ttl;
+    this.hits =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.http.dns.requests",
+            "Host lookups, by whether they were answered from the cache",
+            "result",
+            "hit");
+    this.misses =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.http.dns.requests",
+            "Host lookups, by whether they were answered from the cache",
+            "result",
+            "miss");
+  }
+
+  @Override
+  public InetAddress[] resolve(String host) throws UnknownHostException {
+    long now = System.currentTimeMillis();
+    Entry entry = entries.get(host);
+    if (entry != null && entry.expires > now) {
+      hits.increment();
+      return entry.addresses.clone();
+    }
+    misses.increment();
+    InetAddress[] addresses = delegate.resolve(host);
+    if (ttl > 0) entries.put(host, new Entry(addresses.clone(), now + ttl));
+    return addresses;
+  }
+
+  /** Forgets the lookups that expired, so hosts that are not connected to again are dropped */
+  public void evictExpired() {
+    long now = System.currentTimeMillis();
+    entries.values().removeIf(entry -> entry.expires <= now);
+  }
+
+  private static class Entry {
+    private final InetAddress[] addresses;
+    private final long expires;
+
+    private Entry(InetAddress[] addresses, long expires) {
+      this.addresses = addresses;
+      this.expires = expires;
+    }
+  }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+/**
+ * Serves GET requests from an {@link HttpRangeCache} as far as it holds the requested bytes, and
+ * stores whatever has to come from the network on its way to the caller. A request for bytes the
+ * cache only holds the start of is sent on for the rest of them alone. Only plain and single
+ * {@code bytes=start-[end]} range requests are looked at; anything else passes through untouched.
+ *
+ * <p>Requests the cache holds all of are found before the client leases a connection for them, so
+ * a {@link CacheAwareConnectionManager} can leave that connection unopened; they are answered
+ * without the server, and without looking up its host.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class CachingRequestExecutor extends HttpRequestExecutor {
+  private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+  private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+  // the context attribute a complete hit is handed from its lookup to the execution under
+  static final String HIT = "jmusicbot.http.cache.hit";
+
+  private final HttpRangeCache cache;
+
+  public CachingRequestExecutor(HttpRangeCache cache) {
+    this.cache = cache;
+  }
+
+  /** Has the clients the builder builds serve requests from the cache */
+  public void configure(HttpClientBuilder builder) {
+    builder.setRequestExecutor(this).addInterceptorLast(this::lookUp);
+  }
+
+  /** Looks for a complete hit before the request is given a connection */
+  private void lookUp(HttpRequest request, HttpContext context) {
+    // left over from an attempt that failed before it was executed
+    if (context.removeAttribute(HIT) instanceof Hit stale) stale.entry().release();
+    if (!isCacheable(request)) return;
+    Matcher range = rangeOf(request);
+    HttpRangeCache.Entry entry = cache.acquire(urlOf(request, context));
+    if (entry == null) return;
+    long start = startOf(range);
+    long end = endOf(entry, range);
+    if (start < end && entry.coveredFrom(start) >= end)
+      context.setAttribute(HIT, new Hit(entry, range != null, start, end));
+    else entry.release();
+  }
+
+  @Override
+  public HttpResponse execute(HttpRequest request, HttpClientConnection conn, HttpContext context)
+      throws IOException, HttpException {
+    if (context.removeAttribute(HIT) instanceof Hit hit) {
+      HttpRangeCache.Entry entry = hit.entry();
+      try {
+        cache.hit();
+        return respond(
+            entry, hit.ranged(), hit.start(), hit.end(), entry.read(hit.start(), hit.end()));
+      } finally {
+        entry.release();
+      }
+    }
+    if (!isCacheable(request)) return super.execute(request, conn, context);
+    String url = urlOf(request, context);
+    HttpRangeCache.Entry entry = cache.acquire(url);
+    try {
+      return execute(request, conn, context, url, entry);
+    } finally {
+      if (entry != null) entry.release();
+    }
+  }
+
+  private HttpResponse execute(
+      HttpRequest request,
+      HttpClientConnection conn,
+      HttpContext context,
+      String url,
+      HttpRangeCache.Entry entry)
+      throws IOException, HttpException {
+    Header rangeHeader = request.getFirstHeader(HttpHeaders.RANGE);
+    Matcher range = rangeOf(request);
+    long start = startOf(range);
+    if (entry == null || start >= entry.getLength()) {
+      cache.miss();
+      return store(url, super.execute(request, conn, context));
+    }
+    long end = endOf(entry, range);
+    long covered = Math.min(entry.coveredFrom(start), end);
+    if (covered == end) {
+      // cached since the lookup, so the connection is open already
+      cache.hit();
+      return respond(entry, range != null, start, end, entry.read(start, end));
+    }
+    if (covered == start) {
+      cache.miss();
+      return store(url, super.execute(request, conn, context));
+    }
+
+    // fetch only what is missing, and put it behind what is cached
+    request.setHeader(
+        HttpHeaders.RANGE, "bytes=" + covered + "-" + (range == null ? "" : range.group(2)));
+    HttpResponse response;
+    try {
+      response = super.execute(request, conn, context);
+    } finally {
+      // a retry of the request must ask for what the caller asked for
+      if (rangeHeader == null) request.removeHeaders(HttpHeaders.RANGE);
+      else request.setHeader(rangeHeader);
+    }
+    if (response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT
+        || startOf(response) != covered) {
+      // the server does not do ranges, so it ignored which ones were asked for
+      cache.miss();
+      return store(url, response);
+    }
+    HttpRangeCache.Entry current = open(url, response);
+    if (current != entry) {
+      response.getEntity().getContent().close();
+      throw new IOException("Cached resource changed while it was being read: " + url);
+    }
+    cache.partialHit();
+    InputStream stream =
+        new SequenceInputStream(
+            entry.read(start, covered), new TeeInputStream(response.getEntity(), entry, covered));
+    return respond(entry, range != null, start, end, stream);
+  }
+
+  private boolean isCacheable(HttpRequest request) {
+    if (!cache.isEnabled() || !request.getRequestLine().getMethod().equals("GET")) return false;
+    Header range = request.getFirstHeader(HttpHeaders.RANGE);
+    return range == null || RANGE.matcher(range.getValue()).matches();
+  }
+
+  /** @return the matched range of a cacheable request, or null if it asks for the whole resource */
+  private static Matcher rangeOf(HttpRequest request) {
+    Header header = request.getFirstHeader(HttpHeaders.RANGE);
+    if (header == null) return null;
+    Matcher range = RANGE.matcher(header.getValue());
+    return range.matches() ? range : null;
+  }
+
+  private static long startOf(Matcher range) {
+    return range == null ? 0 : Long.parseLong(range.group(1));
+  }
+
+  /** @return the byte after the last one asked for, which is within the resource */
+  private static long endOf(HttpRangeCache.Entry entry, Matcher range) {
+    long end = entry.getLength();
+    if (range != null && !range.group(2).isEmpty())
+      end = Math.min(end, Long.parseLong(range.group(2)) + 1);
+    return end;
+  }
+
+  /** Makes a response as the server would have sent it, with the given bytes as its body */
+  private static HttpResponse respond(
+      HttpRangeCache.Entry entry, boolean ranged, long start, long end, InputStream stream) {
+    BasicHttpResponse response =
+        ranged
+            ? new BasicHttpResponse(
+                HttpVersion.HTTP_1_1, HttpStatus.SC_PARTIAL_CONTENT, "Partial Content")
+            : new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+    InputStreamEntity entity = new InputStreamEntity(stream, end - start);
+    response.setHeader(HttpHeaders.CONTENT_LENGTH, Long.toString(end - start));
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    if (ranged)
+      response.setHeader(
+          HttpHeaders.CONTENT_RANGE,
+          "bytes " + start + "-" + (end - 1) + "/" + entry.getLength());
+    if (entry.getContentType() != null) {
+      entity.setContentType(entry.getContentType());
+      response.setHeader(HttpHeaders.CONTENT_TYPE, entry.getContentType());
+    }
+    response.setEntity(entity);
+    return response;
+  }
+
+  /** Tees the body of a response from the network into the cache, if it can be placed */
+  private HttpResponse store(String url, HttpResponse response) throws IOException {
+    HttpRangeCache.Entry entry = open(url, response);
+    if (entry != null) {
+      long position =
+          response.getStatusLine().getStatusCode() == HttpStatus.SC_OK ? 0 : startOf(response);
+      InputStreamEntity entity =
+          new InputStreamEntity(
+              new TeeInputStream(response.getEntity(), entry, position),
+              response.getEntity().getContentLength(),
+              null);
+      entity.setContentType(response.getEntity().getContentType());
+      response.setEntity(entity);
+    }
+    return response;
+  }
+
+  /**
+   * @return the cache entry the body of the response belongs into, or null if it cannot be told
+   *     where the body lies in the resource
+   */
+  private HttpRangeCache.Entry open(String url, HttpResponse response) {
+    HttpEntity entity = response.getEntity();
+    if (entity == null || response.getFirstHeader(HttpHeaders.CONTENT_ENCODING) != null)
+      return null;
+    long length;
+    int status = response.getStatusLine().getStatusCode();
+    if (status == HttpStatus.SC_OK) length = entity.getContentLength();
+    else if (status == HttpStatus.SC_PARTIAL_CONTENT) length = lengthOf(response);
+    else return null;
+    if (length <= 0) return null;
+    Header validator = response.getFirstHeader(HttpHeaders.ETAG);
+    if (validator == null) validator = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+    Header type = response.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+    return cache.open(
+        url,
+        length,
+        validator == null ? "" : validator.getValue(),
+        type == null ? null : type.getValue());
+  }
+
+  private static long startOf(HttpResponse response) {
+    Matcher matcher = contentRange(response);
+    return matcher == null ? -1 : Long.parseLong(matcher.group(1));
+  }
+
+  private static long lengthOf(HttpResponse response) {
+    Matcher matcher = contentRange(response);
+    return matcher == null ? -1 : Long.parseLong(matcher.group(3));
+  }
+
+  private static Matcher contentRange(HttpResponse response) {
+    Header header = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+    if (header == null) return null;
+    Matcher matcher = CONTENT_RANGE.matcher(header.getValue());
+    return matcher.matches() ? matcher : null;
+  }
+
+  private static String urlOf(HttpRequest request, HttpContext context) {
+    String uri = request.getRequestLine().getUri();
+    HttpHost target = HttpCoreContext.adapt(context).getTargetHost();
+    // requests through a proxy carry the whole url already
+    return target == null || !uri.startsWith("/") ? uri : target.toURI() + uri;
+  }
+
+  /** A request the cache holds all of, with its entry acquired until the request is executed */
+  private record Hit(HttpRangeCache.Entry entry, boolean ranged, long start, long end) {}
+
+  /** Writes what is read from a response body into the cache, at the bytes' place */
+  private static class TeeInputStream extends FilterInputStream {
+    private final HttpRangeCache.Entry entry;
+    private long position;
+
+    private TeeInputStream(HttpEntity entity, HttpRangeCache.Entry entry, long position)
+        throws IOException {
+      super(entity.getContent());
+      this.entry = entry;
+      this.position = position;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0) {
+        entry.write(position, b, off, read);
+        position += read;
+      } else if (read < 0) entry.save();
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      position += skipped;
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        entry.save();
+      }
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.http;
+
+import com.sedmelluq.discord.lavaplayer.tools.http.ExtendedHttpClientBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * The connections the HTTP clients of every source and transform are built on. The sources keep
+ * clients of their own, with their own cookies and request settings, but a connection one load
+ * opened, TLS handshake and all, is kept alive for the next load to the same host, whichever source
+ * makes it. Hosts are looked up through a cache, and connections to a single host can be capped.
+ * Connecting and reading are bounded in time, so a host that stops answering cannot hold up the
+ * thread that is loading from it for good. Requests the {@link HttpRangeCache} answers on its own
+ * are not given an open connection.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class HttpConnectionPool {
+  private final PoolingHttpClientConnectionManager manager;
+  private final CacheAwareConnectionManager connections;
+  private final CachingDnsResolver dns;
+  private final long keepAlive;
+
+  /**
+   * @param maxTotal how many connections may be open at once, to all hosts together
+   * @param maxPerHost how many connections may be open at once to a single host
+   * @param hostLimits overrides of maxPerHost, by host name, for connections on any port
+   * @param keepAlive how many milliseconds an idle connection is kept for, at most
+   * @param dnsTtl how many milliseconds a host lookup is remembered for
+   * @param timeout how many milliseconds connecting, and each read, may take at most; 0 leaves them
+   *     to the sources
+   * @param registry the registry to report the pool's connections and the lookups to
+   */
+  public HttpConnectionPool(
+      int maxTotal,
+      int maxPerHost,
+      Map<String, Integer> hostLimits,
+      long keepAlive,
+      long dnsTtl,
+      long timeout,
+      MeterRegistry registry) {
+    this.keepAlive = keepAlive;
+    this.dns = new CachingDnsResolver(SystemDefaultDnsResolver.INSTANCE, dnsTtl, registry);
+    this.manager = new HostLimitedManager(dns, hostLimits);
+    // reads that set no timeout of their own, which is every read lavaplayer's sources make
+    if (timeout > 0)
+      manager.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout((int) timeout).build());
+    manager.setMaxTotal(maxTotal);
+    manager.setDefaultMaxPerRoute(maxPerHost);
+    this.connections = new CacheAwareConnectionManager(manager, (int) timeout);
+    gauge(registry, "leased", PoolStats::getLeased);
+    gauge(registry, "available", PoolStats::getAvailable);
+    gauge(registry, "pending", PoolStats::getPending);
+  }
+
+  private void gauge(MeterRegistry registry, String state, ToIntFunction<PoolStats> value) {
+    Gauge.builder(
+            "jmusicbot.http.pool.connections", manager, m -> value.applyAsInt(m.getTotalStats()))
+        .description("Connections of the shared pool, by whether they are in use, idle or awaited")
+        .tag("state", state)
+        .register(registry);
+  }
+
+  /** Has the clients the builder builds make their connections through this pool */
+  public void configure(HttpClientBuilder builder) {
+    // lavaplayer's builders replace the connection manager they were given with one of their own
+    // when they build a client, unless they are told how to make it
+    if (builder instanceof ExtendedHttpClientBuilder extended)
+      extended.setConnectionManagerFactory((operator, connectionFactory) -> connections);
+    builder
+        .setConnectionManager(connections)
+        .setConnectionManagerShared(true)
+        .setDnsResolver(dns)
+        .setKeepAliveStrategy(this::keepAliveOf);
+  }
+
+  /**
+   * @return how long the connection the response came in on may be kept idle; as long as the server
+   *     allows, but no longer than configured
+   */
+  private long keepAliveOf(HttpResponse response, HttpContext context) {
+    long allowed =
+        DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+    return allowed < 0 ? keepAlive : Math.min(allowed, keepAlive);
+  }
+
+  /** Closes the connections that were idle for too long, and forgets expired host lookups */
+  public void closeIdle() {
+    manager.closeExpiredConnections();
+    manager.closeIdleConnections(keepAlive, TimeUnit.MILLISECONDS);
+    dns.evictExpired();
+  }
+
+  /**
+   * Caps the connections of every route to a host with a limit of its own, whatever its port and
+   * whether it goes through a proxy. The pool keeps its limits by route, so each route is given its
+   * host's limit the first time a connection is asked for on it.
+   */
+  private static class HostLimitedManager extends PoolingHttpClientConnectionManager {
+    private final Map<String, Integer> hostLimits = new HashMap<>();
+    private final Set<HttpRoute> limited = ConcurrentHashMap.newKeySet();
+
+    private HostLimitedManager(CachingDnsResolver dns, Map<String, Integer> hostLimits) {
+      super(
+          RegistryBuilder.<ConnectionSocketFactory>create()
+              .register("http", PlainConnectionSocketFactory.getSocketFactory())
+              .register("https", SSLConnectionSocketFactory.getSocketFactory())
+              .build(),
+          null,
+          null,
+          dns,
+          -1,
+          TimeUnit.MILLISECONDS);
+      hostLimits.forEach(
+          (host, limit) -> this.hostLimits.put(host.toLowerCase(Locale.ROOT), limit));
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+      Integer limit = hostLimits.get(route.getTargetHost().getHostName().toLowerCase(Locale.ROOT));
+      if (limit != null && limited.add(route)) setMaxPerRoute(route, limit);
+      return super.requestConnection(route, state);
+    }
+  }
+}
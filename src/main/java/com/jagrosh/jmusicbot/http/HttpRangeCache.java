@@ -0,0 +1,434 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.http;
+
+import com.jagrosh.jmusicbot.utils.MeterUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the bytes of HTTP resources that have been downloaded, range by range, so the ranges can be
+ * served again without the network. Each resource is stored as a sparse data file, named after the
+ * hash of its URL, next to a file listing the ranges it holds and the length and validator (ETag or
+ * Last-Modified) of the resource; a resource whose length or validator changes starts over. The
+ * least recently used resources are deleted once the cached ranges exceed the budget, except for
+ * those that are being read, which are left until their readers are done.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class HttpRangeCache {
+  private static final Logger LOG = LoggerFactory.getLogger("HttpRangeCache");
+  private static final String DATA = ".data";
+  private static final String META = ".meta";
+
+  private final Path folder;
+  private final long capacity;
+  // by hash of the url, least recently used first
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+
+  private final Counter hits;
+  private final Counter partialHits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  /**
+   * @param folder the folder to keep resources in, which is created if needed
+   * @param capacity how many bytes the cached ranges may take up together; 0 disables the cache
+   * @param registry the registry to report hits, misses and the cache size to
+   */
+  public HttpRangeCache(Path folder, long capacity, MeterRegistry registry) {
+    this.folder = folder;
+    this.capacity = capacity;
+    this.hits = requests(registry, "hit");
+    this.partialHits = requests(registry, "partial");
+    this.misses = requests(registry, "miss");
+    this.evictions =
+        MeterUtil.counter(
+            registry,
+            "jmusicbot.http.cache.evictions",
+            "Resources deleted to keep the cache within its budget");
+    Gauge.builder("jmusicbot.http.cache.size", this, HttpRangeCache::getSize)
+        .description("Bytes of HTTP resources kept on disk")
+        .baseUnit("bytes")
+        .register(registry);
+    if (isEnabled()) scan();
+  }
+
+  public boolean isEnabled() {
+    return capacity > 0;
+  }
+
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * @param url the url of a resource
+   * @return what is cached of the resource, which is not evicted until it is released again, or
+   *     null if nothing is
+   */
+  public Entry acquire(String url) {
+    if (!isEnabled()) return null;
+    synchronized (this) {
+      Entry entry = entries.get(hash(url));
+      if (entry != null) entry.readers++;
+      return entry;
+    }
+  }
+
+  /**
+   * @param url the url of a resource that is being downloaded
+   * @param length the length of the whole resource
+   * @param validator the ETag or Last-Modified of the resource, or an empty string
+   * @param contentType the type of the resource, or null
+   * @return the entry to store the downloaded ranges in, which is a new one if the resource has
+   *     changed, or null if the resource does not fit into the cache
+   */
+  public Entry open(String url, long length, String validator, String contentType) {
+    if (!isEnabled() || length <= 0 || length > capacity) return null;
+    String name = hash(url);
+    Entry stale;
+    Entry entry;
+    synchronized (this) {
+      stale = entries.get(name);
+      if (stale != null && stale.length == length && stale.validator.equals(validator))
+        return stale;
+      entry = new Entry(name, url, length, validator, contentType, new RangeSet());
+      entries.put(name, entry);
+      if (stale != null) size -= stale.ranges.bytes();
+    }
+    if (stale != null) stale.delete();
+    return entry;
+  }
+
+  /** Counts a request that was served from disk alone */
+  void hit() {
+    hits.increment();
+  }
+
+  /** Counts a request that was served from disk up to where the network had to take over */
+  void partialHit() {
+    partialHits.increment();
+  }
+
+  /** Counts a request that had to be served from the network */
+  void miss() {
+    misses.increment();
+  }
+
+  private static Counter requests(MeterRegistry registry, String result) {
+    return MeterUtil.counter(
+        registry,
+        "jmusicbot.http.cache.requests",
+        "Requests to HTTP sources, by whether they were served from disk",
+        "result",
+        result);
+  }
+
+  private void grew(long bytes) {
+    List<Entry> evicted = new ArrayList<>();
+    synchronized (this) {
+      size += bytes;
+      Iterator<Entry> eldest = entries.values().iterator();
+      while (size > capacity && eldest.hasNext()) {
+        Entry entry = eldest.next();
+        if (entry.readers > 0) continue;
+        eldest.remove();
+        size -= entry.ranges.bytes();
+        evicted.add(entry);
+      }
+    }
+    for (Entry entry : evicted) {
+      evictions.increment();
+      entry.delete();
+    }
+  }
+
+  /** Picks up the resources left by earlier runs, least recently used first */
+  private void scan() {
+    if (!Files.isDirectory(folder)) return;
+    List<Path> found;
+    try (Stream<Path> files = Files.list(folder)) {
+      found =
+          files
+              .filter(path -> path.getFileName().toString().endsWith(META))
+              .sorted(Comparator.comparing(path -> path.toFile().lastModified()))
+              .toList();
+    } catch (IOException e) {
+      LOG.warn("Could not read the HTTP cache folder " + folder, e);
+      return;
+    }
+    for (Path path : found) {
+      String file = path.getFileName().toString();
+      String name = file.substring(0, file.length() - META.length());
+      Properties meta = new Properties();
+      try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+        meta.load(reader);
+        Entry entry =
+            new Entry(
+                name,
+                meta.getProperty("url"),
+                Long.parseLong(meta.getProperty("length")),
+                meta.getProperty("validator", ""),
+                meta.getProperty("type"),
+                RangeSet.parse(meta.getProperty("ranges", "")));
+        if (!Files.exists(entry.data())) throw new IOException("Missing data file");
+        synchronized (this) {
+          entries.put(name, entry);
+          size += entry.ranges.bytes();
+        }
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Dropping unreadable cached resource " + path, e);
+        delete(path);
+        delete(folder.resolve(name + DATA));
+      }
+    }
+    grew(0);
+  }
+
+  private static String hash(String url) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void delete(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      LOG.warn("Could not delete " + path, e);
+    }
+  }
+
+  /** What is cached of one resource */
+  public class Entry {
+    private final String name;
+    private final String url;
+    private final long length;
+    private final String validator;
+    private final String contentType;
+    private final RangeSet ranges;
+    private FileChannel channel;
+    private boolean deleted;
+    // how many acquired the entry or are reading it, guarded by the cache
+    private int readers;
+
+    private Entry(
+        String name,
+        String url,
+        long length,
+        String validator,
+        String contentType,
+        RangeSet ranges) {
+      this.name = name;
+      this.url = url;
+      this.length = length;
+      this.validator = validator;
+      this.contentType = contentType;
+      this.ranges = ranges;
+    }
+
+    public long getLength() {
+      return length;
+    }
+
+    public String getContentType() {
+      return contentType;
+    }
+
+    /**
+     * @param start a byte of the resource
+     * @return the end of the cached bytes that follow the given one without a gap, which is the
+     *     byte itself if it is not cached
+     */
+    public synchronized long coveredFrom(long start) {
+      return ranges.coveredFrom(start);
+    }
+
+    /**
+     * Reads cached bytes of an acquired entry, which stays acquired until the stream is closed
+     *
+     * @param start the first byte to read
+     * @param end the byte after the last one to read, which must all be cached
+     * @return a stream of the bytes, which the caller must close
+     */
+    public InputStream read(long start, long end) throws IOException {
+      synchronized (HttpRangeCache.this) {
+        readers++;
+      }
+      try {
+        return new RangeInputStream(
+            this, FileChannel.open(data(), StandardOpenOption.READ), start, end);
+      } catch (IOException | RuntimeException e) {
+        release();
+        throw e;
+      }
+    }
+
+    /** Lets the entry be evicted again, once whoever else acquired it released it too */
+    public void release() {
+      boolean over;
+      synchronized (HttpRangeCache.this) {
+        readers--;
+        over = readers == 0 && size > capacity;
+      }
+      if (over) grew(0);
+    }
+
+    /**
+     * Stores downloaded bytes of the resource
+     *
+     * @param position where the bytes are in the resource
+     */
+    public void write(long position, byte[] bytes, int offset, int count) {
+      long added;
+      synchronized (this) {
+        if (deleted || count <= 0) return;
+        try {
+          if (channel == null) {
+            Files.createDirectories(folder);
+            channel = FileChannel.open(data(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+          }
+          ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, count);
+          for (long at = position; buffer.hasRemaining(); ) at += channel.write(buffer, at);
+        } catch (IOException e) {
+          LOG.warn("Could not write to " + data(), e);
+          return;
+        }
+        added = ranges.add(position, Math.min(position + count, length));
+      }
+      if (added > 0) grew(added);
+    }
+
+    /** Writes down which ranges are cached, and lets go of the data file until more is written */
+    public synchronized void save() {
+      if (deleted) return;
+      closeChannel();
+      Properties meta = new Properties();
+      meta.setProperty("url", url);
+      meta.setProperty("length", Long.toString(length));
+      meta.setProperty("validator", validator);
+      if (contentType != null) meta.setProperty("type", contentType);
+      meta.setProperty("ranges", ranges.toString());
+      try (Writer writer = Files.newBufferedWriter(meta(), StandardCharsets.UTF_8)) {
+        meta.store(writer, null);
+      } catch (IOException e) {
+        LOG.warn("Could not write " + meta(), e);
+      }
+    }
+
+    private synchronized void delete() {
+      deleted = true;
+      closeChannel();
+      HttpRangeCache.delete(meta());
+      HttpRangeCache.delete(data());
+    }
+
+    private void closeChannel() {
+      if (channel == null) return;
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // nothing left to lose
+      }
+      channel = null;
+    }
+
+    private Path data() {
+      return folder.resolve(name + DATA);
+    }
+
+    private Path meta() {
+      return folder.resolve(name + META);
+    }
+  }
+
+  /** Reads a range of a data file */
+  private static class RangeInputStream extends InputStream {
+    private final Entry entry;
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+    private boolean closed;
+
+    private RangeInputStream(Entry entry, FileChannel channel, long start, long end) {
+      this.entry = entry;
+      this.channel = channel;
+      this.position = start;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (position >= end) return -1;
+      int count = (int) Math.min(len, end - position);
+      int read = channel.read(ByteBuffer.wrap(b, off, count), position);
+      if (read < 0) throw new IOException("Cached range is shorter than expected");
+      position += read;
+      return read;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) return;
+      closed = true;
+      try {
+        channel.close();
+      } finally {
+        entry.release();
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.http;
+
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * The byte ranges of a resource that have been downloaded, merged wherever they touch. Not thread
+ * safe.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+final class RangeSet {
+  // start to end, exclusive, of ranges that neither overlap nor touch
+  private final TreeMap<Long, Long> ranges = new TreeMap<>();
+  private long bytes;
+
+  /**
+   * @return how many bytes all ranges cover together
+   */
+  long bytes() {
+    return bytes;
+  }
+
+  /**
+   * Adds a range
+   *
+   * @param start the first byte
+   * @param end the byte after the last one
+   * @return how many bytes were not covered before
+   */
+  long add(long start, long end) {
+    if (start >= end) return 0;
+    long before = bytes;
+    Map.Entry<Long, Long> lower = ranges.floorEntry(start);
+    if (lower != null && lower.getValue() >= start) {
+      start = lower.getKey();
+      end = Math.max(end, lower.getValue());
+      remove(lower.getKey());
+    }
+    for (Map.Entry<Long, Long> next = ranges.ceilingEntry(start);
+        next != null && next.getKey() <= end;
+        next = ranges.ceilingEntry(start)) {
+      end = Math.max(end, next.getValue());
+      remove(next.getKey());
+    }
+    ranges.put(start, end);
+    bytes += end - start;
+    return bytes - before;
+  }
+
+  /**
+   * @param start a byte
+   * @return the end of the range that covers the byte, or the byte itself if none does
+   */
+  long coveredFrom(long start) {
+    Map.Entry<Long, Long> lower = ranges.floorEntry(start);
+    return lower != null && lower.getValue() > start ? lower.getValue() : start;
+  }
+
+  private void remove(long start) {
+    bytes -= ranges.remove(start) - start;
+  }
+
+  /**
+   * @return the ranges as {@code start-end} pairs, separated by commas
+   */
+  @Override
+  public String toString() {
+    StringJoiner joiner = new StringJoiner(",");
+    ranges.forEach((start, end) -> joiner.add(start + "-" + end));
+    return joiner.toString();
+  }
+
+  /**
+   * @param text ranges as written by {@link #toString}
+   * @return the ranges
+   * @throws NumberFormatException if the text is malformed
+   */
+  static RangeSet parse(String text) {
+    RangeSet set = new RangeSet();
+    if (text.isEmpty()) return set;
+    for (String range : text.split(",")) {
+      int dash = range.indexOf('-');
+      set.add(Long.parseLong(range.substring(0, dash)), Long.parseLong(range.substring(dash + 1)));
+    }
+    return set;
+  }
+}
@@ -31,7 +31,10 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
-import java.util.function.Consumer;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 /**
  * @author John Grosh (john.a.grosh@gmail.com)
@@ -126,8 +129,10 @@ public class PlaylistLoader {
     private final String name;
     private final List<String> items;
     private final boolean shuffle;
-    private final List<AudioTrack> tracks = new LinkedList<>();
-    private final List<PlaylistLoadError> errors = new LinkedList<>();
+    // added to by whichever loader thread answers an item
+    private final List<AudioTrack> tracks = Collections.synchronizedList(new LinkedList<>());
+    private final List<PlaylistLoadError> errors =
+        Collections.synchronizedList(new LinkedList<>());
     private boolean loaded = false;
 
     private Playlist(String name, List<String> items, boolean shuffle) {
@@ -136,81 +141,113 @@ public class PlaylistLoader {
       this.shuffle = shuffle;
     }
 
+    /**
+     * Loads every item of the playlist, in order
+     *
+     * @param manager the manager to load the items with
+     * @param consumer receives the tracks of each item as soon as it is loaded, as one batch, and
+     *     returns whether to keep loading; once it returns false, no further items are loaded
+     * @param callback run once, after the last item has been handled or loading has been stopped
+     */
     public void loadTracks(
-        AudioPlayerManager manager, Consumer<AudioTrack> consumer, Runnable callback) {
+        AudioPlayerManager manager, Predicate<List<AudioTrack>> consumer, Runnable callback) {
       if (loaded) return;
       loaded = true;
-      for (int i = 0; i < items.size(); i++) {
-        boolean last = i + 1 == items.size();
+      AtomicBoolean stopped = new AtomicBoolean();
+      // the items not handled yet, which need not be handled in order
+      AtomicInteger remaining = new AtomicInteger(items.size());
+      List<Future<Void>> loads = new ArrayList<>(items.size());
+      Runnable finish =
+          () -> {
+            if (!stopped.compareAndSet(false, true)) return;
+            synchronized (loads) {
+              loads.forEach(load -> load.cancel(false));
+            }
+            if (shuffle) shuffleTracks();
+            if (callback != null) callback.run();
+          };
+      if (items.isEmpty()) finish.run();
+      for (int i = 0; i < items.size() && !stopped.get(); i++) {
         int index = i;
-        manager.loadItemOrdered(
-            name,
-            items.get(i),
-            new AudioLoadResultHandler() {
-              private void done() {
-                if (last) {
-                  if (shuffle) shuffleTracks();
-                  if (callback != null) callback.run();
-                }
-              }
+        Future<Void> load =
+            manager.loadItemOrdered(
+                name,
+                items.get(i),
+                new AudioLoadResultHandler() {
+                  private void done() {
+                    if (remaining.decrementAndGet() == 0) finish.run();
+                  }
 
-              @Override
-              public void trackLoaded(AudioTrack at) {
-                if (config.calcIsTooLong(at))
-                  errors.add(
-                      new PlaylistLoadError(
-                          index,
-                          items.get(index),
-                          "This track is longer than the allowed maximum"));
-                else {
-                  at.setUserData(0L);
-                  tracks.add(at);
-                  consumer.accept(at);
-                }
-                done();
-              }
+                  private void accept(List<AudioTrack> loadedTracks) {
+                    tracks.addAll(loadedTracks);
+                    if (!consumer.test(loadedTracks)) finish.run();
+                  }
 
-              @Override
-              public void playlistLoaded(AudioPlaylist ap) {
-                if (ap.isSearchResult()) {
-                  trackLoaded(ap.getTracks().get(0));
-                } else if (ap.getSelectedTrack() != null) {
-                  trackLoaded(ap.getSelectedTrack());
-                } else {
-                  final var random = new Random();
-                  List<AudioTrack> loadedTracks = new ArrayList<>(ap.getTracks());
-                  if (shuffle) {
-                    for (int first = 0; first < loadedTracks.size(); first++) {
-                      int second = random.nextInt(loadedTracks.size());
-                      AudioTrack tmp = loadedTracks.get(first);
-                      loadedTracks.set(first, loadedTracks.get(second));
-                      loadedTracks.set(second, tmp);
+                  @Override
+                  public void trackLoaded(AudioTrack at) {
+                    if (stopped.get()) return;
+                    if (config.calcIsTooLong(at))
+                      errors.add(
+                          new PlaylistLoadError(
+                              index,
+                              items.get(index),
+                              "This track is longer than the allowed maximum"));
+                    else {
+                      at.setUserData(0L);
+                      accept(List.of(at));
                     }
+                    done();
                   }
-                  loadedTracks.removeIf(config::calcIsTooLong);
-                  loadedTracks.forEach(at -> at.setUserData(0L));
-                  tracks.addAll(loadedTracks);
-                  loadedTracks.forEach(consumer::accept);
-                }
-                done();
-              }
 
-              @Override
-              public void noMatches() {
-                errors.add(new PlaylistLoadError(index, items.get(index), "No matches found."));
-                done();
-              }
+                  @Override
+                  public void playlistLoaded(AudioPlaylist ap) {
+                    if (stopped.get()) return;
+                    if (ap.isSearchResult()) {
+                      trackLoaded(ap.getTracks().get(0));
+                      return;
+                    } else if (ap.getSelectedTrack() != null) {
+                      trackLoaded(ap.getSelectedTrack());
+                      return;
+                    }
+                    final var random = new Random();
+                    List<AudioTrack> loadedTracks = new ArrayList<>(ap.getTracks());
+                    if (shuffle) {
+                      for (int first = 0; first < loadedTracks.size(); first++) {
+                        int second = random.nextInt(loadedTracks.size());
+                        AudioTrack tmp = loadedTracks.get(first);
+                        loadedTracks.set(first, loadedTracks.get(second));
+                        loadedTracks.set(second, tmp);
+                      }
+                    }
+                    loadedTracks.removeIf(config::calcIsTooLong);
+                    loadedTracks.forEach(at -> at.setUserData(0L));
+                    accept(loadedTracks);
+                    done();
+                  }
 
-              @Override
-              public void loadFailed(FriendlyException fe) {
-                errors.add(
-                    new PlaylistLoadError(
-                        index,
-                        items.get(index),
-                        "Failed to load track: " + fe.getLocalizedMessage()));
-                done();
-              }
-            });
+                  @Override
+                  public void noMatches() {
+                    if (stopped.get()) return;
+                    errors.add(new PlaylistLoadError(index, items.get(index), "No matches found."));
+                    done();
+                  }
+
+                  @Override
+                  public void loadFailed(FriendlyException fe) {
+                    if (stopped.get()) return;
+                    errors.add(
+                        new PlaylistLoadError(
+                            index,
+                            items.get(index),
+                            "Failed to load track: " + fe.getLocalizedMessage()));
+                    done();
+                  }
+                });
+        // loading may have been stopped while this item was being submitted
+        synchronized (loads) {
+          if (stopped.get()) load.cancel(false);
+          else loads.add(load);
+        }
       }
     }
 
@@ -16,7 +16,6 @@
 package com.jagrosh.jmusicbot.queue;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
@@ -26,76 +25,294 @@ import java.util.Random;
  */
 public abstract class AbstractQueue<T extends Queueable> {
   protected AbstractQueue(AbstractQueue<T> queue) {
-    this.list = queue != null ? queue.getList() : new LinkedList<>();
+    this(queue != null ? queue.state : new QueueState<>(QueueStorage.TREE.createStore()));
   }
 
-  protected final List<T> list;
+  AbstractQueue(QueueStore<T> entries) {
+    this(new QueueState<>(entries));
+  }
+
+  private AbstractQueue(QueueState<T> state) {
+    this.state = state;
+    this.entries = state.entries;
+    this.requesters = state.requesters;
+  }
 
-  public abstract int add(T item);
+  // every access to entries and requesters happens while holding the state's lock
+  final QueueState<T> state;
+  final QueueStore<T> entries;
+  private final RequesterIndex<T> requesters;
 
+  /**
+   * @param item the item to add
+   * @return the position the item was inserted at
+   * @throws QueueLimitException if the item does not fit into the queue's limits
+   */
+  public int add(T item) {
+    synchronized (state) {
+      fitting(List.of(item));
+      return modified(place(item));
+    }
+  }
+
+  /**
+   * Decides where a new item goes and inserts it there. Called while holding the queue's lock.
+   *
+   * @param item the item to add
+   * @return the position the item was inserted at
+   */
+  protected abstract int place(T item);
+
+  /**
+   * Adds several items as if they were added one after another, but under a single lock and in a
+   * single pass where the queue type supports it. Stops at the first item that does not fit into
+   * the queue's limits.
+   *
+   * @param items the items to add, in order
+   * @return how many of the items were added
+   * @throws QueueLimitException if not even the first item fits into the queue's limits
+   */
+  public int addAll(List<T> items) {
+    if (items.isEmpty()) return 0;
+    synchronized (state) {
+      int count = fitting(items);
+      placeAll(count == items.size() ? items : items.subList(0, count));
+      return modified(count);
+    }
+  }
+
+  /**
+   * Places several items, in order. Called while holding the queue's lock. By default, places them
+   * one by one.
+   *
+   * @param items the items to add, at least one
+   * @return the position the first item was inserted at
+   */
+  protected int placeAll(List<T> items) {
+    int first = place(items.get(0));
+    for (int i = 1; i < items.size(); i++) place(items.get(i));
+    return first;
+  }
+
+  /**
+   * Places an item at a position, regardless of the queue's limits
+   *
+   * @param index the position, clamped to the size of the queue
+   * @param item the item to add
+   */
   public void addAt(int index, T item) {
-    if (index >= list.size()) list.add(item);
-    else list.add(index, item);
+    synchronized (state) {
+      insert(Math.min(index, entries.size()), item);
+      modified(index);
+    }
+  }
+
+  /**
+   * Places an item so it plays next, regardless of the queue's limits. By default, puts it at the
+   * head of the queue.
+   *
+   * @param item the item to add
+   * @return the position the item was inserted at
+   */
+  public int addNext(T item) {
+    synchronized (state) {
+      insert(0, item);
+      return modified(0);
+    }
+  }
+
+  /**
+   * Places an item that is being repeated, regardless of the queue's limits. By default, puts it at
+   * the head of the queue.
+   *
+   * @param item the item to add
+   * @return the position the item was inserted at
+   */
+  public int addRepeat(T item) {
+    synchronized (state) {
+      insert(0, item);
+      return modified(0);
+    }
   }
 
   public int size() {
-    return list.size();
+    synchronized (state) {
+      return entries.size();
+    }
   }
 
   public T pull() {
-    return list.remove(0);
+    return remove(0);
+  }
+
+  /**
+   * Removes the first item, unless the queue is empty
+   *
+   * @return the first item, or null if the queue is empty
+   */
+  public T poll() {
+    synchronized (state) {
+      return entries.size() == 0 ? null : remove(0);
+    }
+  }
+
+  /**
+   * @return the first item, or null if the queue is empty
+   */
+  public T peek() {
+    synchronized (state) {
+      QueueEntry<T> first = entries.first();
+      return first == null ? null : first.item;
+    }
   }
 
   public boolean isEmpty() {
-    return list.isEmpty();
+    return size() == 0;
   }
 
+  /**
+   * Reads never block: the snapshot is rebuilt at most once per modification, and stays valid (and
+   * safe to iterate) while other threads keep modifying the queue.
+   *
+   * @return an immutable snapshot of the queue
+   */
   public List<T> getList() {
-    return list;
+    List<T> snapshot = state.snapshot;
+    if (snapshot != null) return snapshot;
+    synchronized (state) {
+      if (state.snapshot == null) state.snapshot = List.copyOf(entries.items());
+      return state.snapshot;
+    }
+  }
+
+  /**
+   * @param identifier the requester's identifier
+   * @return how many items the requester currently has queued
+   */
+  public int countOf(long identifier) {
+    synchronized (state) {
+      Requester<T> requester = requesters.get(identifier);
+      return requester == null ? 0 : requester.count;
+    }
+  }
+
+  /**
+   * @param identifier the requester's identifier
+   * @return the total duration of the requester's queued items, live streams excluded
+   */
+  public long durationOf(long identifier) {
+    synchronized (state) {
+      Requester<T> requester = requesters.get(identifier);
+      return requester == null ? 0L : requester.duration;
+    }
+  }
+
+  /**
+   * @return the total duration of the queue, live streams excluded
+   */
+  public long getTotalDuration() {
+    synchronized (state) {
+      return state.duration;
+    }
+  }
+
+  /**
+   * @return how many live streams are queued
+   */
+  public int getStreamCount() {
+    synchronized (state) {
+      return state.streams;
+    }
+  }
+
+  public QueueLimits getLimits() {
+    synchronized (state) {
+      return state.limits;
+    }
+  }
+
+  /**
+   * Sets the limits checked by {@link #add} and {@link #addAll}. Items already queued stay.
+   *
+   * @param limits the new limits
+   */
+  public void setLimits(QueueLimits limits) {
+    synchronized (state) {
+      state.limits = limits;
+    }
   }
 
   public T get(int index) {
-    return list.get(index);
+    synchronized (state) {
+      return entries.get(index).item;
+    }
   }
 
   public T remove(int index) {
-    return list.remove(index);
+    synchronized (state) {
+      QueueEntry<T> entry = entries.get(index);
+      unlink(entry);
+      if (index == 0) pulled(List.of(entry));
+      modified(index);
+      return entry.item;
+    }
   }
 
   public int removeAll(long identifier) {
-    int count = 0;
-    for (int i = list.size() - 1; i >= 0; i--) {
-      if (list.get(i).getIdentifier() == identifier) {
-        list.remove(i);
-        count++;
+    synchronized (state) {
+      Requester<T> requester = requesters.get(identifier);
+      if (requester == null) return 0;
+      int count = requester.count;
+      for (QueueEntry<T> entry = requester.first; entry != null; entry = entry.nextByRequester) {
+        entries.remove(entry);
+        if (entry.item.isStream()) state.streams--;
       }
+      state.duration -= requester.duration;
+      requesters.remove(identifier);
+      return modified(count);
     }
-    return count;
   }
 
   public void clear() {
-    list.clear();
+    synchronized (state) {
+      entries.clear();
+      requesters.clear();
+      state.duration = 0;
+      state.streams = 0;
+      modified(0);
+    }
   }
 
   public int shuffle(long identifier) {
-    Random random = new Random();
-    List<Integer> iset = new ArrayList<>();
-    for (int i = 0; i < list.size(); i++) {
-      if (list.get(i).getIdentifier() == identifier) iset.add(i);
-    }
-    for (int j = 0; j < iset.size(); j++) {
-      int first = iset.get(j);
-      int second = random.nextInt(iset.size());
-      T temp = list.get(first);
-      list.set(first, list.get(second));
-      list.set(second, temp);
+    synchronized (state) {
+      Requester<T> requester = requesters.get(identifier);
+      if (requester == null) return 0;
+      // the items are swapped between the requester's own entries, so the chain stays intact
+      Random random = new Random();
+      List<QueueEntry<T>> chain = new ArrayList<>(requester.count);
+      for (QueueEntry<T> entry = requester.first; entry != null; entry = entry.nextByRequester)
+        chain.add(entry);
+      for (int j = 0; j < chain.size(); j++) {
+        QueueEntry<T> first = chain.get(j);
+        QueueEntry<T> second = chain.get(random.nextInt(chain.size()));
+        T temp = first.item;
+        first.item = second.item;
+        second.item = temp;
+      }
+      return modified(chain.size());
     }
-    return iset.size();
   }
 
   public void skip(int number) {
-    if (number > 0) {
-      list.subList(0, number).clear();
+    synchronized (state) {
+      if (number > entries.size()) throw new IndexOutOfBoundsException(number);
+      List<QueueEntry<T>> heads = new ArrayList<>(number);
+      for (int i = 0; i < number; i++) {
+        heads.add(entries.first());
+        unlink(entries.first());
+      }
+      pulled(heads);
+      modified(number);
     }
   }
 
@@ -107,8 +324,154 @@ public abstract class AbstractQueue<T extends Queueable> {
    * @return the moved item
    */
   public T moveItem(int from, int to) {
-    T item = list.remove(from);
-    list.add(to, item);
-    return item;
+    synchronized (state) {
+      QueueEntry<T> entry = entries.get(from);
+      unlink(entry);
+      link(to, entry);
+      modified(to);
+      return entry.item;
+    }
+  }
+
+  /**
+   * @return the requester's entry that comes last in the queue, or null if they have none
+   */
+  QueueEntry<T> lastEntryOf(long identifier) {
+    Requester<T> requester = requesters.get(identifier);
+    return requester == null ? null : requester.last;
+  }
+
+  /**
+   * Places a new item at the given position, keeping the requester index up to date
+   *
+   * @param index the position, between 0 and size() inclusive
+   * @param item the item to insert
+   * @return the new entry
+   */
+  QueueEntry<T> insert(int index, T item) {
+    QueueEntry<T> entry = entries.newEntry(item);
+    link(index, entry);
+    return entry;
+  }
+
+  /**
+   * Called whenever an entry has been placed at a position, be it a new or a moved one
+   *
+   * @param index the entry's position
+   * @param entry the entry
+   */
+  void linked(int index, QueueEntry<T> entry) {}
+
+  /**
+   * Called after entries were taken off the head of the queue, as they are when they are played
+   *
+   * @param heads the entries, in the order they were at the head
+   */
+  void pulled(List<QueueEntry<T>> heads) {}
+
+  private void link(int index, QueueEntry<T> entry) {
+    entries.insert(index, entry);
+    Requester<T> requester = requesters.getOrCreate(entry.item.getIdentifier());
+    entry.requester = requester;
+    requester.count++;
+    count(entry, 1);
+    if (requester.first == null) {
+      entry.prevByRequester = null;
+      entry.nextByRequester = null;
+      requester.first = entry;
+      requester.last = entry;
+    } else if (entries.indexOf(requester.last) < index) {
+      linkAfter(requester, requester.last, entry);
+    } else {
+      // rare: only arbitrary positional inserts land in front of the requester's last entry
+      QueueEntry<T> before = requester.last.prevByRequester;
+      while (before != null && entries.indexOf(before) > index) before = before.prevByRequester;
+      if (before == null) {
+        entry.prevByRequester = null;
+        entry.nextByRequester = requester.first;
+        requester.first.prevByRequester = entry;
+        requester.first = entry;
+      } else linkAfter(requester, before, entry);
+    }
+    linked(index, entry);
+  }
+
+  /** Adds an entry to, or with a sign of -1 removes it from, the running totals */
+  private void count(QueueEntry<T> entry, int sign) {
+    if (entry.item.isStream()) state.streams += sign;
+    else {
+      long duration = sign * lengthOf(entry.item);
+      state.duration += duration;
+      entry.requester.duration += duration;
+    }
+  }
+
+  /**
+   * Checks the items against the limits, using the running totals
+   *
+   * @return how many of the items, from the first on, fit into the queue's limits
+   * @throws QueueLimitException if not even the first item fits
+   */
+  private int fitting(List<T> items) {
+    if (state.limits == QueueLimits.NONE) return items.size();
+    // what each requester adds in this batch
+    RequesterIndex<T> added = new RequesterIndex<>();
+    int size = entries.size();
+    long duration = state.duration;
+    for (int i = 0; i < items.size(); i++) {
+      T item = items.get(i);
+      long length = lengthOf(item);
+      Requester<T> queued = requesters.get(item.getIdentifier());
+      Requester<T> batch = added.getOrCreate(item.getIdentifier());
+      size++;
+      duration += length;
+      batch.count++;
+      batch.duration += length;
+      String violation =
+          state.limits.violation(
+              size,
+              duration,
+              batch.count + (queued == null ? 0 : queued.count),
+              batch.duration + (queued == null ? 0 : queued.duration));
+      if (violation == null) continue;
+      if (i == 0) throw new QueueLimitException(violation);
+      return i;
+    }
+    return items.size();
+  }
+
+  /** The duration an item adds to the totals, live streams count as nothing */
+  private static long lengthOf(Queueable item) {
+    return item.isStream() ? 0L : Math.max(0L, item.getDuration());
+  }
+
+  /** Drops the published snapshot; passes its argument through for convenience */
+  int modified(int result) {
+    state.snapshot = null;
+    return result;
+  }
+
+  private void linkAfter(Requester<T> requester, QueueEntry<T> before, QueueEntry<T> entry) {
+    entry.prevByRequester = before;
+    entry.nextByRequester = before.nextByRequester;
+    if (before.nextByRequester == null) requester.last = entry;
+    else before.nextByRequester.prevByRequester = entry;
+    before.nextByRequester = entry;
+  }
+
+  private void unlink(QueueEntry<T> entry) {
+    entries.remove(entry);
+    Requester<T> requester = entry.requester;
+    count(entry, -1);
+    if (--requester.count == 0) {
+      requesters.remove(requester.identifier);
+      return;
+    }
+    if (entry.prevByRequester == null) requester.first = entry.nextByRequester;
+    else entry.prevByRequester.nextByRequester = entry.nextByRequester;
+    if (entry.nextByRequester == null) requester.last = entry.prevByRequester;
+    else entry.nextByRequester.prevByRequester = entry.prevByRequester;
+    entry.prevByRequester = null;
+    entry.nextByRequester = null;
   }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives every requester the same airtime rather than the same number of items. This is deficit
+ * round robin with the quantum shrunk to a single millisecond: each entry is keyed with the airtime
+ * its requester has queued before it, and the queue is ordered by that key. A requester who queues
+ * a three hour mix therefore waits for three hours of everyone else's music before their next
+ * item.
+ *
+ * <p>Requesters who have nothing queued start at the key of the head of the queue, so they are
+ * neither punished for what they played earlier nor able to skip ahead. Because the keys are
+ * non-decreasing along the queue, an item's position is a single O(log n) search.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ * @param <T>
+ */
+public class AirtimeQueue<T extends Queueable> extends AbstractQueue<T> {
+  // streams have no known length, so they are charged a fixed amount instead
+  private static final long MAX_AIRTIME = TimeUnit.DAYS.toMillis(1);
+
+  public AirtimeQueue(AbstractQueue<T> queue) {
+    super(queue);
+    // entries queued under another queue type keep their order, but need their keys
+    synchronized (state) {
+      long previous = 0;
+      for (QueueEntry<T> entry = entries.first(); entry != null; entry = entries.successor(entry)) {
+        QueueEntry<T> before = entry.prevByRequester;
+        entry.key = Math.max(previous, before == null ? 0 : before.key + airtime(before.item));
+        previous = entry.key;
+      }
+    }
+  }
+
+  @Override
+  protected int place(T item) {
+    QueueEntry<T> last = lastEntryOf(item.getIdentifier());
+    QueueEntry<T> head = entries.first();
+    long key = last != null ? last.key + airtime(last.item) : head != null ? head.key : 0;
+    int index = entries.upperBound(key);
+    insert(index, item).key = key;
+    return index;
+  }
+
+  @Override
+  void linked(int index, QueueEntry<T> entry) {
+    // entries put at an arbitrary position take the key of their neighbourhood
+    if (index > 0) entry.key = entries.get(index - 1).key;
+    else if (entries.size() > 1) entry.key = entries.get(1).key;
+    else entry.key = 0;
+  }
+
+  private static long airtime(Queueable item) {
+    long duration = item.getDuration();
+    return duration <= 0 ? 0 : Math.min(duration, MAX_AIRTIME);
+  }
+}
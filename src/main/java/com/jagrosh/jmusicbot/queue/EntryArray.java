@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+/**
+ * Holds the entries of a queue in a circular array. Every slot carries a ticket, its coordinate on
+ * an unbounded line of which the array is a window; a position is the ticket minus the ticket of
+ * the head. Inserting or removing shifts whichever side of the array is shorter, and only the
+ * shifted slots have their tickets rewritten.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ * @param <T>
+ */
+final class EntryArray<T extends Queueable> implements QueueStore<T> {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private Slot<T>[] slots = newArray(INITIAL_CAPACITY);
+  private long head = 0;
+  private int size = 0;
+
+  @Override
+  public QueueEntry<T> newEntry(T item) {
+    return new Slot<>(item);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public QueueEntry<T> get(int index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+    return at(head + index);
+  }
+
+  @Override
+  public int indexOf(QueueEntry<T> entry) {
+    return (int) (((Slot<T>) entry).ticket - head);
+  }
+
+  @Override
+  public QueueEntry<T> first() {
+    return size == 0 ? null : at(head);
+  }
+
+  @Override
+  public QueueEntry<T> successor(QueueEntry<T> entry) {
+    long next = ((Slot<T>) entry).ticket + 1;
+    return next < head + size ? at(next) : null;
+  }
+
+  @Override
+  public void insert(int index, QueueEntry<T> entry) {
+    if (index < 0 || index > size) throw new IndexOutOfBoundsException(index);
+    if (size == slots.length) grow();
+    if (index < size - index) {
+      // shift the front one slot towards the head
+      for (long t = head; t < head + index; t++) place(t - 1, at(t));
+      head--;
+    } else {
+      // shift the back one slot towards the tail
+      for (long t = head + size - 1; t >= head + index; t--) place(t + 1, at(t));
+    }
+    place(head + index, (Slot<T>) entry);
+    size++;
+  }
+
+  @Override
+  public void remove(QueueEntry<T> entry) {
+    int index = indexOf(entry);
+    if (index < size - 1 - index) {
+      for (long t = head + index - 1; t >= head; t--) place(t + 1, at(t));
+      slots[mask(head)] = null;
+      head++;
+    } else {
+      for (long t = head + index + 1; t < head + size; t++) place(t - 1, at(t));
+      slots[mask(head + size - 1)] = null;
+    }
+    size--;
+  }
+
+  @Override
+  public void clear() {
+    slots = newArray(INITIAL_CAPACITY);
+    head = 0;
+    size = 0;
+  }
+
+  private void grow() {
+    Slot<T>[] old = slots;
+    long oldHead = head;
+    slots = newArray(old.length * 2);
+    head = 0;
+    for (int i = 0; i < size; i++) place(i, old[(int) ((oldHead + i) & (old.length - 1))]);
+  }
+
+  private Slot<T> at(long ticket) {
+    return slots[mask(ticket)];
+  }
+
+  private void place(long ticket, Slot<T> slot) {
+    slot.ticket = ticket;
+    slots[mask(ticket)] = slot;
+  }
+
+  private int mask(long ticket) {
+    return (int) (ticket & (slots.length - 1));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends Queueable> Slot<T>[] newArray(int capacity) {
+    return (Slot<T>[]) new Slot<?>[capacity];
+  }
+
+  private static final class Slot<T extends Queueable> extends QueueEntry<T> {
+    private long ticket;
+
+    private Slot(T item) {
+      super(item);
+    }
+  }
+}
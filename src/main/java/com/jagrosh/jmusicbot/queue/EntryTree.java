@@ -0,0 +1,190 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Holds the entries of a queue in a randomized binary search tree ordered by position. Positions
+ * are implicit (derived from subtree sizes), so indexed access, insertion and removal are expected
+ * O(log n), and an entry can find its own position by walking up to the root.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ * @param <T>
+ */
+final class EntryTree<T extends Queueable> implements QueueStore<T> {
+  private Node<T> root;
+
+  @Override
+  public QueueEntry<T> newEntry(T item) {
+    return new Node<>(item);
+  }
+
+  @Override
+  public int size() {
+    return size(root);
+  }
+
+  @Override
+  public QueueEntry<T> get(int index) {
+    if (index < 0 || index >= size()) throw new IndexOutOfBoundsException(index);
+    Node<T> node = root;
+    while (true) {
+      int leftSize = size(node.left);
+      if (index < leftSize) node = node.left;
+      else if (index == leftSize) return node;
+      else {
+        index -= leftSize + 1;
+        node = node.right;
+      }
+    }
+  }
+
+  @Override
+  public int indexOf(QueueEntry<T> entry) {
+    Node<T> node = (Node<T>) entry;
+    int index = size(node.left);
+    for (; node.parent != null; node = node.parent)
+      if (node == node.parent.right) index += size(node.parent.left) + 1;
+    return index;
+  }
+
+  @Override
+  public QueueEntry<T> first() {
+    return root == null ? null : leftmost(root);
+  }
+
+  @Override
+  public QueueEntry<T> successor(QueueEntry<T> entry) {
+    Node<T> node = (Node<T>) entry;
+    if (node.right != null) return leftmost(node.right);
+    while (node.parent != null && node == node.parent.right) node = node.parent;
+    return node.parent;
+  }
+
+  @Override
+  public void insert(int index, QueueEntry<T> entry) {
+    if (index < 0 || index > size()) throw new IndexOutOfBoundsException(index);
+    Node<T> inserted = (Node<T>) entry;
+    inserted.left = null;
+    inserted.right = null;
+    inserted.size = 1;
+    if (root == null) {
+      inserted.parent = null;
+      root = inserted;
+      return;
+    }
+    Node<T> node = root;
+    while (true) {
+      node.size++;
+      int leftSize = size(node.left);
+      if (index <= leftSize) {
+        if (node.left == null) {
+          node.left = inserted;
+          break;
+        }
+        node = node.left;
+      } else {
+        index -= leftSize + 1;
+        if (node.right == null) {
+          node.right = inserted;
+          break;
+        }
+        node = node.right;
+      }
+    }
+    inserted.parent = node;
+    while (inserted.parent != null && inserted.parent.priority < inserted.priority)
+      rotateUp(inserted);
+  }
+
+  @Override
+  public void remove(QueueEntry<T> entry) {
+    Node<T> removed = (Node<T>) entry;
+    while (removed.left != null || removed.right != null) {
+      Node<T> child;
+      if (removed.left == null) child = removed.right;
+      else if (removed.right == null) child = removed.left;
+      else child = removed.left.priority > removed.right.priority ? removed.left : removed.right;
+      rotateUp(child);
+    }
+    Node<T> parent = removed.parent;
+    if (parent == null) root = null;
+    else if (parent.left == removed) parent.left = null;
+    else parent.right = null;
+    for (Node<T> node = parent; node != null; node = node.parent) node.size--;
+    removed.parent = null;
+  }
+
+  @Override
+  public int upperBound(long key) {
+    int index = 0;
+    for (Node<T> node = root; node != null; ) {
+      if (node.key <= key) {
+        index += size(node.left) + 1;
+        node = node.right;
+      } else node = node.left;
+    }
+    return index;
+  }
+
+  @Override
+  public void clear() {
+    root = null;
+  }
+
+  private void rotateUp(Node<T> node) {
+    Node<T> parent = node.parent;
+    Node<T> grandparent = parent.parent;
+    if (node == parent.left) {
+      parent.left = node.right;
+      if (node.right != null) node.right.parent = parent;
+      node.right = parent;
+    } else {
+      parent.right = node.left;
+      if (node.left != null) node.left.parent = parent;
+      node.left = parent;
+    }
+    parent.parent = node;
+    node.parent = grandparent;
+    if (grandparent == null) root = node;
+    else if (grandparent.left == parent) grandparent.left = node;
+    else grandparent.right = node;
+    parent.size = size(parent.left) + size(parent.right) + 1;
+    node.size = size(node.left) + size(node.right) + 1;
+  }
+
+  private static <T extends Queueable> Node<T> leftmost(Node<T> node) {
+    while (node.left != null) node = node.left;
+    return node;
+  }
+
+  private static int size(Node<?> node) {
+    return node == null ? 0 : node.size;
+  }
+
+  private static final class Node<T extends Queueable> extends QueueEntry<T> {
+    private Node<T> left;
+    private Node<T> right;
+    private Node<T> parent;
+    private int size = 1;
+    private final int priority = ThreadLocalRandom.current().nextInt();
+
+    private Node(T item) {
+      super(item);
+    }
+  }
+}
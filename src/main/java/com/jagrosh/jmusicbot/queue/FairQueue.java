@@ -15,32 +15,103 @@
  */
 package com.jagrosh.jmusicbot.queue;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
+ * Interleaves requesters in rounds: an item goes into the first round after the requester's last
+ * entry that does not contain them yet.
+ *
+ * <p>Each entry is keyed by its round and its requester's turn within a round, and the keys follow
+ * queue order, so the end of a round is a single O(log n) search. A requester whose entry is played
+ * takes the last turn from then on. Entries moved by hand take the key of their new position.
+ *
  * @author John Grosh (jagrosh)
  * @param <T>
  */
 public class FairQueue<T extends Queueable> extends AbstractQueue<T> {
   public FairQueue(AbstractQueue<T> queue) {
     super(queue);
+    // entries queued under another queue type keep their order: requesters take their turns in the
+    // order they first show up, and each further entry of theirs opens a new round
+    synchronized (state) {
+      state.turns = 0;
+      long previous = Long.MIN_VALUE;
+      for (QueueEntry<T> entry = entries.first(); entry != null; entry = entries.successor(entry)) {
+        QueueEntry<T> before = entry.prevByRequester;
+        if (before == null) entry.requester.turn = ++state.turns;
+        int round = before == null ? 0 : roundOf(before.key) + 1;
+        entry.key = Math.max(previous, key(round, entry.requester.turn));
+        previous = entry.key;
+      }
+    }
   }
 
-  protected final Set<Long> set = new HashSet<>();
+  @Override
+  protected int place(T item) {
+    if (entries.size() == 0) state.turns = 0;
+    QueueEntry<T> last = lastEntryOf(item.getIdentifier());
+    // entries in front of the rounds, like the lanes of a LaneQueue, have negative keys; requesters
+    // with nothing in the rounds, or only entries placed by hand, take the last turn of this round
+    int round = 0;
+    int turn;
+    if (last == null || last.key < 0 || last.requester.turn == 0) turn = ++state.turns;
+    else {
+      round = roundOf(last.key) + 1;
+      turn = last.requester.turn;
+    }
+    long key = key(round, turn);
+    int index = entries.upperBound(key);
+    QueueEntry<T> entry = insert(index, item);
+    entry.key = key;
+    entry.requester.turn = turn;
+    return index;
+  }
 
   @Override
-  public int add(T item) {
-    int lastIndex;
-    for (lastIndex = list.size() - 1; lastIndex > -1; lastIndex--)
-      if (list.get(lastIndex).getIdentifier() == item.getIdentifier()) break;
-    lastIndex++;
-    set.clear();
-    for (; lastIndex < list.size(); lastIndex++) {
-      if (set.contains(list.get(lastIndex).getIdentifier())) break;
-      set.add(list.get(lastIndex).getIdentifier());
+  void linked(int index, QueueEntry<T> entry) {
+    // keep the entry's key if the position allows it, otherwise take the closest one that does
+    if (index > 0) entry.key = Math.max(entry.key, entries.get(index - 1).key);
+    if (index + 1 < entries.size()) entry.key = Math.min(entry.key, entries.get(index + 1).key);
+  }
+
+  @Override
+  void pulled(List<QueueEntry<T>> heads) {
+    Map<Requester<T>, Integer> played = new IdentityHashMap<>();
+    for (QueueEntry<T> head : heads) {
+      if (head.key < 0 || head.requester.count == 0) continue;
+      head.requester.turn = ++state.turns;
+      played.merge(head.requester, 1, Integer::sum);
+    }
+    if (played.isEmpty()) return;
+    // the requesters' later entries move up a round each time, and to the last turn in it
+    List<QueueEntry<T>> moved = new ArrayList<>();
+    for (Requester<T> requester : played.keySet())
+      for (QueueEntry<T> entry = requester.first; entry != null; entry = entry.nextByRequester)
+        moved.add(entry);
+    if (played.size() > 1) moved.sort(Comparator.comparingInt(entries::indexOf));
+    // only entries moved by hand can end up out of order; they are clamped like in linked()
+    for (int i = moved.size() - 1; i >= 0; i--) {
+      QueueEntry<T> entry = moved.get(i);
+      int round = Math.max(0, roundOf(entry.key) - played.get(entry.requester));
+      entry.key = key(round, entry.requester.turn);
+      QueueEntry<T> next = entries.successor(entry);
+      if (next != null) entry.key = Math.min(entry.key, next.key);
     }
-    list.add(lastIndex, item);
-    return lastIndex;
+    for (QueueEntry<T> entry : moved) {
+      int index = entries.indexOf(entry);
+      if (index > 0) entry.key = Math.max(entry.key, entries.get(index - 1).key);
+    }
+  }
+
+  private static long key(int round, int turn) {
+    return (long) round << 32 | turn;
+  }
+
+  private static int roundOf(long key) {
+    return (int) (key >> 32);
   }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+/**
+ * A fair queue behind two priority lanes: items a DJ wants played next come first, then repeated
+ * items, then everything else in fair rounds. Each lane is first in, first out.
+ *
+ * <p>The priority lanes are keyed below the fair rounds, whose keys are never negative, so the end
+ * of a lane is a single O(log n) search and the rounds simply start behind the priority lanes.
+ * Entries moved by hand join the lane of the position they are moved to.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ * @param <T>
+ */
+public class LaneQueue<T extends Queueable> extends FairQueue<T> {
+  private static final long NEXT = -2;
+  private static final long REPEAT = -1;
+
+  // entries queued under another queue type all start out in the fair rounds
+  public LaneQueue(AbstractQueue<T> queue) {
+    super(queue);
+  }
+
+  @Override
+  public int addNext(T item) {
+    return addToLane(item, NEXT);
+  }
+
+  @Override
+  public int addRepeat(T item) {
+    return addToLane(item, REPEAT);
+  }
+
+  private int addToLane(T item, long lane) {
+    synchronized (state) {
+      int index = entries.upperBound(lane);
+      insert(index, item).key = lane;
+      return modified(index);
+    }
+  }
+}
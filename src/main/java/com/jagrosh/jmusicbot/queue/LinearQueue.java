@@ -24,9 +24,14 @@ public class LinearQueue<T extends Queueable> extends AbstractQueue<T> {
     super(queue);
   }
 
+  LinearQueue(QueueStore<T> entries) {
+    super(entries);
+  }
+
   @Override
-  public int add(T item) {
-    list.add(item);
-    return list.size() - 1;
+  protected int place(T item) {
+    int index = size();
+    insert(index, item);
+    return index;
   }
 }
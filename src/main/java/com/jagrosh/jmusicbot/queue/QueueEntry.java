@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+/**
+ * A single slot of a queue. Besides the item itself, an entry is a link in the chain of entries
+ * queued by the same requester. Each {@link QueueStore} extends it with its own bookkeeping.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ * @param <T>
+ */
+class QueueEntry<T extends Queueable> {
+  T item;
+  Requester<T> requester;
+
+  // links of the requester's chain, in queue order
+  QueueEntry<T> prevByRequester;
+  QueueEntry<T> nextByRequester;
+
+  // sort key for queue types that keep their entries ordered, non-decreasing in queue order
+  long key;
+
+  QueueEntry(T item) {
+    this.item = item;
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+/**
+ * Thrown when an item does not fit into a queue's {@link QueueLimits}. The message is meant for
+ * the requester.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class QueueLimitException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public QueueLimitException(String message) {
+    super(message);
+  }
+}
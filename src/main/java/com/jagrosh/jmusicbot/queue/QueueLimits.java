@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+import com.jagrosh.jmusicbot.utils.TimeUtil;
+
+/**
+ * How much a queue, and every requester in it, may hold. Sizes count entries, times are in
+ * seconds. A value of 0 means no limit; a negative value means not set, which only matters when the
+ * limits are {@link #overriddenBy overriding} others.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public final class QueueLimits {
+  public static final QueueLimits NONE = new QueueLimits(-1, -1, -1, -1);
+
+  private final int maxQueueSize;
+  private final long maxQueueTime;
+  private final int maxUserQueueSize;
+  private final long maxUserQueueTime;
+
+  public QueueLimits(
+      int maxQueueSize, long maxQueueTime, int maxUserQueueSize, long maxUserQueueTime) {
+    this.maxQueueSize = maxQueueSize;
+    this.maxQueueTime = maxQueueTime;
+    this.maxUserQueueSize = maxUserQueueSize;
+    this.maxUserQueueTime = maxUserQueueTime;
+  }
+
+  public int getMaxQueueSize() {
+    return maxQueueSize;
+  }
+
+  public long getMaxQueueTime() {
+    return maxQueueTime;
+  }
+
+  public int getMaxUserQueueSize() {
+    return maxUserQueueSize;
+  }
+
+  public long getMaxUserQueueTime() {
+    return maxUserQueueTime;
+  }
+
+  /**
+   * @param overrides limits to take precedence wherever they are set
+   * @return the combined limits
+   */
+  public QueueLimits overriddenBy(QueueLimits overrides) {
+    if (overrides == null) return this;
+    return new QueueLimits(
+        overrides.maxQueueSize < 0 ? maxQueueSize : overrides.maxQueueSize,
+        overrides.maxQueueTime < 0 ? maxQueueTime : overrides.maxQueueTime,
+        overrides.maxUserQueueSize < 0 ? maxUserQueueSize : overrides.maxUserQueueSize,
+        overrides.maxUserQueueTime < 0 ? maxUserQueueTime : overrides.maxUserQueueTime);
+  }
+
+  /**
+   * Checks the totals a queue would have after adding an item
+   *
+   * @param size the number of entries in the queue
+   * @param duration the duration of the queue, in milliseconds
+   * @param userSize the number of entries of the item's requester
+   * @param userDuration the duration of the requester's entries, in milliseconds
+   * @return why the totals are not allowed, or null if they are
+   */
+  String violation(int size, long duration, int userSize, long userDuration) {
+    if (maxQueueSize > 0 && size > maxQueueSize)
+      return "The queue is full (" + maxQueueSize + " entries)";
+    if (maxQueueTime > 0 && duration > maxQueueTime * 1000)
+      return "The queue is full (" + TimeUtil.formatTime(maxQueueTime * 1000) + ")";
+    if (maxUserQueueSize > 0 && userSize > maxUserQueueSize)
+      return "You can only have " + maxUserQueueSize + " entries in the queue";
+    if (maxUserQueueTime > 0 && userDuration > maxUserQueueTime * 1000)
+      return "You can only have "
+          + TimeUtil.formatTime(maxUserQueueTime * 1000)
+          + " of music in the queue";
+    return null;
+  }
+}
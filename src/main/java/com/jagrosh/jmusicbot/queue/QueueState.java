@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+import java.util.List;
+
+/**
+ * The contents of a queue, shared by every {@link AbstractQueue} built on top of each other when
+ * the queue type changes. The state object is also the lock guarding the contents, so all views of
+ * the same queue exclude each other.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ * @param <T>
+ */
+final class QueueState<T extends Queueable> {
+  final QueueStore<T> entries;
+  final RequesterIndex<T> requesters = new RequesterIndex<>();
+
+  // running totals over all entries, kept up to date on every change
+  long duration;
+  int streams;
+
+  // the last turn a fair queue handed out to a requester
+  int turns;
+
+  QueueLimits limits = QueueLimits.NONE;
+
+  // immutable copy of the queue, published to readers until the next modification
+  volatile List<T> snapshot = List.of();
+
+  QueueState(QueueStore<T> entries) {
+    this.entries = entries;
+  }
+}
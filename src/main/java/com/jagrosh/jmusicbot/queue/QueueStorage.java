@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+import java.util.function.Supplier;
+
+/**
+ * The kinds of storage a queue can be backed by.
+ *
+ * <ul>
+ *   <li>{@code TREE}: indexed access, insertion, removal and moves in O(log n) anywhere
+ *   <li>{@code ARRAY}: O(1) indexed access and operations at either end, O(min(i, n - i))
+ *       insertion and removal at position i
+ * </ul>
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public enum QueueStorage {
+  TREE(EntryTree::new),
+  ARRAY(EntryArray::new);
+
+  private final Supplier<QueueStore<?>> supplier;
+
+  QueueStorage(Supplier<QueueStore<?>> supplier) {
+    this.supplier = supplier;
+  }
+
+  /**
+   * Creates an empty queue on this storage, to be converted by {@code QueueType.createInstance}
+   *
+   * @param <T>
+   * @return an empty queue
+   */
+  public <T extends Queueable> AbstractQueue<T> createQueue() {
+    return new LinearQueue<>(this.<T>createStore());
+  }
+
+  @SuppressWarnings("unchecked")
+  <T extends Queueable> QueueStore<T> createStore() {
+    return (QueueStore<T>) supplier.get();
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Positional storage behind a queue. Entries are created by the store, so that each store can keep
+ * its own bookkeeping on them and find their position without searching.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ * @param <T>
+ */
+interface QueueStore<T extends Queueable> {
+  QueueEntry<T> newEntry(T item);
+
+  int size();
+
+  QueueEntry<T> get(int index);
+
+  int indexOf(QueueEntry<T> entry);
+
+  /**
+   * @return the entry at position 0, or null if the store is empty
+   */
+  QueueEntry<T> first();
+
+  /**
+   * @return the entry after the given one, or null if it is the last
+   */
+  QueueEntry<T> successor(QueueEntry<T> entry);
+
+  /**
+   * Places a detached entry at the given position
+   *
+   * @param index the position of the entry, between 0 and size() inclusive
+   * @param entry an entry created by this store
+   */
+  void insert(int index, QueueEntry<T> entry);
+
+  /**
+   * Detaches an entry from the store
+   *
+   * @param entry an entry currently in this store
+   */
+  void remove(QueueEntry<T> entry);
+
+  void clear();
+
+  /**
+   * Finds where an entry with the given key goes, assuming the keys are non-decreasing in queue
+   * order
+   *
+   * @param key the key to search for
+   * @return the position after the last entry whose key is at most the given one
+   */
+  default int upperBound(long key) {
+    int low = 0;
+    int high = size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (get(mid).key <= key) low = mid + 1;
+      else high = mid;
+    }
+    return low;
+  }
+
+  /**
+   * @return a read-only view of the items, in queue order
+   */
+  default List<T> items() {
+    return new AbstractList<>() {
+      @Override
+      public T get(int index) {
+        return QueueStore.this.get(index).item;
+      }
+
+      @Override
+      public int size() {
+        return QueueStore.this.size();
+      }
+
+      @Override
+      public Iterator<T> iterator() {
+        return new Iterator<>() {
+          private QueueEntry<T> next = first();
+
+          @Override
+          public boolean hasNext() {
+            return next != null;
+          }
+
+          @Override
+          public T next() {
+            if (next == null) throw new NoSuchElementException();
+            T item = next.item;
+            next = successor(next);
+            return item;
+          }
+        };
+      }
+    };
+  }
+}
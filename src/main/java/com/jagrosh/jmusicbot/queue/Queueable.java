@@ -21,4 +21,18 @@ package com.jagrosh.jmusicbot.queue;
 public interface Queueable {
 
   long getIdentifier();
+
+  /**
+   * @return how long the item takes to play in milliseconds, or 0 if it is not known
+   */
+  default long getDuration() {
+    return 0L;
+  }
+
+  /**
+   * @return whether the item is a live stream, whose duration is meaningless
+   */
+  default boolean isStream() {
+    return false;
+  }
 }
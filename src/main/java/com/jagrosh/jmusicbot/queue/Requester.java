@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+/**
+ * Everything a queue knows about one requester: the chain of their entries in queue order.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ * @param <T>
+ */
+final class Requester<T extends Queueable> {
+  final long identifier;
+  QueueEntry<T> first;
+  QueueEntry<T> last;
+  int count;
+  // total duration of the requester's items, live streams excluded
+  long duration;
+
+  // the requester's turn in each round of a fair queue, later turns come later in a round; 0 until
+  // they have one
+  int turn;
+
+  Requester(long identifier) {
+    this.identifier = identifier;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.queue;
+
+/**
+ * Maps requester identifiers to their {@link Requester} without boxing the identifiers. Uses open
+ * addressing with linear probing; removal shifts the following entries back so no tombstones are
+ * left behind.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ * @param <T>
+ */
+final class RequesterIndex<T extends Queueable> {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] keys = new long[INITIAL_CAPACITY];
+  private Requester<T>[] values = newArray(INITIAL_CAPACITY);
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  Requester<T> get(long identifier) {
+    int mask = keys.length - 1;
+    for (int slot = slot(identifier, mask); values[slot] != null; slot = (slot + 1) & mask)
+      if (keys[slot] == identifier) return values[slot];
+    return null;
+  }
+
+  /**
+   * @return the requester for the identifier, created and indexed if it was not known yet
+   */
+  Requester<T> getOrCreate(long identifier) {
+    int mask = keys.length - 1;
+    int slot = slot(identifier, mask);
+    for (; values[slot] != null; slot = (slot + 1) & mask)
+      if (keys[slot] == identifier) return values[slot];
+    Requester<T> requester = new Requester<>(identifier);
+    keys[slot] = identifier;
+    values[slot] = requester;
+    // keep the load factor at or below one half
+    if (++size * 2 > keys.length) resize(keys.length * 2);
+    return requester;
+  }
+
+  void remove(long identifier) {
+    int mask = keys.length - 1;
+    int slot = slot(identifier, mask);
+    while (true) {
+      if (values[slot] == null) return;
+      if (keys[slot] == identifier) break;
+      slot = (slot + 1) & mask;
+    }
+    size--;
+    // shift back every following entry whose probe sequence passes the freed slot
+    int free = slot;
+    for (int next = (free + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+      int home = slot(keys[next], mask);
+      if (((next - home) & mask) >= ((next - free) & mask)) {
+        keys[free] = keys[next];
+        values[free] = values[next];
+        free = next;
+      }
+    }
+    values[free] = null;
+  }
+
+  void clear() {
+    if (size == 0) return;
+    keys = new long[INITIAL_CAPACITY];
+    values = newArray(INITIAL_CAPACITY);
+    size = 0;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    Requester<T>[] oldValues = values;
+    keys = new long[capacity];
+    values = newArray(capacity);
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] == null) continue;
+      int slot = slot(oldKeys[i], mask);
+      while (values[slot] != null) slot = (slot + 1) & mask;
+      keys[slot] = oldKeys[i];
+      values[slot] = oldValues[i];
+    }
+  }
+
+  private static int slot(long identifier, int mask) {
+    // snowflakes share their high timestamp bits, so mix before masking
+    long hash = identifier * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends Queueable> Requester<T>[] newArray(int capacity) {
+    return (Requester<T>[]) new Requester<?>[capacity];
+  }
+}
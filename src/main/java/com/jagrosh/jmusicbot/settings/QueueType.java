@@ -16,7 +16,9 @@
 package com.jagrosh.jmusicbot.settings;
 
 import com.jagrosh.jmusicbot.queue.AbstractQueue;
+import com.jagrosh.jmusicbot.queue.AirtimeQueue;
 import com.jagrosh.jmusicbot.queue.FairQueue;
+import com.jagrosh.jmusicbot.queue.LaneQueue;
 import com.jagrosh.jmusicbot.queue.LinearQueue;
 import com.jagrosh.jmusicbot.queue.QueueSupplier;
 import com.jagrosh.jmusicbot.queue.Queueable;
@@ -28,7 +30,9 @@ import java.util.List;
  */
 public enum QueueType {
   LINEAR("\u23E9", "Linear", LinearQueue::new), // ⏩
-  FAIR("\uD83D\uDD22", "Fair", FairQueue::new); // 🔢
+  FAIR("\uD83D\uDD22", "Fair", FairQueue::new), // 🔢
+  AIRTIME("\u23F1", "Airtime", AirtimeQueue::new), // ⏱
+  PRIORITY("\u23EB", "Priority", LaneQueue::new); // ⏫
 
   private final String userFriendlyName;
   private final String emoji;
@@ -16,6 +16,7 @@
 package com.jagrosh.jmusicbot.settings;
 
 import com.jagrosh.jmusicbot.jdautils.GuildSettingsProvider;
+import com.jagrosh.jmusicbot.queue.QueueLimits;
 import java.util.Collection;
 import java.util.Collections;
 import net.dv8tion.jda.api.entities.Guild;
@@ -37,6 +38,7 @@ public class Settings implements GuildSettingsProvider {
   private QueueType queueType;
   private String prefix;
   private double skipRatio;
+  private QueueLimits queueLimits;
 
   public Settings(
       SettingsManager manager,
@@ -48,7 +50,8 @@ public class Settings implements GuildSettingsProvider {
       RepeatMode repeatMode,
       String prefix,
       double skipRatio,
-      QueueType queueType) {
+      QueueType queueType,
+      QueueLimits queueLimits) {
     this.manager = manager;
     try {
       this.textId = Long.parseLong(textId);
@@ -71,6 +74,7 @@ public class Settings implements GuildSettingsProvider {
     this.prefix = prefix;
     this.skipRatio = skipRatio;
     this.queueType = queueType;
+    this.queueLimits = queueLimits;
   }
 
   public Settings(
@@ -83,7 +87,8 @@ public class Settings implements GuildSettingsProvider {
       RepeatMode repeatMode,
       String prefix,
       double skipRatio,
-      QueueType queueType) {
+      QueueType queueType,
+      QueueLimits queueLimits) {
     this.manager = manager;
     this.textId = textId;
     this.voiceId = voiceId;
@@ -94,6 +99,7 @@ public class Settings implements GuildSettingsProvider {
     this.prefix = prefix;
     this.skipRatio = skipRatio;
     this.queueType = queueType;
+    this.queueLimits = queueLimits;
   }
 
   // Getters
@@ -133,6 +139,10 @@ public class Settings implements GuildSettingsProvider {
     return queueType;
   }
 
+  public QueueLimits getQueueLimits() {
+    return queueLimits;
+  }
+
   @Override
   public Collection<String> getPrefixes() {
     return prefix == null ? Collections.emptySet() : Collections.singleton(prefix);
@@ -178,4 +188,9 @@ public class Settings implements GuildSettingsProvider {
     this.queueType = queueType;
     this.manager.writeSettings();
   }
+
+  public void setQueueLimits(QueueLimits queueLimits) {
+    this.queueLimits = queueLimits;
+    this.manager.writeSettings();
+  }
 }
@@ -16,6 +16,7 @@
 package com.jagrosh.jmusicbot.settings;
 
 import com.jagrosh.jmusicbot.jdautils.GuildSettingsManager;
+import com.jagrosh.jmusicbot.queue.QueueLimits;
 import com.jagrosh.jmusicbot.utils.OtherUtil;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -70,7 +71,12 @@ public class SettingsManager implements GuildSettingsManager<Settings> {
                         o.has("skip_ratio") ? o.getDouble("skip_ratio") : -1,
                         o.has("queue_type")
                             ? o.getEnum(QueueType.class, "queue_type")
-                            : QueueType.FAIR));
+                            : QueueType.FAIR,
+                        new QueueLimits(
+                            o.optInt("max_queue_size", -1),
+                            o.optLong("max_queue_time", -1),
+                            o.optInt("max_user_queue_size", -1),
+                            o.optLong("max_user_queue_time", -1))));
               });
     } catch (NoSuchFileException e) {
       // create an empty json file
@@ -109,7 +115,8 @@ public class SettingsManager implements GuildSettingsManager<Settings> {
   }
 
   private Settings createDefaultSettings() {
-    return new Settings(this, 0, 0, 0, 100, null, RepeatMode.OFF, null, -1, QueueType.FAIR);
+    return new Settings(
+        this, 0, 0, 0, 100, null, RepeatMode.OFF, null, -1, QueueType.FAIR, QueueLimits.NONE);
   }
 
   protected void writeSettings() {
@@ -128,6 +135,13 @@ public class SettingsManager implements GuildSettingsManager<Settings> {
               if (s.getPrefix() != null) o.put("prefix", s.getPrefix());
               if (s.getSkipRatio() != -1) o.put("skip_ratio", s.getSkipRatio());
               if (s.getQueueType() != QueueType.FAIR) o.put("queue_type", s.getQueueType().name());
+              QueueLimits limits = s.getQueueLimits();
+              if (limits.getMaxQueueSize() >= 0) o.put("max_queue_size", limits.getMaxQueueSize());
+              if (limits.getMaxQueueTime() >= 0) o.put("max_queue_time", limits.getMaxQueueTime());
+              if (limits.getMaxUserQueueSize() >= 0)
+                o.put("max_user_queue_size", limits.getMaxUserQueueSize());
+              if (limits.getMaxUserQueueTime() >= 0)
+                o.put("max_user_queue_time", limits.getMaxUserQueueTime());
               obj.put(Long.toString(key), o);
             });
     try {
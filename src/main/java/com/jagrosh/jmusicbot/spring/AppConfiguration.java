@@ -1,5 +1,7 @@
 package com.jagrosh.jmusicbot.spring;
 
+import com.jagrosh.jmusicbot.queue.QueueLimits;
+import com.jagrosh.jmusicbot.queue.QueueStorage;
 import com.jagrosh.jmusicbot.utils.OtherUtil;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import java.util.HashMap;
@@ -87,6 +89,120 @@ public class AppConfiguration {
   // automatically leaves the voice channel and clears the queue. If not set or set
   // to any number less than or equal to zero, the bot won't leave when alone.
   private Long alonetimeuntilstop;
+  // This sets how many seconds before the end of a track the next track in the queue starts
+  // loading, so it can take over without a gap. If set to 0, the next track only starts loading
+  // once the current one has ended.
+  private long lookahead = 10;
+  // This sets the amount of seconds a guild's player is kept after it last played something, as
+  // long as the bot is not in a voice channel there. After that, the player and its queue are
+  // freed, and recreated when the guild plays music again. If not set or set to any number less
+  // than or equal to zero, players are kept forever.
+  private long idletimeuntilevict = 1800;
+  // This sets how many freed players are kept around to be reused by the next guild that needs
+  // one.
+  private int playerpoolsize = 32;
+  // This sets how many megabytes of disk space the opus frames of played tracks may take up, so
+  // replays are served from disk instead of being downloaded and transcoded again. The least
+  // recently played tracks are dropped first. If set to 0, nothing is cached.
+  private long opuscachesize = 0;
+  // This sets the folder the cached frames are kept in
+  // This can be a relative or absolute path
+  private String opuscachefolder = "opuscache";
+  // This sets how many megabytes of memory the frames of tracks that are playing may take up
+  // while they are recorded for the cache, all guilds' together. Tracks that do not fit are
+  // played as usual but not cached.
+  private long opuscacherecording = 64;
+  // This sets how many megabytes of disk space the downloaded bytes of files played over HTTP,
+  // SoundCloud and Bandcamp may take up, so seeks into what was already downloaded and replays
+  // are served from disk. The least recently used files are dropped first. If set to 0, nothing
+  // is cached.
+  private long httpcachesize = 0;
+  // This sets the folder the downloaded bytes are kept in
+  // This can be a relative or absolute path
+  private String httpcachefolder = "httpcache";
+  // This sets how many tracks the results of recent loads and searches may hold together, so
+  // the same link or search played again shortly after is answered without asking the source.
+  // The least recently used results are dropped first. If set to 0, nothing is cached.
+  private long loadcachesize = 10000;
+  // This sets how many seconds the result of a load or search is kept for
+  private long loadcachettl = 3600;
+  // This sets how many seconds a load or search that found nothing is remembered for
+  private long loadcachenomatchttl = 60;
+  // This sets how many threads load links and searches, for all sources together.
+  private int loaderthreads = 10;
+  // This sets how many loads each source may run at once. Loads beyond that wait for their turn,
+  // so a slow source cannot hold up loads from the others. If set to 0, loads are not limited.
+  private int loaderconcurrency = 2;
+  // This sets how many loads may wait for their turn at each source. Loads that find the line
+  // full are turned away right away, with a message that the source is busy. Every load that runs
+  // or waits holds one of the loader threads, so a source's loads and those waiting for it
+  // should come to well below loaderthreads, or a source that hangs holds up all the others.
+  private int loaderqueue = 1;
+  // This sets how many seconds a load may wait for its turn at its source before it is given up
+  // on. Once it is their turn, loads whose site stops answering fail after httptimeout.
+  private long loadertimeout = 10;
+  // These override the three settings above for single sources, by the source's name, e.g.
+  // soundcloud, youtube, http, local or the name of a transform. The http source counts links
+  // to sites no other source is for, and the local source paths of files.
+  //
+  // Example: letting SoundCloud run two loads at once, with one waiting, for five seconds each:
+  // soundcloud = { concurrency = 2, queue = 1, timeout = 5 }
+  private Map<String, SourceLimitsConfig> loaderlimits = new HashMap<>();
+  // If set to true, searches and links to known sites are sent straight to the source they belong
+  // to, instead of being offered to every source in turn until one takes them.
+  private boolean loaderrouting = true;
+  // This sets how many of each source's latest loads its breaker judges it by. When too many of
+  // them failed or took too long, loads from that source fail right away for a while, instead of
+  // each waiting for it to time out. If set to 0, sources are never cut off.
+  private int breakerwindow = 20;
+  // This sets the percentage of those loads that may fail before the source is cut off
+  private int breakerfailurerate = 50;
+  // This sets how many seconds nine in ten of those loads may take before the source is cut off,
+  // not counting the time they waited for their turn. If set to 0, slow sources are not cut off.
+  private long breakerlatency = 10;
+  // This sets how many seconds a source is cut off for before a single load is let through to try
+  // it again. The source stays cut off if that load fails too.
+  private long breakeropen = 30;
+  // These set up the HTTP connections every source and transform shares. This sets how many may be
+  // open at once, to all sites together.
+  private int httpmaxconnections = 3000;
+  // This sets how many connections may be open at once to a single site. Each track playing from a
+  // site keeps one open while it plays.
+  private int httpmaxperhost = 1500;
+  // These override the setting above for single sites, by host name. Host names go in brackets so
+  // their dots are kept.
+  //
+  // Example: allowing only 50 connections to SoundCloud's API at once:
+  // "[api-v2.soundcloud.com]" = 50
+  private Map<String, Integer> httphostlimits = new HashMap<>();
+  // This sets how many seconds an idle connection is kept open for, so the next request to the
+  // same site can skip connecting. Sites may close them sooner.
+  private long httpkeepalive = 30;
+  // This sets how many seconds the address a site's name resolved to is reused for.
+  private long httpdnsttl = 60;
+  // This sets how many seconds connecting to a site, and each wait for more of its answer, may
+  // take before the request fails. This bounds how long a load holds its loader thread when a site
+  // stops answering. If set to 0, requests wait as long as the sources themselves let them.
+  private long httptimeout = 10;
+  // This sets the storage behind every guild's queue.
+  // Valid values: TREE ARRAY
+  // TREE keeps indexed access, inserts, removals and moves at O(log n) anywhere in the queue and
+  // is the best choice for large queues. ARRAY makes indexed access and both ends of the queue
+  // O(1), but inserting into the middle shifts entries, so it is best for small queues.
+  private QueueStorage queuestorage = QueueStorage.TREE;
+  // If you set this, queued tracks are kept encoded instead of as full track objects, and are
+  // decoded again when they are played or shown. This greatly reduces the memory used by large
+  // queues, at the cost of some CPU time when rendering the queue.
+  private boolean compactqueue;
+  // These limit how much can be queued, in the whole queue and per user. Sizes are numbers of
+  // entries, times are in seconds. If not set or set to any number less than or equal to zero,
+  // there is no limit. Guilds can override each of these with the queuelimits command, which
+  // keeps them in serversettings.json with the keys max_queue_size, max_queue_time,
+  // max_user_queue_size and max_user_queue_time.
+  private int maxqueuesize;
+  private long maxqueuetime;
+  private int maxuserqueuesize;
+  private long maxuserqueuetime;
   // This sets an alternative folder to be used as the Playlists folder
   // This can be a relative or absolute path
   private String playlistsfolder;
@@ -117,6 +233,13 @@ public class AppConfiguration {
   // entirely
   // removed in the future if I find a better way to do this.
   private Map<String, TransformativeAudioSourceManagerConfig> transforms = new HashMap<>();
+  // This sets how many seconds a transform may take to fetch the page it reads, in all, before it
+  // gives up on it. Each request of the load that follows may wait as long for an answer. If set
+  // to 0, neither is limited.
+  private long transformtimeout = 5;
+  // This sets how many seconds what a transform read from a page is reused for, instead of
+  // fetching the page again. If set to 0, the page is fetched for every load.
+  private long transformcachettl = 600;
 
   private String poToken;
   private String visitorData;
@@ -138,11 +261,23 @@ public class AppConfiguration {
     return activity != null && activity.getName().equalsIgnoreCase("none");
   }
 
+  public QueueLimits parseQueueLimits() {
+    return new QueueLimits(maxqueuesize, maxqueuetime, maxuserqueuesize, maxuserqueuetime);
+  }
+
   public boolean calcIsTooLong(AudioTrack track) {
     if (maxtime <= 0) return false;
     return Math.round(track.getDuration() / 1000.0) > maxtime;
   }
 
+  @Data
+  public static class SourceLimitsConfig {
+    // null for any of these means the general setting applies
+    private Integer concurrency;
+    private Integer queue;
+    private Long timeout;
+  }
+
   @Data
   public static class TransformativeAudioSourceManagerConfig {
     private String regex;
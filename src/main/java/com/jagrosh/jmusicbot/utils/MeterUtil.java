@@ -0,0 +1,49 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class MeterUtil {
+
+  public static Counter counter(
+      MeterRegistry registry, String name, String description, Tags tags) {
+    return Counter.builder(name).description(description).tags(tags).register(registry);
+  }
+
+  public static Counter counter(
+      MeterRegistry registry, String name, String description, String... tags) {
+    return counter(registry, name, description, Tags.of(tags));
+  }
+
+  /**
+   * @param percentiles the percentiles the timer publishes, if any
+   */
+  public static Timer timer(
+      MeterRegistry registry, String name, String description, Tags tags, double... percentiles) {
+    return Timer.builder(name)
+        .description(description)
+        .tags(tags)
+        .publishPercentiles(percentiles)
+        .register(registry);
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.QueueModel.Op;
+import com.jagrosh.jmusicbot.QueueModel.Q;
+import com.jagrosh.jmusicbot.queue.AbstractQueue;
+import com.jagrosh.jmusicbot.queue.AirtimeQueue;
+import com.jagrosh.jmusicbot.queue.LinearQueue;
+import com.jagrosh.jmusicbot.queue.QueueStorage;
+import com.jagrosh.jmusicbot.settings.QueueType;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class AirtimeQueueTest {
+  private static final long MINUTE = 60_000;
+  private static final Set<Op> OPS =
+      EnumSet.of(Op.ADD, Op.PULL, Op.REMOVE, Op.REMOVE_ALL, Op.MOVE, Op.ADD_AT);
+
+  @Test
+  public void longTracksWaitForEqualAirtime() {
+    AirtimeQueue<Q> queue = new AirtimeQueue<>(null);
+    Q mix = new Q(1, 180 * MINUTE);
+    assertEquals(0, queue.add(mix));
+    for (int i = 0; i < 60; i++) assertEquals(i + 1, queue.add(new Q(2, 3 * MINUTE)));
+    // the second mix only plays once the other requester has had three hours too
+    assertEquals(61, queue.add(new Q(1, 180 * MINUTE)));
+    // ties go to whoever queued first
+    assertEquals(62, queue.add(new Q(2, 3 * MINUTE)));
+    assertSame(mix, queue.pull());
+  }
+
+  @Test
+  public void switchingTypesKeepsTheOrder() {
+    AbstractQueue<Q> queue = new LinearQueue<>(null);
+    for (int i = 0; i < 3; i++) queue.add(new Q(0, 10 * MINUTE));
+    queue.add(new Q(1, MINUTE));
+    List<Q> before = queue.getList();
+    queue = QueueType.AIRTIME.createInstance(queue);
+    assertEquals(before, queue.getList());
+    // a new requester goes right behind the head, the others behind their earlier entries
+    assertEquals(1, queue.add(new Q(2, MINUTE)));
+    assertEquals(5, queue.add(new Q(0, MINUTE)));
+  }
+
+  @Test
+  public void runningTotalsLeaveStreamsOut() {
+    AirtimeQueue<Q> queue = new AirtimeQueue<>(null);
+    queue.add(new Q(1, 3 * MINUTE));
+    queue.add(new Q(1, Long.MAX_VALUE));
+    queue.add(new Q(2, 5 * MINUTE));
+    assertEquals(8 * MINUTE, queue.getTotalDuration());
+    assertEquals(1, queue.getStreamCount());
+    assertEquals(3 * MINUTE, queue.durationOf(1));
+    assertEquals(2, queue.countOf(1));
+    // the newcomer went second, so only the stream is left
+    queue.skip(2);
+    assertEquals(0, queue.getTotalDuration());
+    assertEquals(1, queue.getStreamCount());
+    assertEquals(0, queue.durationOf(2));
+    queue.removeAll(1);
+    assertEquals(0, queue.getStreamCount());
+  }
+
+  @Test
+  public void matchesReferenceImplementationOnTree() {
+    QueueModel.check(new AirtimeQueue<>(QueueStorage.TREE.createQueue()), new Reference(), OPS);
+  }
+
+  @Test
+  public void matchesReferenceImplementationOnArray() {
+    QueueModel.check(new AirtimeQueue<>(QueueStorage.ARRAY.createQueue()), new Reference(), OPS);
+  }
+
+  /** A plain list version of the airtime rules, with the key each entry was placed by */
+  private static class Reference implements QueueModel.Reference {
+    private final List<Long> keys = new ArrayList<>();
+
+    @Override
+    public int add(List<Q> list, Q item) {
+      long key = keys.isEmpty() ? 0 : keys.get(0);
+      for (int i = list.size() - 1; i >= 0; i--) {
+        if (list.get(i).getIdentifier() == item.getIdentifier()) {
+          key = keys.get(i) + list.get(i).getDuration();
+          break;
+        }
+      }
+      int index = 0;
+      while (index < keys.size() && keys.get(index) <= key) index++;
+      list.add(index, item);
+      keys.add(index, key);
+      return index;
+    }
+
+    @Override
+    public void removed(List<Q> list, int index) {
+      keys.remove(index);
+    }
+
+    @Override
+    public void inserted(List<Q> list, int index) {
+      // entries put in place take the key of the one they went behind
+      keys.add(index, index > 0 ? keys.get(index - 1) : keys.isEmpty() ? 0 : keys.get(0));
+    }
+  }
+}
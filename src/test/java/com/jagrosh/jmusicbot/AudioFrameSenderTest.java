@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.AudioFrameSender;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrameProvider;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class AudioFrameSenderTest {
+  // a second of audio per iteration, at 50 frames per second
+  private static final int FRAMES = 50;
+
+  @Test
+  public void passesFramesOn() {
+    AudioFrameSender sender = new AudioFrameSender();
+    FakePlayer player = new FakePlayer();
+    for (int length : new int[] {120, 3, 0, 160}) {
+      player.length = length;
+      assertTrue(sender.provide(player));
+      ByteBuffer data = sender.getData();
+      assertEquals(length, data.remaining());
+      for (int i = 0; i < length; i++) assertEquals(player.data[i], data.get());
+    }
+    player.length = -1;
+    assertFalse(sender.provide(player));
+  }
+
+  @Test
+  public void sendingAllocatesNothing() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    AudioFrameSender sender = new AudioFrameSender();
+    FakePlayer player = new FakePlayer();
+    // warm up, so the measurement is of compiled code
+    send(sender, player, 20_000);
+    int seconds = 2_000;
+    long before = threads.getThreadAllocatedBytes(thread);
+    long sent = send(sender, player, seconds);
+    long allocated = threads.getThreadAllocatedBytes(thread) - before;
+    assertEquals((long) seconds * FRAMES * player.length, sent);
+    // allows for the bookkeeping of the measurement itself, but not for a single byte per frame
+    assertTrue(
+        "allocated " + allocated + " bytes for " + seconds * FRAMES + " frames",
+        allocated < (long) seconds * FRAMES);
+  }
+
+  private static long send(AudioFrameSender sender, FakePlayer player, int seconds) {
+    long sent = 0;
+    for (int i = 0; i < seconds * FRAMES; i++) {
+      if (sender.provide(player)) sent += sender.getData().remaining();
+    }
+    return sent;
+  }
+
+  /** Provides the same frame over and over, like a player would */
+  private static class FakePlayer implements AudioFrameProvider {
+    private final byte[] data = new byte[200];
+    private int length = 160;
+
+    private FakePlayer() {
+      for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+    }
+
+    @Override
+    public AudioFrame provide() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AudioFrame provide(long timeout, TimeUnit unit) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean provide(MutableAudioFrame targetFrame) {
+      if (length < 0) return false;
+      targetFrame.store(data, 0, length);
+      return true;
+    }
+
+    @Override
+    public boolean provide(MutableAudioFrame targetFrame, long timeout, TimeUnit unit) {
+      return provide(targetFrame);
+    }
+  }
+}
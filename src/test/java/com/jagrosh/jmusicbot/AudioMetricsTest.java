@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.AudioMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class AudioMetricsTest {
+  @Test
+  public void countsUnderrunsOnceTheTrackIsUnderWay() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    AudioMetrics metrics = new AudioMetrics(registry, 42);
+    metrics.trackStarted();
+    // still starting up
+    for (int i = 0; i < 10; i++) metrics.frameMissed();
+    metrics.frameSent();
+    assertEquals(0, metrics.getFramesMissed());
+    assertEquals(1, metrics.getFirstFrame().count());
+    for (int i = 0; i < 3; i++) metrics.frameMissed();
+    metrics.frameSent();
+    for (int i = 0; i < 5; i++) metrics.frameMissed();
+    metrics.frameSent();
+    metrics.frameMissed();
+    assertEquals(3, metrics.getFramesSent());
+    assertEquals(9, metrics.getFramesMissed());
+    assertEquals(5, metrics.getLongestUnderrun());
+    assertEquals(
+        9.0,
+        registry.get("jmusicbot.audio.frames.missed").tag("guild", "42").counter().count(),
+        0);
+    assertEquals(
+        5.0,
+        registry.get("jmusicbot.audio.underrun.longest").tag("guild", "42").gauge().value(),
+        0);
+  }
+
+  @Test
+  public void timesTransitionsThatLeadToATrack() {
+    AudioMetrics metrics = new AudioMetrics(new SimpleMeterRegistry(), 42);
+    metrics.transitionStarted();
+    metrics.transitionCancelled();
+    metrics.frameSent();
+    assertEquals(0, metrics.getTransitionGap().count());
+    metrics.transitionStarted();
+    metrics.trackStarted();
+    metrics.frameSent();
+    metrics.frameSent();
+    assertEquals(1, metrics.getTransitionGap().count());
+    assertEquals(1, metrics.getFirstFrame().count());
+  }
+
+  @Test
+  public void countsTransitionsByWhetherAPreloadTookOver() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    AudioMetrics metrics = new AudioMetrics(registry, 42);
+    metrics.transitionFollowed(true);
+    metrics.transitionFollowed(false);
+    metrics.transitionFollowed(true);
+    assertEquals(2, metrics.getGaplessTransitions());
+    assertEquals(
+        1.0,
+        registry
+            .get("jmusicbot.track.transitions")
+            .tag("guild", "42")
+            .tag("path", "reloaded")
+            .counter()
+            .count(),
+        0);
+  }
+}
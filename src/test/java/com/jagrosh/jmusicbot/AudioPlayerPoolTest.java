@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.AudioPlayerPool;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class AudioPlayerPoolTest {
+  @Test
+  public void reusesReleasedPlayers() {
+    DefaultAudioPlayerManager manager = new DefaultAudioPlayerManager();
+    try {
+      AudioPlayerPool pool = new AudioPlayerPool(manager, 1);
+      AudioPlayer first = pool.acquire();
+      AudioPlayer second = pool.acquire();
+      assertNotSame(first, second);
+      first.setVolume(30);
+      first.setPaused(true);
+      pool.release(first);
+      // over capacity, so destroyed rather than kept
+      pool.release(second);
+      assertEquals(1, pool.size());
+      AudioPlayer reused = pool.acquire();
+      assertSame(first, reused);
+      assertEquals(100, reused.getVolume());
+      assertFalse(reused.isPaused());
+      assertEquals(0, pool.size());
+      assertNotSame(first, pool.acquire());
+    } finally {
+      manager.shutdown();
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import com.jagrosh.jmusicbot.audio.AudioHandler;
+import com.jagrosh.jmusicbot.audio.NowplayingHandler;
+import com.jagrosh.jmusicbot.audio.OpusSegment;
+import com.jagrosh.jmusicbot.audio.PlayerManager;
+import com.jagrosh.jmusicbot.audio.QueuedTrack;
+import com.jagrosh.jmusicbot.audio.RequestMetadata;
+import com.jagrosh.jmusicbot.jdautils.utils.EventWaiter;
+import com.jagrosh.jmusicbot.settings.SettingsManager;
+import com.jagrosh.jmusicbot.spring.AppConfiguration;
+import com.sedmelluq.discord.lavaplayer.container.common.OpusPacketRouter;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.sedmelluq.discord.lavaplayer.track.DelegatedAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.managers.AudioManager;
+
+/**
+ * Measures the heap the audio thread allocates per frame it sends, through {@link
+ * AudioHandler#canProvide} and {@link AudioHandler#provide20MsAudio} of a handler made by the
+ * {@link PlayerManager}, with its metrics, its recorder and the look-ahead of the next track. The
+ * guild plays a queue of tracks whose opus frames are read from a segment and passed on as they
+ * are, without the network or transcoding, and which are recorded for the opus cache like tracks of
+ * any other source. The handler is polled every 2 ms, ten times as often as JDA polls it, which the
+ * recorder's ring still has room for between drains, and every poll counts, whether it found a
+ * frame or not.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.jagrosh.jmusicbot.AudioSendBenchmark}. Like the bot, it creates {@code
+ * serversettings.json} in the working directory if there is none.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class AudioSendBenchmark {
+  private static final int TRACKS = 60;
+  // ten seconds per track
+  private static final int FRAMES = 500;
+  private static final int FRAME_SIZE = 160;
+  // the first tracks warm up the code, so the measurement is of compiled code
+  private static final int WARMUP = 20;
+  private static final long PERIOD = TimeUnit.MILLISECONDS.toNanos(2);
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Path folder = Files.createTempDirectory("audiosend");
+    AppConfiguration config = new AppConfiguration();
+    config.setOpuscachesize(64);
+    config.setOpuscachefolder(folder.resolve("opuscache").toString());
+    config.setHttpcachefolder(folder.resolve("httpcache").toString());
+    config.setMaxytplaylistpages(10);
+    // keeps the now playing handler from polling a JDA that is not there
+    config.setNpimages(true);
+    config.setStayinchannel(true);
+    Bot bot = new Bot(new EventWaiter(), config, new SettingsManager());
+    new NowplayingHandler(bot, config);
+    PlayerManager manager = new PlayerManager(bot, config, new SimpleMeterRegistry());
+    AudioHandler handler = manager.getOrCreateAudioHandler(guild());
+
+    Path segment = folder.resolve("track.seg");
+    writeSegment(segment);
+    for (int i = 0; i < TRACKS; i++) {
+      String identifier = "track" + i;
+      AudioTrackInfo info =
+          new AudioTrackInfo(
+              identifier, "", (long) FRAMES * OpusSegment.FRAME_MILLIS, identifier, false, null);
+      RequestMetadata request =
+          new RequestMetadata(null, new RequestMetadata.RequestInfo(identifier, null));
+      handler.addTrack(new QueuedTrack(new SegmentTrack(info, segment), request));
+    }
+
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    send(handler, (long) WARMUP * FRAMES);
+    long before = threads.getThreadAllocatedBytes(thread);
+    long[] counts = send(handler, (long) (TRACKS - WARMUP - 1) * FRAMES);
+    long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+    System.out.printf(
+        "sent %d frames of %d tracks, in %d polls%n", counts[0], TRACKS - WARMUP - 1, counts[1]);
+    System.out.printf("allocated: %d bytes%n", allocated);
+    System.out.printf("per frame: %.2f bytes%n", (double) allocated / counts[0]);
+    System.out.printf("per poll:  %.3f bytes%n", (double) allocated / counts[1]);
+    System.out.printf("per track: %.0f bytes%n", (double) allocated / (TRACKS - WARMUP - 1));
+    // the recordings are drained and written in the background
+    Thread.sleep(1000);
+    System.out.printf("recorded:  %d tracks%n", manager.getOpusCache().getSegmentCount());
+    manager.shutdown();
+    System.exit(0);
+  }
+
+  /**
+   * Polls the handler as JDA's audio thread does, once every {@link #PERIOD}
+   *
+   * @return how many frames were sent, and how many polls it took
+   */
+  private static long[] send(AudioHandler handler, long frames) {
+    long sent = 0;
+    long polls = 0;
+    long next = System.nanoTime();
+    while (sent < frames) {
+      polls++;
+      if (handler.canProvide() && handler.provide20MsAudio().remaining() == FRAME_SIZE) sent++;
+      next += PERIOD;
+      while (System.nanoTime() < next) Thread.onSpinWait();
+    }
+    return new long[] {sent, polls};
+  }
+
+  /** Writes frames of 20 ms of full band stereo opus, which are passed on as they are */
+  private static void writeSegment(Path segment) throws IOException {
+    ByteBuffer data = ByteBuffer.allocate(FRAMES * FRAME_SIZE);
+    int[] ends = new int[FRAMES];
+    for (int i = 0; i < FRAMES; i++) {
+      data.put((byte) 0xFC);
+      for (int j = 1; j < FRAME_SIZE; j++) data.put((byte) (i + j));
+      ends[i] = data.position();
+    }
+    OpusSegment.write(segment, data.flip(), ends, FRAMES);
+  }
+
+  private static Guild guild() {
+    AudioManager audio =
+        (AudioManager)
+            Proxy.newProxyInstance(
+                AudioSendBenchmark.class.getClassLoader(),
+                new Class<?>[] {AudioManager.class},
+                (proxy, method, args) -> null);
+    return (Guild)
+        Proxy.newProxyInstance(
+            AudioSendBenchmark.class.getClassLoader(),
+            new Class<?>[] {Guild.class},
+            (proxy, method, args) ->
+                switch (method.getName()) {
+                  case "getIdLong" -> 1L;
+                  case "getAudioManager" -> audio;
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  default -> null;
+                });
+  }
+
+  /** Plays the frames of a segment, like a cached track, but from a source of its own */
+  private static class SegmentTrack extends DelegatedAudioTrack {
+    private static final AudioSourceManager SOURCE =
+        (AudioSourceManager)
+            Proxy.newProxyInstance(
+                AudioSendBenchmark.class.getClassLoader(),
+                new Class<?>[] {AudioSourceManager.class},
+                (proxy, method, args) ->
+                    method.getName().equals("getSourceName") ? "segment" : null);
+
+    private final Path segment;
+
+    private SegmentTrack(AudioTrackInfo info, Path segment) {
+      super(info);
+      this.segment = segment;
+    }
+
+    @Override
+    public void process(LocalAudioTrackExecutor executor) throws Exception {
+      OpusSegment frames;
+      try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+        frames = OpusSegment.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+      }
+      OpusPacketRouter router =
+          new OpusPacketRouter(
+              executor.getProcessingContext(), OpusSegment.SAMPLE_RATE, OpusSegment.CHANNELS);
+      int[] next = {0};
+      try {
+        executor.executeProcessingLoop(
+            () -> {
+              while (next[0] < frames.getFrameCount()) router.process(frames.getFrame(next[0]++));
+              router.flush();
+            },
+            null);
+      } finally {
+        router.close();
+      }
+    }
+
+    @Override
+    public AudioSourceManager getSourceManager() {
+      return SOURCE;
+    }
+
+    @Override
+    protected AudioTrack makeShallowClone() {
+      return new SegmentTrack(getInfo(), segment);
+    }
+  }
+}
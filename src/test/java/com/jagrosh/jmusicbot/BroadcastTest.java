@@ -0,0 +1,194 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.AudioFrameSender;
+import com.jagrosh.jmusicbot.audio.Broadcast;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class BroadcastTest {
+  // how many frames the fake player has handed out; each frame holds its number
+  private final AtomicInteger pulled = new AtomicInteger();
+  // the tracks the fake player was told to play
+  private final List<AudioTrack> played = new ArrayList<>();
+  private boolean dry;
+
+  @Test
+  public void listenersShareFrames() {
+    Broadcast broadcast = new Broadcast("radio", player(), null);
+    AudioFrameSender first = new AudioFrameSender();
+    AudioFrameSender second = new AudioFrameSender();
+    Broadcast.Tuner a = broadcast.tune();
+    Broadcast.Tuner b = broadcast.tune();
+    assertEquals(2, broadcast.getListeners());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i, next(first, a));
+      assertEquals(i, next(second, b));
+    }
+    assertEquals(10, pulled.get());
+    // a listener that is behind reads from the ring, without taking new frames
+    assertEquals(10, next(first, a));
+    assertEquals(11, next(first, a));
+    assertEquals(10, next(second, b));
+    assertEquals(12, pulled.get());
+  }
+
+  @Test
+  public void newListenersStartAtTheNewestFrame() {
+    Broadcast broadcast = new Broadcast("radio", player(), null);
+    AudioFrameSender sender = new AudioFrameSender();
+    Broadcast.Tuner first = broadcast.tune();
+    for (int i = 0; i < 5; i++) next(sender, first);
+    assertEquals(5, next(sender, broadcast.tune()));
+  }
+
+  @Test
+  public void laggingListenersRejoin() {
+    Broadcast broadcast = new Broadcast("radio", player(), null);
+    AudioFrameSender sender = new AudioFrameSender();
+    Broadcast.Tuner fast = broadcast.tune();
+    Broadcast.Tuner slow = broadcast.tune();
+    for (int i = 0; i < 100; i++) next(sender, fast);
+    assertEquals(99, next(sender, slow));
+    assertEquals(100, next(sender, slow));
+  }
+
+  @Test
+  public void nothingIsProvidedWithoutAFrame() {
+    Broadcast broadcast = new Broadcast("radio", player(), null);
+    AudioFrameSender sender = new AudioFrameSender();
+    Broadcast.Tuner tuner = broadcast.tune();
+    dry = true;
+    assertFalse(sender.provide(tuner));
+    dry = false;
+    assertEquals(0, next(sender, tuner));
+  }
+
+  @Test
+  public void closedAndStoppedTunersGoSilent() {
+    Broadcast broadcast = new Broadcast("radio", player(), null);
+    AudioFrameSender sender = new AudioFrameSender();
+    Broadcast.Tuner closed = broadcast.tune();
+    Broadcast.Tuner open = broadcast.tune();
+    closed.close();
+    closed.close();
+    assertEquals(1, broadcast.getListeners());
+    assertFalse(closed.isOpen());
+    assertFalse(sender.provide(closed));
+    assertTrue(sender.provide(open));
+    broadcast.stop();
+    assertFalse(open.isOpen());
+    assertFalse(sender.provide(open));
+  }
+
+  @Test
+  public void tracksStoppedWhileNobodyListenedArePickedUpAgain() {
+    Broadcast broadcast = new Broadcast("radio", player(), null);
+    broadcast.onTrackEnd(null, track(30_000), AudioTrackEndReason.CLEANUP);
+    assertTrue(played.isEmpty());
+    next(new AudioFrameSender(), broadcast.tune());
+    assertEquals(1, played.size());
+    assertEquals(30_000, played.get(0).getPosition());
+  }
+
+  @Test
+  public void stoppedTracksAreSkipped() {
+    Broadcast broadcast = new Broadcast("radio", player(), null);
+    broadcast.addTracks(List.of(track(0), track(0)));
+    broadcast.onTrackEnd(null, played.get(0), AudioTrackEndReason.STOPPED);
+    assertEquals(2, played.size());
+  }
+
+  @Test
+  public void allocatingReadsGetFramesOfTheirOwn() {
+    Broadcast broadcast = new Broadcast("radio", player(), null);
+    Broadcast.Tuner tuner = broadcast.tune();
+    AudioFrame first = tuner.provide();
+    AudioFrame second = tuner.provide(20, TimeUnit.MILLISECONDS);
+    assertNotSame(first, second);
+    assertEquals(4, first.getDataLength());
+    dry = true;
+    assertNull(tuner.provide());
+  }
+
+  private static int next(AudioFrameSender sender, Broadcast.Tuner tuner) {
+    assertTrue(sender.provide(tuner));
+    assertEquals(4, sender.getData().remaining());
+    return sender.getData().getInt();
+  }
+
+  /** A player that only knows how to provide numbered frames */
+  private AudioPlayer player() {
+    return (AudioPlayer)
+        Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {AudioPlayer.class},
+            (proxy, method, args) -> {
+              if (method.getName().equals("provide") && args[0] instanceof MutableAudioFrame) {
+                if (dry) return false;
+                int frame = pulled.getAndIncrement();
+                byte[] data = {
+                  (byte) (frame >>> 24), (byte) (frame >>> 16), (byte) (frame >>> 8), (byte) frame
+                };
+                ((MutableAudioFrame) args[0]).store(data, 0, data.length);
+                return true;
+              }
+              if (method.getName().equals("playTrack")) played.add((AudioTrack) args[0]);
+              if (method.getReturnType() == boolean.class) return false;
+              return null;
+            });
+  }
+
+  /** A track at the given position, whose clones start from the beginning */
+  private static AudioTrack track(long position) {
+    long[] at = {position};
+    return (AudioTrack)
+        Proxy.newProxyInstance(
+            BroadcastTest.class.getClassLoader(),
+            new Class<?>[] {AudioTrack.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "getInfo":
+                  return new AudioTrackInfo("song", "artist", 60_000, "song", false, null);
+                case "getPosition":
+                  return at[0];
+                case "setPosition":
+                  at[0] = (long) args[0];
+                  return null;
+                case "makeClone":
+                  return track(0);
+                default:
+                  return null;
+              }
+            });
+  }
+}
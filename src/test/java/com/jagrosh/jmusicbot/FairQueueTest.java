@@ -17,14 +17,31 @@ package com.jagrosh.jmusicbot;
 
 import static org.junit.Assert.*;
 
+import com.jagrosh.jmusicbot.QueueModel.Op;
+import com.jagrosh.jmusicbot.QueueModel.Q;
 import com.jagrosh.jmusicbot.queue.FairQueue;
-import com.jagrosh.jmusicbot.queue.Queueable;
+import com.jagrosh.jmusicbot.queue.QueueStorage;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.junit.Test;
 
 /**
  * @author John Grosh (john.a.grosh@gmail.com)
  */
 public class FairQueueTest {
+  // what the queue does exactly like the original list scan; entries removed from the middle or
+  // placed by hand leave the rounds keyed as described by Rounds below
+  private static final Set<Op> OPS =
+      EnumSet.of(Op.ADD, Op.PULL, Op.REMOVE_ALL, Op.SKIP, Op.ADD_ALL);
+  private static final Set<Op> ALL_OPS =
+      EnumSet.of(
+          Op.ADD, Op.PULL, Op.REMOVE, Op.REMOVE_ALL, Op.MOVE, Op.ADD_AT, Op.SKIP, Op.ADD_ALL);
+
   @Test
   public void differentIdentifierSize() {
     FairQueue<Q> queue = new FairQueue<>(null);
@@ -41,16 +58,175 @@ public class FairQueueTest {
     assertEquals(queue.size(), size);
   }
 
-  private class Q implements Queueable {
-    private final long identifier;
+  @Test
+  public void interleavesRequesters() {
+    FairQueue<Q> queue = new FairQueue<>(null);
+    for (int i = 0; i < 3; i++) queue.add(new Q(1));
+    assertEquals(1, queue.add(new Q(2)));
+    assertEquals(2, queue.add(new Q(3)));
+    assertEquals(4, queue.add(new Q(2)));
+    assertEquals(
+        List.of(1L, 2L, 3L, 1L, 2L, 1L),
+        queue.getList().stream().map(Q::getIdentifier).toList());
+  }
+
+  @Test
+  public void removeAllAndShuffleOnlyTouchRequester() {
+    FairQueue<Q> queue = new FairQueue<>(null);
+    for (int i = 0; i < 50; i++) queue.add(new Q(i % 5));
+    assertEquals(10, queue.shuffle(3));
+    for (int i = 0; i < queue.size(); i++) assertEquals(i % 5, queue.get(i).getIdentifier());
+    assertEquals(10, queue.removeAll(3));
+    assertEquals(0, queue.removeAll(3));
+    assertEquals(40, queue.size());
+    assertTrue(queue.getList().stream().noneMatch(q -> q.getIdentifier() == 3));
+  }
+
+  @Test
+  public void countsPerRequester() {
+    FairQueue<Q> queue = new FairQueue<>(null);
+    // snowflake-like identifiers that share their high bits
+    long base = 1L << 60;
+    for (int i = 0; i < 3000; i++) queue.add(new Q(base + (i % 1000) * 4096L));
+    for (int i = 0; i < 1000; i += 2) assertEquals(3, queue.removeAll(base + i * 4096L));
+    for (int i = 0; i < 1000; i++)
+      assertEquals(i % 2 == 0 ? 0 : 3, queue.countOf(base + i * 4096L));
+    assertEquals(0, queue.countOf(base - 1));
+    queue.pull();
+    assertEquals(2, queue.countOf(base + 4096L));
+  }
+
+  @Test
+  public void matchesReferenceImplementationOnTree() {
+    QueueModel.check(
+        new FairQueue<>(QueueStorage.TREE.createQueue()), FairQueueTest::referenceAdd, OPS);
+  }
+
+  @Test
+  public void matchesReferenceImplementationOnArray() {
+    QueueModel.check(
+        new FairQueue<>(QueueStorage.ARRAY.createQueue()), FairQueueTest::referenceAdd, OPS);
+  }
+
+  @Test
+  public void matchesRoundsOnTree() {
+    QueueModel.check(new FairQueue<>(QueueStorage.TREE.createQueue()), new Rounds(), ALL_OPS);
+  }
+
+  @Test
+  public void matchesRoundsOnArray() {
+    QueueModel.check(new FairQueue<>(QueueStorage.ARRAY.createQueue()), new Rounds(), ALL_OPS);
+  }
+
+  @Test
+  public void playedRequesterTakesTheLastTurn() {
+    FairQueue<Q> queue = new FairQueue<>(null);
+    queue.add(new Q(1));
+    queue.add(new Q(2));
+    queue.add(new Q(1));
+    queue.add(new Q(2));
+    queue.pull();
+    // 1 has played this round, so a new requester still gets in before 2 repeats
+    assertEquals(2, queue.add(new Q(3)));
+    assertEquals(List.of(2L, 1L, 3L, 2L), queue.getList().stream().map(Q::getIdentifier).toList());
+  }
 
-    private Q(long identifier) {
-      this.identifier = identifier;
+  /** The original list-scanning fair insert, kept as the specification */
+  static int referenceAdd(List<Q> list, Q item) {
+    Set<Long> set = new HashSet<>();
+    int lastIndex;
+    for (lastIndex = list.size() - 1; lastIndex > -1; lastIndex--)
+      if (list.get(lastIndex).getIdentifier() == item.getIdentifier()) break;
+    lastIndex++;
+    for (; lastIndex < list.size(); lastIndex++) {
+      if (set.contains(list.get(lastIndex).getIdentifier())) break;
+      set.add(list.get(lastIndex).getIdentifier());
     }
+    list.add(lastIndex, item);
+    return lastIndex;
+  }
+
+  /** A plain list version of the round keys, including how entries placed by hand are keyed */
+  private static class Rounds implements QueueModel.Reference {
+    private final List<Long> keys = new ArrayList<>();
+    private final Map<Long, Integer> turns = new HashMap<>();
+    private int turn;
 
     @Override
-    public long getIdentifier() {
-      return identifier;
+    public int add(List<Q> list, Q item) {
+      if (list.isEmpty()) turn = 0;
+      long identifier = item.getIdentifier();
+      int last = list.size() - 1;
+      while (last >= 0 && list.get(last).getIdentifier() != identifier) last--;
+      boolean first = last < 0 || !turns.containsKey(identifier);
+      if (first) turns.put(identifier, ++turn);
+      long key = key(first ? 0 : round(keys.get(last)) + 1, turns.get(identifier));
+      int index = 0;
+      while (index < keys.size() && keys.get(index) <= key) index++;
+      list.add(index, item);
+      keys.add(index, key);
+      return index;
+    }
+
+    @Override
+    public void removed(List<Q> list, int index) {
+      keys.remove(index);
+    }
+
+    @Override
+    public void inserted(List<Q> list, int index) {
+      forgetAlone(list, index);
+      keys.add(index, 0L);
+      clamp(index);
+    }
+
+    @Override
+    public void moved(List<Q> list, int from, int to) {
+      forgetAlone(list, to);
+      keys.add(to, keys.remove(from));
+      clamp(to);
+    }
+
+    @Override
+    public void pulled(List<Q> list, List<Q> items) {
+      keys.subList(0, items.size()).clear();
+      Map<Long, Integer> played = new HashMap<>();
+      for (Q item : items) {
+        long identifier = item.getIdentifier();
+        if (list.stream().noneMatch(q -> q.getIdentifier() == identifier)) continue;
+        turns.put(identifier, ++turn);
+        played.merge(identifier, 1, Integer::sum);
+      }
+      for (int i = list.size() - 1; i >= 0; i--) {
+        long identifier = list.get(i).getIdentifier();
+        if (!played.containsKey(identifier)) continue;
+        long key =
+            key(Math.max(0, round(keys.get(i)) - played.get(identifier)), turns.get(identifier));
+        keys.set(i, i + 1 < keys.size() ? Math.min(key, keys.get(i + 1)) : key);
+      }
+      for (int i = 1; i < list.size(); i++)
+        if (played.containsKey(list.get(i).getIdentifier()))
+          keys.set(i, Math.max(keys.get(i), keys.get(i - 1)));
+    }
+
+    /** A requester whose only entry was placed by hand has no turn yet */
+    private void forgetAlone(List<Q> list, int index) {
+      long identifier = list.get(index).getIdentifier();
+      if (list.stream().filter(q -> q.getIdentifier() == identifier).count() == 1)
+        turns.remove(identifier);
+    }
+
+    private void clamp(int index) {
+      if (index > 0) keys.set(index, Math.max(keys.get(index), keys.get(index - 1)));
+      if (index + 1 < keys.size()) keys.set(index, Math.min(keys.get(index), keys.get(index + 1)));
+    }
+
+    private static long key(int round, int turn) {
+      return (long) round << 32 | turn;
+    }
+
+    private static int round(long key) {
+      return (int) (key >> 32);
     }
   }
 }
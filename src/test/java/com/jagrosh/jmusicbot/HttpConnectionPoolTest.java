@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.http.HttpConnectionPool;
+import com.sedmelluq.discord.lavaplayer.source.http.HttpAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.http.ExtendedHttpClientBuilder;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class HttpConnectionPoolTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private HttpServer server;
+  // the client port of every request the server got, which tells the connections apart
+  private final List<Integer> ports = new CopyOnWriteArrayList<>();
+  // holds up the answers of the stalling page until the test is over
+  private final CountDownLatch stalled = new CountDownLatch(1);
+
+  @Before
+  public void start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", this::serve);
+    server.createContext("/stall", this::stall);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+  }
+
+  @After
+  public void stop() {
+    stalled.countDown();
+    server.stop(0);
+  }
+
+  @Test
+  public void clientsOfDifferentSourcesShareConnections() throws IOException {
+    HttpConnectionPool pool = new HttpConnectionPool(10, 4, Map.of(), 60_000, 60_000, 0, registry);
+    // lavaplayer's builders, as the sources configure them
+    ExtendedHttpClientBuilder first = new ExtendedHttpClientBuilder();
+    ExtendedHttpClientBuilder second = new ExtendedHttpClientBuilder();
+    pool.configure(first);
+    pool.configure(second);
+    try (CloseableHttpClient one = first.build();
+        CloseableHttpClient other = second.build()) {
+      get(one);
+      get(other);
+      get(one);
+    }
+    assertEquals(3, ports.size());
+    assertEquals(1, ports.stream().distinct().count());
+    assertEquals(1, connections("available"), 0);
+    assertEquals(0, connections("leased"), 0);
+  }
+
+  @Test
+  public void sourcesKeepTheSharedManagerOnceConfigured() throws IOException {
+    HttpConnectionPool pool = new HttpConnectionPool(10, 4, Map.of(), 60_000, 60_000, 0, registry);
+    // configures its builder, and builds its client on it, as the player manager has it do
+    HttpAudioSourceManager source = new HttpAudioSourceManager();
+    source.configureBuilder(pool::configure);
+    ExtendedHttpClientBuilder builder = new ExtendedHttpClientBuilder();
+    pool.configure(builder);
+    try (HttpInterface http = source.getHttpInterface();
+        CloseableHttpClient other = builder.build()) {
+      get(http.getHttpClient());
+      get(other);
+    } finally {
+      source.shutdown();
+    }
+    assertEquals(2, ports.size());
+    assertEquals(1, ports.stream().distinct().count());
+    assertEquals(1, connections("available"), 0);
+  }
+
+  @Test
+  public void hostLimitsApplyOnEveryPort() throws Exception {
+    HttpConnectionPool pool =
+        new HttpConnectionPool(10, 4, Map.of("127.0.0.1", 1), 60_000, 60_000, 0, registry);
+    ExtendedHttpClientBuilder builder = new ExtendedHttpClientBuilder();
+    pool.configure(builder);
+    builder.setDefaultRequestConfig(
+        RequestConfig.custom().setConnectionRequestTimeout(200).build());
+    String base = "http://127.0.0.1:" + server.getAddress().getPort();
+    try (CloseableHttpClient client = builder.build()) {
+      Thread stalling =
+          new Thread(
+              () -> {
+                try {
+                  client.execute(new HttpGet(base + "/stall")).close();
+                } catch (IOException ignored) {
+                  // the server hangs up once the test is over
+                }
+              });
+      stalling.setDaemon(true);
+      stalling.start();
+      while (connections("leased") < 1) Thread.sleep(10);
+      // the only connection the host may have is taken by the stalled request
+      assertThrows(
+          ConnectionPoolTimeoutException.class, () -> client.execute(new HttpGet(base)).close());
+    }
+  }
+
+  @Test
+  public void sitesThatStopAnsweringTimeOut() throws IOException {
+    HttpConnectionPool pool =
+        new HttpConnectionPool(10, 4, Map.of(), 60_000, 60_000, 200, registry);
+    ExtendedHttpClientBuilder builder = new ExtendedHttpClientBuilder();
+    pool.configure(builder);
+    HttpGet get = new HttpGet("http://127.0.0.1:" + server.getAddress().getPort() + "/stall");
+    long started = System.nanoTime();
+    try (CloseableHttpClient client = builder.build()) {
+      assertThrows(SocketTimeoutException.class, () -> client.execute(get).close());
+    }
+    assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+  }
+
+  private void get(HttpClient client) throws IOException {
+    HttpGet get = new HttpGet("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    HttpResponse response = client.execute(get);
+    assertEquals(200, response.getStatusLine().getStatusCode());
+    EntityUtils.consume(response.getEntity());
+  }
+
+  private double connections(String state) {
+    return registry.get("jmusicbot.http.pool.connections").tag("state", state).gauge().value();
+  }
+
+  private void stall(HttpExchange exchange) throws IOException {
+    try {
+      stalled.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    exchange.close();
+  }
+
+  private void serve(HttpExchange exchange) throws IOException {
+    ports.add(exchange.getRemoteAddress().getPort());
+    byte[] body = "ok".getBytes();
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.http.CacheAwareConnectionManager;
+import com.jagrosh.jmusicbot.http.CachingRequestExecutor;
+import com.jagrosh.jmusicbot.http.HttpRangeCache;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class HttpRangeCacheTest {
+  private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+  private Path folder;
+  private HttpServer server;
+  // the range header of every request the server got, or "" for plain ones
+  private final List<String> requests = new CopyOnWriteArrayList<>();
+  // added to the path of every file the server sends, to change them all
+  private volatile String version = "";
+
+  @Before
+  public void start() throws IOException {
+    folder = Files.createTempDirectory("httpcache");
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", this::serve);
+    server.start();
+  }
+
+  @After
+  public void stop() throws IOException {
+    server.stop(0);
+    try (Stream<Path> files = Files.walk(folder)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+    }
+  }
+
+  @Test
+  public void replaysAreServedFromDisk() throws IOException {
+    HttpRangeCache cache = new HttpRangeCache(folder, 1_000_000, new SimpleMeterRegistry());
+    try (CloseableHttpClient client = client(cache)) {
+      assertArrayEquals(content("/a", 0, 10_000), get(client, "/a", null));
+      assertArrayEquals(content("/a", 0, 10_000), get(client, "/a", null));
+      assertArrayEquals(content("/a", 4000, 10_000), get(client, "/a", "bytes=4000-"));
+      assertArrayEquals(content("/a", 100, 200), get(client, "/a", "bytes=100-199"));
+    }
+    assertEquals(List.of(""), requests);
+    assertEquals(10_000, cache.getSize());
+
+    // a new cache picks up what the last one kept
+    HttpRangeCache reopened = new HttpRangeCache(folder, 1_000_000, new SimpleMeterRegistry());
+    try (CloseableHttpClient client = client(reopened)) {
+      assertArrayEquals(content("/a", 0, 10_000), get(client, "/a", null));
+    }
+    assertEquals(List.of(""), requests);
+  }
+
+  @Test
+  public void seeksFetchOnlyWhatIsMissing() throws IOException {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    HttpRangeCache cache = new HttpRangeCache(folder, 1_000_000, registry);
+    try (CloseableHttpClient client = client(cache)) {
+      assertArrayEquals(content("/b", 6000, 10_000), get(client, "/b", "bytes=6000-"));
+      assertArrayEquals(content("/b", 0, 3000), get(client, "/b", "bytes=0-2999"));
+      assertArrayEquals(content("/b", 1000, 10_000), get(client, "/b", "bytes=1000-"));
+      assertArrayEquals(content("/b", 0, 10_000), get(client, "/b", null));
+    }
+    assertEquals(List.of("bytes=6000-", "bytes=0-2999", "bytes=3000-"), requests);
+    assertEquals(1, requests(registry, "hit"), 0);
+    assertEquals(1, requests(registry, "partial"), 0);
+    assertEquals(2, requests(registry, "miss"), 0);
+  }
+
+  @Test
+  public void leastRecentlyUsedFilesAreEvicted() throws IOException {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    HttpRangeCache cache = new HttpRangeCache(folder, 25_000, registry);
+    try (CloseableHttpClient client = client(cache)) {
+      get(client, "/a", null);
+      get(client, "/b", null);
+      get(client, "/a", null);
+      get(client, "/c", null);
+      assertEquals(20_000, cache.getSize());
+      requests.clear();
+      get(client, "/a", null);
+      get(client, "/c", null);
+      assertEquals(List.of(), requests);
+      assertArrayEquals(content("/b", 0, 10_000), get(client, "/b", null));
+      assertEquals(List.of(""), requests);
+    }
+    assertTrue(cache.getSize() <= 25_000);
+    assertEquals(2, registry.get("jmusicbot.http.cache.evictions").counter().count(), 0);
+  }
+
+  @Test
+  public void completeHitsNeedNoConnection() throws IOException {
+    HttpRangeCache cache = new HttpRangeCache(folder, 1_000_000, new SimpleMeterRegistry());
+    try (CloseableHttpClient client = client(cache)) {
+      get(client, "/a", null);
+    }
+    server.stop(0);
+    // a new client has no connection to reuse, and the server would refuse a new one
+    try (CloseableHttpClient client = client(cache)) {
+      assertArrayEquals(content("/a", 0, 10_000), get(client, "/a", null));
+      assertArrayEquals(content("/a", 2_000, 3_000), get(client, "/a", "bytes=2000-2999"));
+    }
+  }
+
+  @Test
+  public void filesBeingReadAreNotEvicted() throws IOException {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    HttpRangeCache cache = new HttpRangeCache(folder, 25_000, registry);
+    try (CloseableHttpClient client = client(cache)) {
+      get(client, "/a", null);
+      HttpRangeCache.Entry reading = cache.acquire(url("/a"));
+      get(client, "/b", null);
+      get(client, "/c", null);
+      // /a is the least recently used, but /b has to go in its place
+      try (InputStream stream = reading.read(0, 10_000)) {
+        reading.release();
+        assertArrayEquals(content("/a", 0, 10_000), stream.readAllBytes());
+      }
+      assertNull(cache.acquire(url("/b")));
+      assertEquals(20_000, cache.getSize());
+    }
+    assertEquals(1, registry.get("jmusicbot.http.cache.evictions").counter().count(), 0);
+  }
+
+  @Test
+  public void changedFilesAreFetchedAgain() throws IOException {
+    HttpRangeCache cache = new HttpRangeCache(folder, 1_000_000, new SimpleMeterRegistry());
+    try (CloseableHttpClient client = client(cache)) {
+      get(client, "/a", "bytes=0-4999");
+      version = "/v2";
+      requests.clear();
+      // the rest of the file comes with another ETag, so the cached start is dropped
+      assertArrayEquals(content("/a/v2", 0, 10_000), get(client, "/a", null));
+      assertEquals(List.of("bytes=5000-", ""), requests);
+    }
+  }
+
+  private CloseableHttpClient client(HttpRangeCache cache) {
+    HttpClientBuilder builder =
+        HttpClientBuilder.create()
+            .setConnectionManager(
+                new CacheAwareConnectionManager(new PoolingHttpClientConnectionManager(), 0));
+    new CachingRequestExecutor(cache).configure(builder);
+    return builder.build();
+  }
+
+  private String url(String path) {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+  }
+
+  private byte[] get(CloseableHttpClient client, String path, String range) throws IOException {
+    HttpGet get = new HttpGet(url(path));
+    if (range != null) get.setHeader("Range", range);
+    try (CloseableHttpResponse response = client.execute(get);
+        InputStream stream = response.getEntity().getContent()) {
+      int status = response.getStatusLine().getStatusCode();
+      assertEquals(range == null ? 200 : 206, status);
+      return stream.readAllBytes();
+    }
+  }
+
+  private static double requests(SimpleMeterRegistry registry, String result) {
+    return registry.get("jmusicbot.http.cache.requests").tag("result", result).counter().count();
+  }
+
+  /** The bytes of a file of 10000 bytes, which differ between paths */
+  private static byte[] content(String path, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) ((start + i) * 31 + path.hashCode());
+    return bytes;
+  }
+
+  private void serve(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI() + version;
+    String range = exchange.getRequestHeaders().getFirst("Range");
+    requests.add(range == null ? "" : range);
+    byte[] body = content(path, 0, 10_000);
+    exchange.getResponseHeaders().set("Content-Type", "audio/mpeg");
+    exchange.getResponseHeaders().set("ETag", "\"" + path.hashCode() + "\"");
+    exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+    Matcher matcher = range == null ? null : RANGE.matcher(range);
+    if (matcher != null && matcher.matches()) {
+      int start = Integer.parseInt(matcher.group(1));
+      int end = matcher.group(2).isEmpty() ? body.length : Integer.parseInt(matcher.group(2)) + 1;
+      exchange
+          .getResponseHeaders()
+          .set("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + body.length);
+      body = Arrays.copyOfRange(body, start, end);
+      exchange.sendResponseHeaders(206, body.length);
+    } else exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.QueueModel.Op;
+import com.jagrosh.jmusicbot.QueueModel.Q;
+import com.jagrosh.jmusicbot.queue.AbstractQueue;
+import com.jagrosh.jmusicbot.queue.FairQueue;
+import com.jagrosh.jmusicbot.queue.LaneQueue;
+import com.jagrosh.jmusicbot.queue.QueueStorage;
+import com.jagrosh.jmusicbot.settings.QueueType;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class LaneQueueTest {
+  private static final Set<Op> OPS = EnumSet.of(Op.ADD, Op.ADD_NEXT, Op.ADD_REPEAT, Op.PULL);
+
+  @Test
+  public void lanesComeFirstInOrder() {
+    LaneQueue<Q> queue = new LaneQueue<>(null);
+    Q normal = new Q(1, "normal");
+    Q repeat = new Q(1, "repeat");
+    Q next1 = new Q(2, "next1");
+    Q next2 = new Q(3, "next2");
+    assertEquals(0, queue.add(normal));
+    assertEquals(0, queue.addRepeat(repeat));
+    assertEquals(0, queue.addNext(next1));
+    assertEquals(1, queue.addNext(next2));
+    assertEquals(List.of(next1, next2, repeat, normal), queue.getList());
+    assertSame(next1, queue.peek());
+  }
+
+  @Test
+  public void roundsStartBehindTheLanes() {
+    LaneQueue<Q> queue = new LaneQueue<>(null);
+    queue.add(new Q(1, "a"));
+    queue.add(new Q(1, "b"));
+    // the DJ's own play-next does not count towards their place in the rounds
+    queue.addNext(new Q(2, "next"));
+    assertEquals(2, queue.add(new Q(2, "c")));
+    assertEquals(4, queue.add(new Q(2, "d")));
+    assertEquals(
+        List.of("next", "a", "c", "b", "d"), queue.getList().stream().map(q -> q.name).toList());
+  }
+
+  @Test
+  public void movedEntriesJoinTheirNewLane() {
+    LaneQueue<Q> queue = new LaneQueue<>(null);
+    queue.addNext(new Q(1, "next"));
+    queue.add(new Q(1, "a"));
+    queue.add(new Q(1, "b"));
+    // promoted to the play-next lane, so the next play-next goes behind it
+    queue.moveItem(2, 0);
+    assertEquals(2, queue.addNext(new Q(2, "next2")));
+    // demoted to the normal lane
+    queue.moveItem(0, 3);
+    assertEquals(2, queue.addNext(new Q(2, "next3")));
+    assertEquals(
+        List.of("next", "next2", "next3", "a", "b"),
+        queue.getList().stream().map(q -> q.name).toList());
+  }
+
+  @Test
+  public void switchingTypesKeepsTheOrder() {
+    AbstractQueue<Q> queue = new FairQueue<>(null);
+    queue.addNext(new Q(1, "a"));
+    queue.addNext(new Q(1, "b"));
+    List<Q> before = queue.getList();
+    queue = QueueType.PRIORITY.createInstance(queue);
+    assertEquals(before, queue.getList());
+    assertEquals(0, queue.addNext(new Q(2, "next")));
+  }
+
+  @Test
+  public void matchesReferenceImplementationOnTree() {
+    QueueModel.check(new LaneQueue<>(QueueStorage.TREE.createQueue()), new Reference(), OPS);
+  }
+
+  @Test
+  public void matchesReferenceImplementationOnArray() {
+    QueueModel.check(new LaneQueue<>(QueueStorage.ARRAY.createQueue()), new Reference(), OPS);
+  }
+
+  /** The lanes at the front of the list, the rest of it a plain fair queue */
+  private static class Reference implements QueueModel.Reference {
+    private int next;
+    private int repeat;
+
+    @Override
+    public int add(List<Q> list, Q item) {
+      int lanes = next + repeat;
+      return lanes + FairQueueTest.referenceAdd(list.subList(lanes, list.size()), item);
+    }
+
+    @Override
+    public int addNext(List<Q> list, Q item) {
+      list.add(next, item);
+      return next++;
+    }
+
+    @Override
+    public int addRepeat(List<Q> list, Q item) {
+      list.add(next + repeat, item);
+      return next + repeat++;
+    }
+
+    @Override
+    public void removed(List<Q> list, int index) {
+      if (index < next) next--;
+      else if (index < next + repeat) repeat--;
+    }
+  }
+}
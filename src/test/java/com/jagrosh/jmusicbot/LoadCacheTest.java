@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.LoadCache;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainer;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerDescriptor;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerRegistry;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.source.http.HttpAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.source.http.HttpAudioTrack;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class LoadCacheTest {
+  private DefaultAudioPlayerManager manager;
+  private HttpAudioSourceManager http;
+  private SimpleMeterRegistry registry;
+  private int loads;
+
+  @Before
+  public void createManager() {
+    manager = new DefaultAudioPlayerManager();
+    http = new HttpAudioSourceManager(MediaContainerRegistry.DEFAULT_REGISTRY);
+    manager.registerSourceManager(http);
+    registry = new SimpleMeterRegistry();
+    loads = 0;
+  }
+
+  @Test
+  public void repeatedLoadsAreAnsweredWithNewTracks() {
+    LoadCache cache = new LoadCache(manager, 100, 60_000, 60_000, registry);
+    AudioTrack track = track("a");
+    Results first = new Results();
+    cache.load("https://example.com/a.mp3", first, loader(h -> h.trackLoaded(track)));
+    assertSame(track, first.track);
+
+    Results second = new Results();
+    Future<Void> future =
+        cache.load("  https://example.com/a.mp3 ", second, loader(h -> h.trackLoaded(track)));
+    assertTrue(future.isDone());
+    assertEquals(1, loads);
+    assertNotSame(track, second.track);
+    assertEquals(track.getInfo().uri, second.track.getInfo().uri);
+    assertEquals(track.getDuration(), second.track.getDuration());
+    assertEquals(0.5, cache.getHitRatio(), 0.001);
+  }
+
+  @Test
+  public void searchesDifferingInCaseAndSpacingShareResults() {
+    LoadCache cache = new LoadCache(manager, 100, 60_000, 60_000, registry);
+    List<AudioTrack> tracks = List.of(track("a"), track("b"), track("c"));
+    AudioPlaylist found = new BasicAudioPlaylist("Search results", tracks, tracks.get(1), true);
+    cache.load("ytsearch:Never  Gonna", new Results(), loader(h -> h.playlistLoaded(found)));
+
+    Results results = new Results();
+    cache.load("YTSEARCH: never gonna ", results, loader(h -> h.playlistLoaded(found)));
+    assertEquals(1, loads);
+    assertEquals("Search results", results.playlist.getName());
+    assertTrue(results.playlist.isSearchResult());
+    assertEquals(3, results.playlist.getTracks().size());
+    assertSame(results.playlist.getTracks().get(1), results.playlist.getSelectedTrack());
+    assertEquals(tracks.get(1).getInfo().uri, results.playlist.getSelectedTrack().getInfo().uri);
+    assertEquals(3, cache.getSize());
+
+    cache.load("scsearch:never gonna", new Results(), loader(h -> h.playlistLoaded(found)));
+    assertEquals(2, loads);
+  }
+
+  @Test
+  public void noMatchesAreForgottenSooner() throws InterruptedException {
+    LoadCache cache = new LoadCache(manager, 100, 60_000, 50, registry);
+    Results results = new Results();
+    cache.load("ytsearch:nothing", results, loader(AudioLoadResultHandler::noMatches));
+    cache.load("ytsearch:nothing", results, loader(AudioLoadResultHandler::noMatches));
+    assertEquals(1, loads);
+    assertEquals(2, results.noMatches);
+    Thread.sleep(100);
+    cache.load("ytsearch:nothing", results, loader(AudioLoadResultHandler::noMatches));
+    assertEquals(2, loads);
+
+    FriendlyException failure =
+        new FriendlyException("down", FriendlyException.Severity.SUSPICIOUS, null);
+    cache.load("https://example.com/x", results, loader(h -> h.loadFailed(failure)));
+    cache.load("https://example.com/x", results, loader(h -> h.loadFailed(failure)));
+    assertEquals(4, loads);
+  }
+
+  @Test
+  public void leastRecentlyUsedResultsAreDropped() {
+    LoadCache cache = new LoadCache(manager, 3, 60_000, 60_000, registry);
+    List<AudioTrack> tracks = List.of(track("a"), track("b"));
+    AudioPlaylist playlist = new BasicAudioPlaylist("List", tracks, null, false);
+    cache.load("list", new Results(), loader(h -> h.playlistLoaded(playlist)));
+    cache.load("c", new Results(), loader(h -> h.trackLoaded(track("c"))));
+    cache.load("list", new Results(), loader(h -> h.playlistLoaded(playlist)));
+    assertEquals(2, loads);
+    cache.load("d", new Results(), loader(h -> h.trackLoaded(track("d"))));
+    assertEquals(3, cache.getSize());
+    cache.load("list", new Results(), loader(h -> h.playlistLoaded(playlist)));
+    cache.load("c", new Results(), loader(h -> h.trackLoaded(track("c"))));
+    assertEquals(4, loads);
+    assertEquals(
+        2, registry.get("jmusicbot.load.cache.requests").tag("result", "hit").counter().count(), 0);
+  }
+
+  /** A loader that answers on the calling thread, counting how often it is asked */
+  private Function<AudioLoadResultHandler, Future<Void>> loader(
+      Consumer<AudioLoadResultHandler> answer) {
+    return handler -> {
+      loads++;
+      answer.accept(handler);
+      return CompletableFuture.completedFuture(null);
+    };
+  }
+
+  private AudioTrack track(String name) {
+    String url = "https://example.com/" + name + ".mp3";
+    AudioTrackInfo info = new AudioTrackInfo(name, "Author", 215000, url, false, url, null, null);
+    return new HttpAudioTrack(
+        info, new MediaContainerDescriptor(MediaContainer.MP3.probe, null), http);
+  }
+
+  private static class Results implements AudioLoadResultHandler {
+    private AudioTrack track;
+    private AudioPlaylist playlist;
+    private int noMatches;
+    private final List<FriendlyException> failures = new ArrayList<>();
+
+    @Override
+    public void trackLoaded(AudioTrack track) {
+      this.track = track;
+    }
+
+    @Override
+    public void playlistLoaded(AudioPlaylist playlist) {
+      this.playlist = playlist;
+    }
+
+    @Override
+    public void noMatches() {
+      noMatches++;
+    }
+
+    @Override
+    public void loadFailed(FriendlyException exception) {
+      failures.add(exception);
+    }
+  }
+}
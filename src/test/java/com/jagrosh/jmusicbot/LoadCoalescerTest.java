@@ -0,0 +1,211 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.LoadCoalescer;
+import com.jagrosh.jmusicbot.audio.LoadLines;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainer;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerDescriptor;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerRegistry;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.source.http.HttpAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.source.http.HttpAudioTrack;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class LoadCoalescerTest {
+  private final HttpAudioSourceManager http =
+      new HttpAudioSourceManager(MediaContainerRegistry.DEFAULT_REGISTRY);
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final LoadCoalescer coalescer = new LoadCoalescer(registry);
+  // the handlers of the loads that were started, and not answered yet
+  private final List<AudioLoadResultHandler> started = new ArrayList<>();
+  // the futures those loads returned
+  private final List<Future<Void>> loads = new ArrayList<>();
+
+  @Test
+  public void overlappingLoadsShareOneLoadButNotTracks() {
+    Results[] results = {new Results(), new Results(), new Results()};
+    coalescer.load("https://example.com/a.mp3", results[0], loader());
+    Future<Void> second = coalescer.load("https://example.com/a.mp3", results[1], loader());
+    coalescer.load("https://example.com/b.mp3", new Results(), loader());
+    coalescer.load(" https://example.com/a.mp3", results[2], loader());
+    assertEquals(2, started.size());
+    assertEquals(2, coalescer.getInFlight());
+    assertFalse(second.isDone());
+
+    AudioTrack track = track("a");
+    started.get(0).trackLoaded(track);
+    assertTrue(second.isDone());
+    assertSame(track, results[0].track);
+    assertNotSame(track, results[1].track);
+    assertNotSame(results[1].track, results[2].track);
+    assertEquals(track.getInfo().uri, results[2].track.getInfo().uri);
+    assertEquals(2, registry.get("jmusicbot.load.collapsed").counter().count(), 0);
+    assertEquals(1, coalescer.getInFlight());
+
+    // a load after the result landed starts over
+    coalescer.load("https://example.com/a.mp3", new Results(), loader());
+    assertEquals(3, started.size());
+  }
+
+  @Test
+  public void playlistsAreClonedTrackByTrack() {
+    Results[] results = {new Results(), new Results()};
+    coalescer.load("ytsearch:song", results[0], loader());
+    coalescer.load("ytsearch:  SONG", results[1], loader());
+    List<AudioTrack> tracks = List.of(track("a"), track("b"));
+    started.get(0).playlistLoaded(new BasicAudioPlaylist("Search", tracks, tracks.get(1), true));
+    AudioPlaylist copy = results[1].playlist;
+    assertSame(tracks, results[0].playlist.getTracks());
+    assertEquals(2, copy.getTracks().size());
+    assertNotSame(tracks.get(0), copy.getTracks().get(0));
+    assertSame(copy.getTracks().get(1), copy.getSelectedTrack());
+    assertTrue(copy.isSearchResult());
+  }
+
+  @Test
+  public void everyHandlerHearsOfFailures() {
+    Results[] results = {new Results(), new Results()};
+    coalescer.load("https://example.com/a.mp3", results[0], loader());
+    coalescer.load("https://example.com/a.mp3", results[1], loader());
+    FriendlyException failure =
+        new FriendlyException("down", FriendlyException.Severity.COMMON, null);
+    started.get(0).loadFailed(failure);
+    assertSame(failure, results[0].failure);
+    assertSame(failure, results[1].failure);
+
+    Results rejected = new Results();
+    coalescer.load(
+        "https://example.com/c.mp3",
+        rejected,
+        handler -> {
+          throw new IllegalStateException("shut down");
+        });
+    assertNotNull(rejected.failure);
+    assertEquals(0, coalescer.getInFlight());
+  }
+
+  @Test
+  public void theLoadIsCancelledOnceEveryHandlerLeft() {
+    Results[] results = {new Results(), new Results()};
+    Future<Void> first = coalescer.load("ytsearch:song", results[0], loader());
+    Future<Void> second = coalescer.load("ytsearch:song", results[1], loader());
+    assertTrue(first.cancel(true));
+    assertTrue(first.isCancelled());
+    assertFalse(loads.get(0).isCancelled());
+
+    assertTrue(second.cancel(true));
+    assertTrue(loads.get(0).isCancelled());
+    assertEquals(0, coalescer.getInFlight());
+    started.get(0).trackLoaded(track("a"));
+    assertNull(results[0].track);
+    assertNull(results[1].track);
+
+    // answered handlers cannot leave any more
+    Future<Void> answered = coalescer.load("ytsearch:other", new Results(), loader());
+    started.get(1).noMatches();
+    assertFalse(answered.cancel(true));
+    assertTrue(answered.isDone());
+  }
+
+  @Test
+  public void orderedLoadsAreAnsweredInTheirOwnLine() {
+    // lined up before they are coalesced, as the player manager does it
+    LoadLines lines = new LoadLines(Runnable::run);
+    Results[] results = {new Results(), new Results(), new Results(), new Results()};
+    lines.load("one", results[0], h -> coalescer.load("ytsearch:a", h, loader()));
+    lines.load("two", results[1], h -> coalescer.load("ytsearch:b", h, loader()));
+    lines.load("two", results[2], h -> coalescer.load("ytsearch:a", h, loader()));
+
+    // a lands first, but the second load of it waits behind b instead of joining the first
+    started.get(0).noMatches();
+    assertTrue(results[0].noMatches);
+    assertFalse(results[2].noMatches);
+    started.get(1).noMatches();
+    assertEquals(3, started.size());
+    started.get(2).noMatches();
+    assertTrue(results[2].noMatches);
+
+    // once it is their turn, they join loads of other lines
+    lines.load("one", results[3], h -> coalescer.load("ytsearch:c", h, loader()));
+    Future<Void> joined =
+        lines.load("two", new Results(), h -> coalescer.load("ytsearch:c", h, loader()));
+    assertEquals(4, started.size());
+    assertEquals(1, registry.get("jmusicbot.load.collapsed").counter().count(), 0);
+    started.get(3).noMatches();
+    assertTrue(joined.isDone());
+  }
+
+  /** A loader that only remembers the handler, to be answered by the test */
+  private Function<AudioLoadResultHandler, Future<Void>> loader() {
+    return handler -> {
+      started.add(handler);
+      CompletableFuture<Void> load = new CompletableFuture<>();
+      loads.add(load);
+      return load;
+    };
+  }
+
+  private AudioTrack track(String name) {
+    String url = "https://example.com/" + name + ".mp3";
+    AudioTrackInfo info = new AudioTrackInfo(name, "Author", 215000, url, false, url, null, null);
+    return new HttpAudioTrack(
+        info, new MediaContainerDescriptor(MediaContainer.MP3.probe, null), http);
+  }
+
+  private static class Results implements AudioLoadResultHandler {
+    private AudioTrack track;
+    private AudioPlaylist playlist;
+    private boolean noMatches;
+    private FriendlyException failure;
+
+    @Override
+    public void trackLoaded(AudioTrack track) {
+      this.track = track;
+    }
+
+    @Override
+    public void playlistLoaded(AudioPlaylist playlist) {
+      this.playlist = playlist;
+    }
+
+    @Override
+    public void noMatches() {
+      noMatches = true;
+    }
+
+    @Override
+    public void loadFailed(FriendlyException exception) {
+      this.failure = exception;
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.LoadLines;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class LoadLinesTest {
+  private final LoadLines lines = new LoadLines(Runnable::run);
+  // what the handlers were answered, in the order they were
+  private final List<String> answers = new ArrayList<>();
+  // the handlers of loads that were started but not answered yet
+  private final List<AudioLoadResultHandler> started = new ArrayList<>();
+
+  @Test
+  public void loadsAnsweredAtOnceWaitForTheOnesBeforeThem() {
+    lines.load("guild", handler("slow"), slow());
+    Future<Void> cached = lines.load("guild", handler("cached"), answered());
+    lines.load("other", handler("elsewhere"), answered());
+    assertFalse(cached.isDone());
+    assertEquals(List.of("elsewhere"), answers);
+
+    started.remove(0).noMatches();
+    assertTrue(cached.isDone());
+    assertEquals(List.of("elsewhere", "slow", "cached"), answers);
+    assertEquals(0, lines.getLines());
+  }
+
+  @Test
+  public void cancelledLoadsLetTheNextOneStart() {
+    Future<Void> first = lines.load("guild", handler("first"), slow());
+    lines.load("guild", handler("second"), slow());
+    lines.load("guild", handler("third"), answered());
+    assertEquals(1, started.size());
+
+    assertTrue(first.cancel(false));
+    assertTrue(first.isCancelled());
+    assertEquals(2, started.size());
+    started.get(1).noMatches();
+    assertEquals(List.of("second", "third"), answers);
+    assertEquals(0, lines.getLines());
+  }
+
+  @Test
+  public void loadsThatCannotStartFail() {
+    lines.load(
+        "guild",
+        handler("broken"),
+        h -> {
+          throw new IllegalStateException("no threads left");
+        });
+    lines.load("guild", handler("next"), answered());
+    assertEquals(List.of("broken failed", "next"), answers);
+  }
+
+  /** A loader that answers once the test says so */
+  private Function<AudioLoadResultHandler, Future<Void>> slow() {
+    return handler -> {
+      started.add(handler);
+      return new CompletableFuture<>();
+    };
+  }
+
+  /** A loader that answers on the calling thread, as a cached result is */
+  private static Function<AudioLoadResultHandler, Future<Void>> answered() {
+    return handler -> {
+      handler.noMatches();
+      return CompletableFuture.completedFuture(null);
+    };
+  }
+
+  private AudioLoadResultHandler handler(String name) {
+    return new AudioLoadResultHandler() {
+      @Override
+      public void trackLoaded(AudioTrack track) {
+        answers.add(name);
+      }
+
+      @Override
+      public void playlistLoaded(AudioPlaylist playlist) {
+        answers.add(name);
+      }
+
+      @Override
+      public void noMatches() {
+        answers.add(name);
+      }
+
+      @Override
+      public void loadFailed(FriendlyException exception) {
+        answers.add(name + " failed");
+      }
+    };
+  }
+}
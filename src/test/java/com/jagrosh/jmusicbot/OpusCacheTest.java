@@ -0,0 +1,290 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.CachedOpusTrack;
+import com.jagrosh.jmusicbot.audio.OpusCache;
+import com.jagrosh.jmusicbot.audio.OpusRecorder;
+import com.jagrosh.jmusicbot.audio.OpusSegment;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class OpusCacheTest {
+  private Path folder;
+
+  @Before
+  public void createFolder() throws IOException {
+    folder = Files.createTempDirectory("opuscache");
+  }
+
+  @After
+  public void deleteFolder() throws IOException {
+    try (Stream<Path> files = Files.walk(folder)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+    }
+  }
+
+  @Test
+  public void segmentsKeepEveryFrame() throws IOException {
+    Path path = folder.resolve("track.seg");
+    ByteBuffer data = ByteBuffer.allocate(1000);
+    int[] ends = new int[10];
+    for (int i = 0; i < ends.length; i++) {
+      for (int j = 0; j <= i; j++) data.put((byte) i);
+      ends[i] = data.position();
+    }
+    OpusSegment.write(path, data, ends, ends.length);
+    OpusSegment segment;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      segment = OpusSegment.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+    assertEquals(10, segment.getFrameCount());
+    for (int i = 0; i < ends.length; i++) {
+      ByteBuffer frame = segment.getFrame(i);
+      assertEquals(i + 1, frame.remaining());
+      while (frame.hasRemaining()) assertEquals(i, frame.get());
+    }
+    assertEquals(3, segment.frameAt(79));
+    assertEquals(10, segment.frameAt(10_000));
+    assertEquals(60, OpusSegment.timecodeOf(3));
+    assertThrows(IOException.class, () -> OpusSegment.read(ByteBuffer.allocate(64)));
+  }
+
+  @Test
+  public void leastRecentlyPlayedSegmentsAreEvicted() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // room for two segments of ten frames of 100 bytes
+    OpusCache cache = new OpusCache(folder, 2500, 1_000_000, registry);
+    AudioTrack a = track("a", 200);
+    AudioTrack b = track("b", 200);
+    AudioTrack c = track("c", 200);
+    assertSame(a, cache.wrap(a));
+    store(cache, a);
+    store(cache, b);
+    await(() -> cache.getSegmentCount() == 2);
+    AudioTrack cached = cache.wrap(a);
+    assertTrue(cached instanceof CachedOpusTrack);
+    assertSame(a, CachedOpusTrack.unwrap(cached));
+    store(cache, c);
+    await(() -> registry.get("jmusicbot.opus.cache.evictions").counter().count() == 1);
+    assertEquals(2, cache.getSegmentCount());
+    assertTrue(cache.wrap(a) instanceof CachedOpusTrack);
+    assertSame(b, cache.wrap(b));
+    assertTrue(cache.wrap(c) instanceof CachedOpusTrack);
+    assertEquals(3, requests(registry, "hit"), 0);
+    assertEquals(2, requests(registry, "miss"), 0);
+    assertEquals(0.6, cache.getHitRatio(), 0.001);
+  }
+
+  @Test
+  public void onlyWholePlaysAreRecorded() throws Exception {
+    OpusCache cache = new OpusCache(folder, 1_000_000, 1_000_000, new SimpleMeterRegistry());
+    OpusRecorder recorder = new OpusRecorder(cache);
+    long[] position = {0};
+    AudioTrack quiet = track("quiet", 1000, position);
+    play(recorder, quiet, position, 0, 50, 50);
+    recorder.finish(quiet);
+    AudioTrack seeked = track("seeked", 10_000, position);
+    play(recorder, seeked, position, 0, 20, 100);
+    play(recorder, seeked, position, 5000, 250, 100);
+    recorder.finish(seeked);
+    AudioTrack whole = track("whole", 1000, position);
+    play(recorder, whole, position, 0, 50, 100);
+    recorder.finish(whole);
+    await(() -> cache.getSegmentCount() == 1);
+    assertTrue(cache.wrap(whole) instanceof CachedOpusTrack);
+    assertSame(seeked, cache.wrap(seeked));
+    assertSame(quiet, cache.wrap(quiet));
+  }
+
+  @Test
+  public void longPlaysGrowTheirRecording() throws Exception {
+    OpusCache cache = new OpusCache(folder, 1_000_000, 1_000_000, new SimpleMeterRegistry());
+    OpusRecorder recorder = new OpusRecorder(cache);
+    long[] position = {0};
+    AudioTrack track = track("long", 20_000, position);
+    play(recorder, track, position, 0, 1000, 100);
+    recorder.finish(track);
+    await(() -> cache.getSegmentCount() == 1);
+    assertTrue(cache.getSize() > 100_000);
+  }
+
+  @Test
+  public void recordingsBeyondTheMemoryAllowedAreDropped() throws Exception {
+    // room for the first buffers of one recording, but not of two, or of one that grew
+    OpusCache cache = new OpusCache(folder, 1_000_000, 40_000, new SimpleMeterRegistry());
+    OpusRecorder first = new OpusRecorder(cache);
+    OpusRecorder second = new OpusRecorder(cache);
+    long[] position = {0};
+    AudioTrack kept = track("kept", 2000, position);
+    play(first, kept, position, 0, 100, 100);
+    long recording = cache.getRecording();
+    assertTrue(recording > 0);
+    AudioTrack dropped = track("dropped", 2000, position);
+    play(second, dropped, position, 0, 100, 100);
+    assertEquals(recording, cache.getRecording());
+    second.finish(dropped);
+    first.finish(kept);
+    await(() -> cache.getSegmentCount() == 1 && cache.getRecording() == 0);
+    assertTrue(cache.wrap(kept) instanceof CachedOpusTrack);
+    assertSame(dropped, cache.wrap(dropped));
+
+    AudioTrack grown = track("grown", 20_000, position);
+    play(first, grown, position, 0, 1000, 100);
+    assertEquals(0, cache.getRecording());
+    first.finish(grown);
+    Thread.sleep(100);
+    assertSame(grown, cache.wrap(grown));
+  }
+
+  @Test
+  public void dropsFromOtherThreadsReleaseWhatWasRecorded() throws Exception {
+    OpusCache cache = new OpusCache(folder, 1_000_000, 1_000_000, new SimpleMeterRegistry());
+    OpusRecorder recorder = new OpusRecorder(cache);
+    AtomicBoolean done = new AtomicBoolean();
+    // stands in for the command thread that stops tracks while the audio thread records them
+    Thread stopper =
+        new Thread(
+            () -> {
+              while (!done.get()) recorder.drop();
+            });
+    stopper.start();
+    try {
+      for (int i = 0; i < 200; i++) {
+        long[] position = {0};
+        play(recorder, track("track" + i, 20_000, position), position, 0, 300, 100);
+      }
+    } finally {
+      done.set(true);
+      stopper.join();
+    }
+    recorder.drop();
+    recorder.drain();
+    assertEquals(0, cache.getRecording());
+  }
+
+  @Test
+  public void recordingsThatLoseFramesAreDropped() throws Exception {
+    OpusCache cache = new OpusCache(folder, 1_000_000, 1_000_000, new SimpleMeterRegistry());
+    OpusRecorder recorder = new OpusRecorder(cache);
+    long[] position = {0};
+    AudioTrack track = track("lost", 20_000, position);
+    ByteBuffer frame = ByteBuffer.allocate(100);
+    // holding the recorder keeps the cache from draining it, so the ring fills up and loses frames
+    synchronized (recorder) {
+      for (int i = 0; i < 500; i++) {
+        recorder.record(track, frame, 100);
+        position[0] += OpusSegment.FRAME_MILLIS;
+      }
+      recorder.finish(track);
+    }
+    recorder.drain();
+    Thread.sleep(100);
+    assertEquals(0, cache.getSegmentCount());
+    assertEquals(0, cache.getRecording());
+  }
+
+  @Test
+  public void segmentsOfEarlierRunsAreCountedOnce() throws Exception {
+    OpusCache first = new OpusCache(folder, 2500, 1_000_000, new SimpleMeterRegistry());
+    store(first, track("a", 200));
+    await(() -> first.getSegmentCount() == 1);
+    OpusCache second = new OpusCache(folder, 2500, 1_000_000, new SimpleMeterRegistry());
+    await(() -> second.getSegmentCount() == 1);
+    assertEquals(first.getSize(), second.getSize());
+  }
+
+  /** Records frames of a track, as if it was played from the given position */
+  private static void play(
+      OpusRecorder recorder, AudioTrack track, long[] position, long from, int frames, int volume) {
+    ByteBuffer frame = ByteBuffer.allocate(100);
+    position[0] = from;
+    for (int i = 0; i < frames; i++) {
+      recorder.record(track, frame, volume);
+      assertEquals(100, frame.remaining());
+      // the audio thread records far slower than this, so the cache's drains keep up with it
+      recorder.drain();
+      position[0] += OpusSegment.FRAME_MILLIS;
+    }
+  }
+
+  private static double requests(SimpleMeterRegistry registry, String result) {
+    return registry.get("jmusicbot.opus.cache.requests").tag("result", result).counter().count();
+  }
+
+  private static void store(OpusCache cache, AudioTrack track) {
+    ByteBuffer data = ByteBuffer.allocate(1000);
+    int[] ends = new int[10];
+    for (int i = 0; i < ends.length; i++) ends[i] = (i + 1) * 100;
+    cache.store(OpusCache.keyOf(track), data, ends, ends.length, 0);
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) Thread.sleep(10);
+    assertTrue(condition.getAsBoolean());
+  }
+
+  private static AudioTrack track(String identifier, long duration) {
+    return track(identifier, duration, new long[1]);
+  }
+
+  /** A track of the given length, from a source called test */
+  private static AudioTrack track(String identifier, long duration, long[] position) {
+    AudioSourceManager source =
+        (AudioSourceManager)
+            Proxy.newProxyInstance(
+                OpusCacheTest.class.getClassLoader(),
+                new Class<?>[] {AudioSourceManager.class},
+                (proxy, method, args) -> method.getName().equals("getSourceName") ? "test" : null);
+    AudioTrackInfo info = new AudioTrackInfo(identifier, "", duration, identifier, false, null);
+    return (AudioTrack)
+        Proxy.newProxyInstance(
+            OpusCacheTest.class.getClassLoader(),
+            new Class<?>[] {AudioTrack.class},
+            (proxy, method, args) ->
+                switch (method.getName()) {
+                  case "getInfo" -> info;
+                  case "getIdentifier" -> identifier;
+                  case "getDuration" -> duration;
+                  case "getPosition" -> position[0];
+                  case "getSourceManager" -> source;
+                  case "equals" -> proxy == args[0];
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  default -> null;
+                });
+  }
+}
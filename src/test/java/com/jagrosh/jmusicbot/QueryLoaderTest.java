@@ -0,0 +1,250 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.LoadLines;
+import com.jagrosh.jmusicbot.audio.QueryLoader;
+import com.jagrosh.jmusicbot.audio.QueryLoader.Kind;
+import com.jagrosh.jmusicbot.audio.SourceCircuitBreaker;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class QueryLoaderTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  // the loads that were started, by identifier, and whether they were ordered
+  private final Map<String, Load> loads = new LinkedHashMap<>();
+  private final LoadLines lines = new LoadLines(Runnable::run);
+  private final QueryLoader loader =
+      new QueryLoader(manager(), lines, query -> query.startsWith("custom"), registry);
+  private final Answers answers = new Answers();
+
+  @Test
+  public void queriesAreToldApart() {
+    assertEquals(Kind.SEARCH, loader.classify("never gonna give you up"));
+    assertEquals(Kind.IDENTIFIER, loader.classify("https://youtu.be/dQw4w9WgXcQ"));
+    assertEquals(Kind.IDENTIFIER, loader.classify("scsearch:never gonna give you up"));
+    assertEquals(Kind.IDENTIFIER, loader.classify("customid"));
+    assertEquals(Kind.RACE, loader.classify("dQw4w9WgXcQ"));
+  }
+
+  @Test
+  public void textIsSearchedForRightAway() {
+    loader.load("guild", "never gonna give you up", System.nanoTime(), answers);
+    assertEquals(List.of("ytsearch:never gonna give you up"), List.copyOf(loads.keySet()));
+    loads.get("ytsearch:never gonna give you up").handler.noMatches();
+    assertEquals(List.of("nomatches"), answers.answers);
+    assertEquals(1, latency("search", "nomatches"));
+  }
+
+  @Test
+  public void identifiersAreSearchedForOnlyIfNothingMatched() {
+    loader.load("guild", "https://example.com/song", System.nanoTime(), answers);
+    assertEquals(List.of("https://example.com/song"), List.copyOf(loads.keySet()));
+    loads.get("https://example.com/song").handler.noMatches();
+    assertTrue(answers.answers.isEmpty());
+    Load search = loads.get("ytsearch:https://example.com/song");
+    assertTrue(search.ordered);
+    search.handler.playlistLoaded(searchResult());
+    assertEquals(List.of("playlist"), answers.answers);
+    assertEquals(1, latency("identifier", "playlist"));
+  }
+
+  @Test
+  public void aMatchedIdentifierWinsTheRace() {
+    loader.load("guild", "dQw4w9WgXcQ", System.nanoTime(), answers);
+    Load identifier = loads.get("dQw4w9WgXcQ");
+    Load search = loads.get("ytsearch:dQw4w9WgXcQ");
+    // the race holds the guild's place in line itself
+    assertFalse(identifier.ordered);
+    assertFalse(search.ordered);
+    assertEquals(1, lines.getLines());
+
+    // the search came in first, but waits for the identifier's result
+    search.handler.playlistLoaded(searchResult());
+    assertTrue(answers.answers.isEmpty());
+    identifier.handler.loadFailed(
+        new FriendlyException("gone", FriendlyException.Severity.COMMON, null));
+    assertEquals(List.of("failed"), answers.answers);
+    assertEquals(1, latency("race", "failed"));
+
+    loader.load("guild", "other", System.nanoTime(), new Answers());
+    loads.get("other").handler.playlistLoaded(searchResult());
+    assertTrue(loads.get("ytsearch:other").future.isCancelled());
+  }
+
+  @Test
+  public void theSearchWinsTheRaceIfNothingMatchedTheIdentifier() {
+    loader.load("guild", "dQw4w9WgXcQ", System.nanoTime(), answers);
+    loads.get("dQw4w9WgXcQ").handler.noMatches();
+    assertTrue(answers.answers.isEmpty());
+    loads.get("ytsearch:dQw4w9WgXcQ").handler.playlistLoaded(searchResult());
+    assertEquals(List.of("playlist"), answers.answers);
+    assertFalse(loads.get("ytsearch:dQw4w9WgXcQ").future.isCancelled());
+
+    Answers buffered = new Answers();
+    loader.load("guild", "other", System.nanoTime(), buffered);
+    loads.get("ytsearch:other").handler.noMatches();
+    loads.get("other").handler.noMatches();
+    assertEquals(List.of("nomatches"), buffered.answers);
+  }
+
+  @Test
+  public void laterLoadsWaitForTheSearchIfNothingMatchedTheIdentifier() {
+    loader.load("guild", "dQw4w9WgXcQ", System.nanoTime(), answers);
+    loads.get("dQw4w9WgXcQ").handler.noMatches();
+    loader.load("guild", "https://example.com/song", System.nanoTime(), answers);
+    assertFalse(loads.containsKey("https://example.com/song"));
+
+    loads.get("ytsearch:dQw4w9WgXcQ").handler.playlistLoaded(searchResult());
+    loads.get("https://example.com/song").handler.trackLoaded(null);
+    assertEquals(List.of("playlist", "track"), answers.answers);
+    assertEquals(0, lines.getLines());
+  }
+
+  @Test
+  public void theSearchWinsTheRaceIfTheIdentifiersSourceIsUnavailable() {
+    // an open breaker around a source that claims everything turns a bare query away
+    SourceCircuitBreaker breaker =
+        new SourceCircuitBreaker(failingSource("http"), id -> true, 2, 50, 0, 60_000, registry);
+    for (int i = 0; i < 2; i++)
+      assertThrows(FriendlyException.class, () -> breaker.loadItem(null, reference("song.mp3")));
+    assertEquals(SourceCircuitBreaker.State.OPEN, breaker.getState());
+    FriendlyException unavailable =
+        assertThrows(
+            FriendlyException.class, () -> breaker.loadItem(null, reference("dQw4w9WgXcQ")));
+
+    loader.load("guild", "dQw4w9WgXcQ", System.nanoTime(), answers);
+    loads.get("dQw4w9WgXcQ").handler.loadFailed(unavailable);
+    assertTrue(answers.answers.isEmpty());
+    loads.get("ytsearch:dQw4w9WgXcQ").handler.playlistLoaded(searchResult());
+    assertEquals(List.of("playlist"), answers.answers);
+    assertFalse(loads.get("ytsearch:dQw4w9WgXcQ").future.isCancelled());
+  }
+
+  private long latency(String query, String result) {
+    return registry
+        .get("jmusicbot.play.latency")
+        .tag("query", query)
+        .tag("result", result)
+        .timer()
+        .count();
+  }
+
+  private static AudioPlaylist searchResult() {
+    return new BasicAudioPlaylist("Search results", List.of(), null, true);
+  }
+
+  private static AudioReference reference(String identifier) {
+    return new AudioReference(identifier, null);
+  }
+
+  /** A source whose every load fails */
+  private static AudioSourceManager failingSource(String name) {
+    return (AudioSourceManager)
+        Proxy.newProxyInstance(
+            QueryLoaderTest.class.getClassLoader(),
+            new Class<?>[] {AudioSourceManager.class},
+            (proxy, method, args) -> {
+              if (method.getName().equals("getSourceName")) return name;
+              if (!method.getName().equals("loadItem")) return null;
+              throw new FriendlyException("Down.", FriendlyException.Severity.FAULT, null);
+            });
+  }
+
+  /**
+   * A manager that only remembers the loads, to be answered by the test. Ordered loads line up
+   * first, as they do with the player manager.
+   */
+  private AudioPlayerManager manager() {
+    return (AudioPlayerManager)
+        Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {AudioPlayerManager.class},
+            (proxy, method, args) -> {
+              boolean ordered = method.getName().equals("loadItemOrdered");
+              Object identifier = args[ordered ? 1 : 0];
+              String key =
+                  identifier instanceof AudioReference reference
+                      ? reference.identifier
+                      : (String) identifier;
+              AudioLoadResultHandler handler = (AudioLoadResultHandler) args[args.length - 1];
+              if (!ordered) return start(key, false, handler);
+              return lines.load(args[0], handler, h -> start(key, true, h));
+            });
+  }
+
+  private Future<Void> start(String identifier, boolean ordered, AudioLoadResultHandler handler) {
+    Load load = new Load(ordered, handler, new CompletableFuture<>());
+    loads.put(identifier, load);
+    return load.future;
+  }
+
+  private static class Load {
+    private final boolean ordered;
+    private final AudioLoadResultHandler handler;
+    private final CompletableFuture<Void> future;
+
+    private Load(boolean ordered, AudioLoadResultHandler handler, CompletableFuture<Void> future) {
+      this.ordered = ordered;
+      this.handler = handler;
+      this.future = future;
+    }
+  }
+
+  private static class Answers implements AudioLoadResultHandler {
+    private final List<String> answers = new ArrayList<>();
+
+    @Override
+    public void trackLoaded(AudioTrack track) {
+      answers.add("track");
+    }
+
+    @Override
+    public void playlistLoaded(AudioPlaylist playlist) {
+      answers.add("playlist");
+    }
+
+    @Override
+    public void noMatches() {
+      answers.add("nomatches");
+    }
+
+    @Override
+    public void loadFailed(FriendlyException exception) {
+      answers.add("failed");
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.QueueModel.Q;
+import com.jagrosh.jmusicbot.queue.AbstractQueue;
+import com.jagrosh.jmusicbot.queue.QueueStorage;
+import com.jagrosh.jmusicbot.settings.QueueType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/**
+ * Hammers one queue from several threads the way the bot does: command threads adding, the
+ * playback thread pulling, the queue command rendering, and the queue type being switched.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class QueueConcurrencyTest {
+  private static final int WRITERS = 4;
+  private static final int ITEMS_PER_WRITER = 20000;
+
+  @Test(timeout = 60000)
+  public void noLostOrDuplicatedEntriesOnTree() throws Exception {
+    stress(QueueStorage.TREE);
+  }
+
+  @Test(timeout = 60000)
+  public void noLostOrDuplicatedEntriesOnArray() throws Exception {
+    stress(QueueStorage.ARRAY);
+  }
+
+  private static void stress(QueueStorage storage) throws Exception {
+    AtomicReference<AbstractQueue<Q>> queue =
+        new AtomicReference<>(QueueType.FAIR.createInstance(storage.createQueue()));
+    AtomicBoolean writing = new AtomicBoolean(true);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Q> pulled = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch writersDone = new CountDownLatch(WRITERS);
+    List<Thread> threads = new ArrayList<>();
+
+    for (int w = 0; w < WRITERS; w++) {
+      int writer = w;
+      threads.add(
+          new Thread(
+              () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ITEMS_PER_WRITER; i++) {
+                  Q item = new Q(random.nextInt(16));
+                  if (i % 10 == writer) queue.get().addAt(random.nextInt(8), item);
+                  else queue.get().add(item);
+                }
+                writersDone.countDown();
+              }));
+    }
+    // the playback thread
+    threads.add(
+        new Thread(
+            () -> {
+              while (writing.get() || !queue.get().isEmpty()) {
+                Q item = queue.get().poll();
+                if (item != null) pulled.add(item);
+              }
+            }));
+    // the queue command, iterating while the queue changes underneath
+    threads.add(
+        new Thread(
+            () -> {
+              while (writing.get()) {
+                List<Q> list = queue.get().getList();
+                int count = 0;
+                for (Q item : list) if (item != null) count++;
+                assertEquals(list.size(), count);
+              }
+            }));
+    // users switching the queue type back and forth
+    threads.add(
+        new Thread(
+            () -> {
+              QueueType[] types = QueueType.values();
+              for (int i = 0; writing.get(); i++)
+                queue.set(types[i % types.length].createInstance(queue.get()));
+            }));
+
+    for (Thread thread : threads) {
+      thread.setUncaughtExceptionHandler((t, e) -> failure.compareAndSet(null, e));
+      thread.start();
+    }
+    writersDone.await();
+    writing.set(false);
+    for (Thread thread : threads) thread.join();
+    if (failure.get() != null) throw new AssertionError(failure.get());
+
+    assertTrue(queue.get().isEmpty());
+    Map<Q, Boolean> seen = new IdentityHashMap<>();
+    for (Q item : pulled) assertNull("pulled twice", seen.put(item, true));
+    assertEquals(WRITERS * ITEMS_PER_WRITER, seen.size());
+  }
+}
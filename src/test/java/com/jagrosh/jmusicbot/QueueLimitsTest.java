@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.QueueModel.Q;
+import com.jagrosh.jmusicbot.queue.FairQueue;
+import com.jagrosh.jmusicbot.queue.QueueLimitException;
+import com.jagrosh.jmusicbot.queue.QueueLimits;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class QueueLimitsTest {
+  @Test
+  public void userSizeLimit() {
+    FairQueue<Q> queue = new FairQueue<>(null);
+    queue.setLimits(new QueueLimits(0, 0, 2, 0));
+    queue.add(new Q(1, 1000));
+    queue.add(new Q(1, 1000));
+    assertThrows(QueueLimitException.class, () -> queue.add(new Q(1, 1000)));
+    queue.add(new Q(2, 1000));
+    queue.pull();
+    queue.add(new Q(1, 1000));
+    assertEquals(2, queue.countOf(1));
+  }
+
+  @Test
+  public void timeLimitsAreInSeconds() {
+    FairQueue<Q> queue = new FairQueue<>(null);
+    queue.setLimits(new QueueLimits(0, 10, 0, 6));
+    queue.add(new Q(1, 6000));
+    assertThrows(QueueLimitException.class, () -> queue.add(new Q(1, 1)));
+    queue.add(new Q(2, 4000));
+    assertThrows(QueueLimitException.class, () -> queue.add(new Q(3, 1)));
+    // streams take no time
+    queue.add(new Q(3, Long.MAX_VALUE));
+  }
+
+  @Test
+  public void addAllStopsAtTheLimit() {
+    FairQueue<Q> queue = new FairQueue<>(null);
+    queue.setLimits(new QueueLimits(5, 0, 3, 0));
+    List<Q> playlist = new ArrayList<>();
+    for (int i = 0; i < 10; i++) playlist.add(new Q(1, 1000));
+    assertEquals(3, queue.addAll(playlist));
+    assertThrows(QueueLimitException.class, () -> queue.addAll(playlist));
+    assertEquals(2, queue.addAll(List.of(new Q(2, 1000), new Q(3, 1000), new Q(4, 1000))));
+    assertEquals(5, queue.size());
+  }
+
+  @Test
+  public void overridesOnlyReplaceWhatTheySet() {
+    QueueLimits limits =
+        new QueueLimits(100, 3600, 10, 600).overriddenBy(new QueueLimits(-1, 0, 20, -1));
+    assertEquals(100, limits.getMaxQueueSize());
+    assertEquals(0, limits.getMaxQueueTime());
+    assertEquals(20, limits.getMaxUserQueueSize());
+    assertEquals(600, limits.getMaxUserQueueTime());
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.queue.AbstractQueue;
+import com.jagrosh.jmusicbot.queue.Queueable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The entry the queue tests queue, and a randomized check of a queue against a plain list that
+ * models it. Each queue type only supplies where its model puts new entries.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+final class QueueModel {
+  private static final int STEPS = 20000;
+  private static final int REQUESTERS = 8;
+  private static final long MINUTE = 60_000;
+
+  private QueueModel() {}
+
+  /** The operations of a queue, and how often the check runs each of them */
+  enum Op {
+    ADD(12),
+    ADD_NEXT(2),
+    ADD_REPEAT(2),
+    PULL(2),
+    REMOVE(2),
+    REMOVE_ALL(1),
+    MOVE(1),
+    ADD_AT(1),
+    SKIP(1),
+    ADD_ALL(1);
+
+    private final int weight;
+
+    Op(int weight) {
+      this.weight = weight;
+    }
+  }
+
+  /** Where a queue type puts its entries, on a plain list of the queue */
+  interface Reference {
+    /**
+     * Puts the item where the queue type adds it
+     *
+     * @return the index the item was put at
+     */
+    int add(List<Q> list, Q item);
+
+    /**
+     * Puts the item where the queue type adds entries that play next
+     *
+     * @return the index the item was put at
+     */
+    default int addNext(List<Q> list, Q item) {
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Puts the item where the queue type adds entries that are repeated
+     *
+     * @return the index the item was put at
+     */
+    default int addRepeat(List<Q> list, Q item) {
+      throw new UnsupportedOperationException();
+    }
+
+    /** Called after the entry at the index was taken out of the list */
+    default void removed(List<Q> list, int index) {}
+
+    /** Called after an entry was inserted at the index, rather than added */
+    default void inserted(List<Q> list, int index) {}
+
+    /** Called after the items were taken off the head of the list, as they are when played */
+    default void pulled(List<Q> list, List<Q> items) {
+      for (int i = 0; i < items.size(); i++) removed(list, 0);
+    }
+
+    /** Called after an entry was moved from one index to another */
+    default void moved(List<Q> list, int from, int to) {
+      removed(list, from);
+      inserted(list, to);
+    }
+  }
+
+  /**
+   * Runs random operations on both the queue and its model, and checks after each that they hold
+   * the same entries in the same order, with the same running totals.
+   *
+   * @param queue an empty queue
+   * @param reference the model's rules for where entries go
+   * @param ops the operations the model supports
+   */
+  static void check(AbstractQueue<Q> queue, Reference reference, Set<Op> ops) {
+    Random random = new Random(42);
+    List<Op> weighted = new ArrayList<>();
+    for (Op op : ops) for (int i = 0; i < op.weight; i++) weighted.add(op);
+    List<Q> list = new ArrayList<>();
+    for (int step = 0; step < STEPS; step++) {
+      Op op = weighted.get(random.nextInt(weighted.size()));
+      if (list.isEmpty() && op != Op.ADD_NEXT && op != Op.ADD_REPEAT) op = Op.ADD;
+      switch (op) {
+        case ADD -> {
+          Q item = item(random, step);
+          assertEquals(reference.add(list, item), queue.add(item));
+        }
+        case ADD_NEXT -> {
+          Q item = item(random, step);
+          assertEquals(reference.addNext(list, item), queue.addNext(item));
+        }
+        case ADD_REPEAT -> {
+          Q item = item(random, step);
+          assertEquals(reference.addRepeat(list, item), queue.addRepeat(item));
+        }
+        case PULL -> {
+          Q item = list.remove(0);
+          reference.pulled(list, List.of(item));
+          assertSame(item, queue.pull());
+        }
+        case REMOVE -> {
+          int index = random.nextInt(list.size());
+          Q item = list.remove(index);
+          if (index == 0) reference.pulled(list, List.of(item));
+          else reference.removed(list, index);
+          assertSame(item, queue.remove(index));
+        }
+        case REMOVE_ALL -> {
+          long identifier = random.nextInt(REQUESTERS);
+          int count = list.size();
+          for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i).getIdentifier() == identifier) {
+              list.remove(i);
+              reference.removed(list, i);
+            }
+          }
+          assertEquals(count - list.size(), queue.removeAll(identifier));
+        }
+        case MOVE -> {
+          int from = random.nextInt(list.size());
+          int to = random.nextInt(list.size());
+          Q item = list.remove(from);
+          list.add(to, item);
+          reference.moved(list, from, to);
+          assertSame(item, queue.moveItem(from, to));
+        }
+        case ADD_AT -> {
+          Q item = item(random, step);
+          int index = random.nextInt(list.size() + 1);
+          list.add(index, item);
+          reference.inserted(list, index);
+          queue.addAt(index, item);
+        }
+        case SKIP -> {
+          int number = random.nextInt(Math.min(3, list.size()) + 1);
+          List<Q> items = new ArrayList<>(list.subList(0, number));
+          list.subList(0, number).clear();
+          reference.pulled(list, items);
+          queue.skip(number);
+        }
+        case ADD_ALL -> {
+          // mostly runs by one requester, like a playlist, sometimes mixed
+          List<Q> batch = new ArrayList<>();
+          long identifier = random.nextInt(REQUESTERS);
+          for (int i = random.nextInt(12); i > 0; i--) {
+            long requester = random.nextInt(4) == 0 ? random.nextInt(REQUESTERS) : identifier;
+            batch.add(new Q(requester, random.nextInt(10) * MINUTE, "batch" + step + "." + i));
+          }
+          for (Q item : batch) reference.add(list, item);
+          assertEquals(batch.size(), queue.addAll(batch));
+        }
+      }
+      assertEquals(list, queue.getList());
+      long identifier = random.nextInt(REQUESTERS);
+      assertEquals(
+          list.stream().filter(q -> q.getIdentifier() == identifier).count(),
+          queue.countOf(identifier));
+      assertEquals(
+          list.stream()
+              .filter(q -> q.getIdentifier() == identifier)
+              .mapToLong(Q::getDuration)
+              .sum(),
+          queue.durationOf(identifier));
+      assertEquals(list.stream().mapToLong(Q::getDuration).sum(), queue.getTotalDuration());
+    }
+  }
+
+  private static Q item(Random random, int step) {
+    return new Q(random.nextInt(REQUESTERS), random.nextInt(10) * MINUTE, "item" + step);
+  }
+
+  /** An entry of a requester, with a length of its own, that is a live stream if it is endless */
+  static class Q implements Queueable {
+    private final long identifier;
+    private final long duration;
+    final String name;
+
+    Q(long identifier) {
+      this(identifier, 0);
+    }
+
+    Q(long identifier, long duration) {
+      this(identifier, duration, null);
+    }
+
+    Q(long identifier, String name) {
+      this(identifier, 0, name);
+    }
+
+    Q(long identifier, long duration, String name) {
+      this.identifier = identifier;
+      this.duration = duration;
+      this.name = name;
+    }
+
+    @Override
+    public long getIdentifier() {
+      return identifier;
+    }
+
+    @Override
+    public long getDuration() {
+      return duration;
+    }
+
+    @Override
+    public boolean isStream() {
+      return duration == Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+      return name != null ? name : "Q" + identifier;
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import com.jagrosh.jmusicbot.QueueModel.Q;
+import com.jagrosh.jmusicbot.queue.AbstractQueue;
+import com.jagrosh.jmusicbot.queue.FairQueue;
+import com.jagrosh.jmusicbot.queue.QueueStorage;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the queue storages against the LinkedList the queue used to be backed by, on queues of
+ * 10k entries. {@code LINKED} replays the old list operations, including the scanning fair insert.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.jagrosh.jmusicbot.QueueStorageBenchmark}
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueStorageBenchmark {
+  private static final int REQUESTERS = 50;
+
+  @Param({"LINKED", "TREE", "ARRAY"})
+  public String storage;
+
+  @Param({"10000"})
+  public int size;
+
+  private Ops queue;
+  private Random random;
+
+  @Setup
+  public void setup() {
+    queue = storage.equals("LINKED") ? new LinkedOps() : new QueueOps(storage);
+    // round robin is already in fair order, so both sides can simply append
+    for (int i = 0; i < size; i++) queue.addAt(i, new Q(i % REQUESTERS));
+    random = new Random(7);
+  }
+
+  /** What QueueCmd does to render the queue */
+  @Benchmark
+  public void renderByIndex(Blackhole bh) {
+    for (int i = 0; i < queue.size(); i++) bh.consume(queue.get(i));
+  }
+
+  @Benchmark
+  public int fairAddAndPull() {
+    int index = queue.add(new Q(random.nextInt(REQUESTERS * 2)));
+    queue.pull();
+    return index;
+  }
+
+  @Benchmark
+  public Object moveItem() {
+    return queue.moveItem(random.nextInt(queue.size()), random.nextInt(queue.size()));
+  }
+
+  @Benchmark
+  public Object removeAndInsertAt() {
+    Q removed = queue.remove(random.nextInt(queue.size()));
+    queue.addAt(random.nextInt(queue.size() + 1), removed);
+    return removed;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(QueueStorageBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+
+  private interface Ops {
+    int add(Q item);
+
+    void addAt(int index, Q item);
+
+    Q get(int index);
+
+    Q pull();
+
+    Q remove(int index);
+
+    Q moveItem(int from, int to);
+
+    int size();
+  }
+
+  private static class QueueOps implements Ops {
+    private final AbstractQueue<Q> queue;
+
+    private QueueOps(String storage) {
+      this.queue = new FairQueue<>(QueueStorage.valueOf(storage).createQueue());
+    }
+
+    @Override
+    public int add(Q item) {
+      return queue.add(item);
+    }
+
+    @Override
+    public void addAt(int index, Q item) {
+      queue.addAt(index, item);
+    }
+
+    @Override
+    public Q get(int index) {
+      return queue.get(index);
+    }
+
+    @Override
+    public Q pull() {
+      return queue.pull();
+    }
+
+    @Override
+    public Q remove(int index) {
+      return queue.remove(index);
+    }
+
+    @Override
+    public Q moveItem(int from, int to) {
+      return queue.moveItem(from, to);
+    }
+
+    @Override
+    public int size() {
+      return queue.size();
+    }
+  }
+
+  private static class LinkedOps implements Ops {
+    private final List<Q> list = new LinkedList<>();
+    private final Set<Long> set = new HashSet<>();
+
+    @Override
+    public int add(Q item) {
+      int lastIndex;
+      for (lastIndex = list.size() - 1; lastIndex > -1; lastIndex--)
+        if (list.get(lastIndex).getIdentifier() == item.getIdentifier()) break;
+      lastIndex++;
+      set.clear();
+      for (; lastIndex < list.size(); lastIndex++) {
+        if (set.contains(list.get(lastIndex).getIdentifier())) break;
+        set.add(list.get(lastIndex).getIdentifier());
+      }
+      list.add(lastIndex, item);
+      return lastIndex;
+    }
+
+    @Override
+    public void addAt(int index, Q item) {
+      if (index >= list.size()) list.add(item);
+      else list.add(index, item);
+    }
+
+    @Override
+    public Q get(int index) {
+      return list.get(index);
+    }
+
+    @Override
+    public Q pull() {
+      return list.remove(0);
+    }
+
+    @Override
+    public Q remove(int index) {
+      return list.remove(index);
+    }
+
+    @Override
+    public Q moveItem(int from, int to) {
+      Q item = list.remove(from);
+      list.add(to, item);
+      return item;
+    }
+
+    @Override
+    public int size() {
+      return list.size();
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import com.jagrosh.jmusicbot.audio.QueuedTrack;
+import com.jagrosh.jmusicbot.audio.RequestMetadata;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainer;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerDescriptor;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerRegistry;
+import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.source.http.HttpAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.source.http.HttpAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the heap a queue of 100k tracks retains per entry, with the tracks kept as they were
+ * loaded and with them {@link QueuedTrack#compact compacted}. Every entry has strings of its own,
+ * as tracks in a real queue do, and is held until the heap is measured after a full collection.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.jagrosh.jmusicbot.QueuedTrackMemoryBenchmark}, preferably with a fixed heap
+ * such as {@code -Xms1g -Xmx1g} in {@code MAVEN_OPTS}.
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class QueuedTrackMemoryBenchmark {
+  private static final int SIZE = 100_000;
+  private static final int RUNS = 9;
+
+  public static void main(String[] args) throws InterruptedException {
+    DefaultAudioPlayerManager manager = new DefaultAudioPlayerManager();
+    HttpAudioSourceManager http =
+        new HttpAudioSourceManager(MediaContainerRegistry.DEFAULT_REGISTRY);
+    manager.registerSourceManager(http);
+    MediaContainerDescriptor mp3 = new MediaContainerDescriptor(MediaContainer.MP3.probe, null);
+    IntFunction<QueuedTrack> materialized =
+        i -> new QueuedTrack(new HttpAudioTrack(info(i), mp3, http), metadata(i));
+    IntFunction<QueuedTrack> compact = i -> materialized.apply(i).compact(manager);
+
+    // the first run also loads classes and sizes the heap, and the heap can shrink or grow by
+    // more than the queue in any one run, so the median of the runs after the first counts
+    long[] fulls = new long[RUNS];
+    long[] encodeds = new long[RUNS];
+    retained(materialized);
+    retained(compact);
+    for (int run = 0; run < RUNS; run++) {
+      fulls[run] = retained(materialized);
+      encodeds[run] = retained(compact);
+    }
+    long full = median(fulls);
+    long encoded = median(encodeds);
+    System.out.printf("materialized: %d bytes per queued track%n", full);
+    System.out.printf("compact:      %d bytes per queued track%n", encoded);
+    System.out.printf("saved:        %.1f%%%n", 100.0 * (full - encoded) / full);
+    manager.shutdown();
+  }
+
+  /**
+   * @return how many bytes of heap each of {@link #SIZE} entries made by the factory retains
+   */
+  private static long retained(IntFunction<QueuedTrack> factory) throws InterruptedException {
+    QueuedTrack[] queue = new QueuedTrack[SIZE];
+    long before = usedHeap();
+    for (int i = 0; i < SIZE; i++) queue[i] = factory.apply(i);
+    long after = usedHeap();
+    Reference.reachabilityFence(queue);
+    return (after - before) / SIZE;
+  }
+
+  private static long median(long[] values) {
+    Arrays.sort(values);
+    return values[values.length / 2];
+  }
+
+  private static long usedHeap() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /** A track as a typical search result describes it, with strings of its own */
+  private static AudioTrackInfo info(int i) {
+    String id = String.format("%011d", i);
+    return new AudioTrackInfo(
+        "Some Artist - Some Song Title (Official Video) #" + i,
+        "Some Artist " + i,
+        215_000 + i,
+        "https://example.com/watch?v=" + id,
+        false,
+        "https://example.com/watch?v=" + id,
+        "https://example.com/vi/" + id + "/mqdefault.jpg",
+        null);
+  }
+
+  private static RequestMetadata metadata(int i) {
+    return new RequestMetadata(
+        null, new RequestMetadata.RequestInfo("some song title " + i, "https://example.com"));
+  }
+}
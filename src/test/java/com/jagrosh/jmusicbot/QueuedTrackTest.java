@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.QueuedTrack;
+import com.jagrosh.jmusicbot.audio.RequestMetadata;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainer;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerDescriptor;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerRegistry;
+import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.source.http.HttpAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.source.http.HttpAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class QueuedTrackTest {
+  @Test
+  public void compactTrackDecodesToTheSameTrack() {
+    DefaultAudioPlayerManager manager = new DefaultAudioPlayerManager();
+    HttpAudioSourceManager http =
+        new HttpAudioSourceManager(MediaContainerRegistry.DEFAULT_REGISTRY);
+    manager.registerSourceManager(http);
+    AudioTrackInfo info =
+        new AudioTrackInfo(
+            "Title",
+            "Author",
+            215000,
+            "https://example.com/a.mp3",
+            false,
+            "https://example.com/a.mp3",
+            null,
+            null);
+    RequestMetadata rm =
+        new RequestMetadata(null, new RequestMetadata.RequestInfo("https://example.com", null));
+    MediaContainerDescriptor mp3 = new MediaContainerDescriptor(MediaContainer.MP3.probe, null);
+    QueuedTrack full = new QueuedTrack(new HttpAudioTrack(info, mp3, http), rm);
+
+    QueuedTrack compact = full.compact(manager);
+    assertNotSame(full, compact);
+    assertSame(compact, compact.compact(manager));
+    assertEquals(full.getDuration(), compact.getDuration());
+    assertEquals(full.getIdentifier(), compact.getIdentifier());
+    assertEquals(full.toString(), compact.toString());
+
+    AudioTrack decoded = compact.getTrack();
+    assertEquals(info.title, decoded.getInfo().title);
+    assertEquals(info.uri, decoded.getInfo().uri);
+    assertEquals(info.length, decoded.getDuration());
+    assertSame(rm, decoded.getUserData(RequestMetadata.class));
+    // every pull gets a fresh, playable instance
+    assertNotSame(decoded, compact.getTrack());
+    assertSame(full.getTrack(), full.getTrack());
+  }
+}
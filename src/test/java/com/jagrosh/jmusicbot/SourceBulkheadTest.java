@@ -0,0 +1,166 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.SourceBulkhead;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class SourceBulkheadTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final ExecutorService callers = Executors.newCachedThreadPool();
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final AtomicInteger running = new AtomicInteger();
+  // the thread the latest load that reached the source ran on
+  private volatile Thread loadedOn;
+
+  @After
+  public void stop() {
+    release.countDown();
+    callers.shutdownNow();
+  }
+
+  @Test
+  public void saturatedSourcesTurnLoadsAwayAtOnce() throws Exception {
+    SourceBulkhead bulkhead =
+        new SourceBulkhead(slowSource(), id -> id.startsWith("slow:"), 1, 1, 10_000, registry);
+    Future<AudioItem> first = callers.submit(() -> bulkhead.loadItem(null, reference("slow:1")));
+    await(() -> running.get() == 1);
+    Future<AudioItem> second = callers.submit(() -> bulkhead.loadItem(null, reference("slow:2")));
+    await(() -> gauge("jmusicbot.source.queued") == 1);
+
+    long start = System.nanoTime();
+    FriendlyException busy =
+        assertThrows(FriendlyException.class, () -> bulkhead.loadItem(null, reference("slow:3")));
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    assertTrue(busy.getMessage().contains("slow"));
+    assertEquals(1, rejected("busy"), 0);
+
+    // loads the source does not claim do not wait for its loads
+    assertNull(bulkhead.loadItem(null, reference("other:1")));
+
+    release.countDown();
+    assertNotNull(first.get(5, TimeUnit.SECONDS));
+    assertNotNull(second.get(5, TimeUnit.SECONDS));
+    assertEquals(
+        2, registry.get("jmusicbot.source.queue.wait").tag("source", "slow").timer().count());
+  }
+
+  @Test
+  public void loadsThatWaitTooLongAreGivenUpOn() throws Exception {
+    SourceBulkhead bulkhead = new SourceBulkhead(slowSource(), id -> true, 1, 1, 100, registry);
+    Future<AudioItem> first = callers.submit(() -> bulkhead.loadItem(null, reference("slow:1")));
+    await(() -> running.get() == 1);
+    long start = System.nanoTime();
+    assertThrows(FriendlyException.class, () -> bulkhead.loadItem(null, reference("slow:2")));
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    assertEquals(1, rejected("timeout"), 0);
+    assertEquals(0, gauge("jmusicbot.source.queued"), 0);
+
+    // the load that got the slot runs on the thread that is loading it
+    release.countDown();
+    assertNotNull(first.get(5, TimeUnit.SECONDS));
+    assertTrue(loadedOn.getName().startsWith("pool-"));
+    assertEquals(0, gauge("jmusicbot.source.active"), 0);
+  }
+
+  @Test
+  public void builtInSourcesClaimTheirOwnLinks() {
+    AudioSourceManager youtube = source("youtube");
+    assertTrue(SourceBulkhead.claimsOf(youtube).test("https://www.youtube.com/watch?v=x"));
+    assertTrue(SourceBulkhead.claimsOf(youtube).test("ytsearch:song"));
+    assertFalse(SourceBulkhead.claimsOf(youtube).test("https://soundcloud.com/a/b"));
+    assertTrue(SourceBulkhead.claimsOf(source("soundcloud")).test("scsearch:song"));
+    AudioSourceManager http = source("http");
+    assertTrue(SourceBulkhead.claimsOf(http).test("https://example.com/a.mp3"));
+    assertFalse(SourceBulkhead.claimsOf(http).test("https://www.youtube.com/watch?v=x"));
+    assertFalse(SourceBulkhead.claimsOf(http).test("some song"));
+    AudioSourceManager local = source("local");
+    assertFalse(SourceBulkhead.claimsOf(local).test("https://example.com/a.mp3"));
+    assertFalse(SourceBulkhead.claimsOf(local).test("some song"));
+  }
+
+  /** A source called slow, which takes loads until released, and turns down other identifiers */
+  private AudioSourceManager slowSource() {
+    return (AudioSourceManager)
+        Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {AudioSourceManager.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "getSourceName":
+                  return "slow";
+                case "loadItem":
+                  AudioReference reference = (AudioReference) args[1];
+                  if (!reference.identifier.startsWith("slow:")) return null;
+                  loadedOn = Thread.currentThread();
+                  running.incrementAndGet();
+                  release.await();
+                  return new AudioReference(reference.identifier + ":loaded", null);
+                default:
+                  return null;
+              }
+            });
+  }
+
+  private static AudioSourceManager source(String name) {
+    return (AudioSourceManager)
+        Proxy.newProxyInstance(
+            SourceBulkheadTest.class.getClassLoader(),
+            new Class<?>[] {AudioSourceManager.class},
+            (proxy, method, args) -> method.getName().equals("getSourceName") ? name : null);
+  }
+
+  private static AudioReference reference(String identifier) {
+    return new AudioReference(identifier, null);
+  }
+
+  private double gauge(String name) {
+    return registry.get(name).tag("source", "slow").gauge().value();
+  }
+
+  private double rejected(String reason) {
+    return registry
+        .get("jmusicbot.source.rejected")
+        .tag("source", "slow")
+        .tag("reason", reason)
+        .counter()
+        .count();
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) Thread.sleep(10);
+    assertTrue(condition.getAsBoolean());
+  }
+}
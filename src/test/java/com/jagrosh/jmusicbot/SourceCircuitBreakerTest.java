@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.SourceCircuitBreaker;
+import com.jagrosh.jmusicbot.audio.SourceCircuitBreaker.State;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class SourceCircuitBreakerTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  public void failingSourcesAreCutOffUntilAProbeSucceeds() throws Exception {
+    SourceCircuitBreaker breaker = breaker(0);
+    breaker.loadItem(null, reference("ok"));
+    assertThrows(FriendlyException.class, () -> breaker.loadItem(null, reference("fail")));
+    assertEquals(State.CLOSED, breaker.getState());
+    assertThrows(FriendlyException.class, () -> breaker.loadItem(null, reference("fail")));
+    assertEquals(State.OPEN, breaker.getState());
+    assertEquals(1, state("open"), 0);
+
+    // loads fail without reaching the source, unless they are not the source's to begin with
+    int before = loads.get();
+    FriendlyException unavailable =
+        assertThrows(FriendlyException.class, () -> breaker.loadItem(null, reference("ok")));
+    assertTrue(unavailable.getMessage().contains("flaky"));
+    assertEquals(before, loads.get());
+    assertEquals(1, rejected(), 0);
+    assertNotNull(breaker.loadItem(null, reference("other:ok")));
+
+    // a failed probe keeps it open, a successful one closes it
+    Thread.sleep(150);
+    assertEquals(State.HALF_OPEN, breaker.getState());
+    assertThrows(FriendlyException.class, () -> breaker.loadItem(null, reference("fail")));
+    assertEquals(State.OPEN, breaker.getState());
+    Thread.sleep(150);
+    assertNotNull(breaker.loadItem(null, reference("ok")));
+    assertEquals(State.CLOSED, breaker.getState());
+    assertEquals(0, breaker.getFailureRate());
+  }
+
+  @Test
+  public void unavailableTracksDoNotCountAsFailures() {
+    SourceCircuitBreaker breaker = breaker(0);
+    for (int i = 0; i < 4; i++)
+      assertThrows(FriendlyException.class, () -> breaker.loadItem(null, reference("gone")));
+    assertEquals(State.CLOSED, breaker.getState());
+    assertEquals(0, breaker.getFailureRate());
+  }
+
+  @Test
+  public void slowSourcesAreCutOff() {
+    SourceCircuitBreaker breaker = breaker(20);
+    breaker.loadItem(null, reference("slow"));
+    assertEquals(State.CLOSED, breaker.getState());
+    breaker.loadItem(null, reference("slow"));
+    assertEquals(State.OPEN, breaker.getState());
+    assertTrue(breaker.getLatency(0.9) >= 50);
+    assertEquals(
+        2,
+        registry.get("jmusicbot.source.load.latency").tag("source", "flaky").timer().count());
+  }
+
+  @Test
+  public void loadsTheSourceTurnsDownAreNotJudged() {
+    SourceCircuitBreaker breaker = breaker(20);
+    for (int i = 0; i < 4; i++) assertNull(breaker.loadItem(null, reference("slow:none")));
+    assertEquals(State.CLOSED, breaker.getState());
+    assertEquals(0, breaker.getLatency(0.9));
+    assertEquals(
+        0,
+        registry.get("jmusicbot.source.load.latency").tag("source", "flaky").timer().count());
+  }
+
+  /** A breaker judging by the latest four loads, cut off for a tenth of a second at a time */
+  private SourceCircuitBreaker breaker(long latency) {
+    return new SourceCircuitBreaker(
+        flakySource(), id -> !id.startsWith("other:"), 4, 50, latency, 100, registry);
+  }
+
+  /**
+   * A source called flaky, which fails, finds nothing, turns the load down or takes a while as it
+   * is asked to
+   */
+  private AudioSourceManager flakySource() {
+    return (AudioSourceManager)
+        Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {AudioSourceManager.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "getSourceName":
+                  return "flaky";
+                case "loadItem":
+                  loads.incrementAndGet();
+                  String identifier = ((AudioReference) args[1]).identifier;
+                  if (identifier.equals("fail"))
+                    throw new FriendlyException(
+                        "broken", FriendlyException.Severity.SUSPICIOUS, null);
+                  if (identifier.equals("gone"))
+                    throw new FriendlyException("gone", FriendlyException.Severity.COMMON, null);
+                  if (identifier.startsWith("slow")) Thread.sleep(50);
+                  if (identifier.endsWith(":none")) return null;
+                  return reference(identifier + ":loaded");
+                default:
+                  return null;
+              }
+            });
+  }
+
+  private static AudioReference reference(String identifier) {
+    return new AudioReference(identifier, null);
+  }
+
+  private double state(String state) {
+    return registry
+        .get("jmusicbot.source.breaker")
+        .tag("source", "flaky")
+        .tag("state", state)
+        .gauge()
+        .value();
+  }
+
+  private double rejected() {
+    return registry
+        .get("jmusicbot.source.rejected")
+        .tag("source", "flaky")
+        .tag("reason", "unavailable")
+        .counter()
+        .count();
+  }
+}
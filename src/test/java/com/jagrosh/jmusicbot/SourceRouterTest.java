@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.SourceRouter;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class SourceRouterTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final SourceRouter router = new SourceRouter(registry);
+  // the sources asked, in order
+  private final List<String> asked = new ArrayList<>();
+
+  @Test
+  public void identifiersAreToldApartByPrefixAndHost() {
+    assertEquals("youtube", SourceRouter.classify("ytsearch:some song"));
+    assertEquals("youtube", SourceRouter.classify("YTMSEARCH:some song"));
+    assertEquals("soundcloud", SourceRouter.classify("scsearch:some song"));
+    assertEquals("youtube", SourceRouter.classify("https://www.youtube.com/watch?v=x"));
+    assertEquals("youtube", SourceRouter.classify("https://youtu.be/x"));
+    assertEquals("soundcloud", SourceRouter.classify("https://m.SoundCloud.com/a/b"));
+    assertEquals("bandcamp", SourceRouter.classify("https://artist.bandcamp.com/track/t"));
+    assertEquals("niconico", SourceRouter.classify("http://nico.ms/sm9"));
+    assertEquals("youtube", SourceRouter.classify("HTTPS://YouTube.com:443/watch?v=x"));
+    assertNull(SourceRouter.classify("https://notyoutube.com/watch?v=x"));
+    assertNull(SourceRouter.classify("https:///watch?v=x"));
+    assertNull(SourceRouter.classify("https://example.com/a.mp3"));
+    assertNull(SourceRouter.classify("some song"));
+    assertNull(SourceRouter.classify("C:\\music\\a.mp3"));
+  }
+
+  @Test
+  public void routedLoadsSkipTheSourcesBeforeTheirs() {
+    router.add(source("transform", "https://transform.example/"), id -> id.contains("transform"));
+    router.add(source("youtube", "ytsearch:"), null);
+    router.add(source("soundcloud", "scsearch:"), null);
+    router.add(source("http", "https://"), null);
+
+    assertEquals("scsearch:song", identifierOf(router.loadItem(null, reference("scsearch:song"))));
+    assertEquals(List.of("soundcloud"), asked);
+
+    asked.clear();
+    router.loadItem(null, reference("https://transform.example/a"));
+    assertEquals(List.of("transform"), asked);
+    assertEquals(2, routed("routed"), 0);
+  }
+
+  @Test
+  public void unroutedLoadsAreOfferedToEverySourceInTurn() {
+    router.add(source("youtube", "ytsearch:"), null);
+    router.add(source("soundcloud", "scsearch:"), null);
+    router.add(source("http", "https://"), null);
+
+    AudioItem item = router.loadItem(null, reference("https://example.com/a.mp3"));
+    assertEquals("https://example.com/a.mp3", identifierOf(item));
+    assertEquals(List.of("youtube", "soundcloud", "http"), asked);
+    assertEquals(1, routed("unrouted"), 0);
+
+    // a routed source that turns the load down is not asked twice
+    asked.clear();
+    assertSame(
+        AudioReference.NO_TRACK, router.loadItem(null, reference("https://youtube.com/nothing")));
+    assertEquals(List.of("youtube", "soundcloud", "http"), asked);
+  }
+
+  /** A source that loads identifiers starting with the prefix, and records being asked */
+  private AudioSourceManager source(String name, String prefix) {
+    Predicate<String> loads = id -> id.startsWith(prefix) && !id.endsWith("nothing");
+    return (AudioSourceManager)
+        Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {AudioSourceManager.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "getSourceName":
+                  return name;
+                case "loadItem":
+                  asked.add(name);
+                  AudioReference reference = (AudioReference) args[1];
+                  return loads.test(reference.identifier) ? reference : null;
+                default:
+                  return null;
+              }
+            });
+  }
+
+  private static AudioReference reference(String identifier) {
+    return new AudioReference(identifier, null);
+  }
+
+  private static String identifierOf(AudioItem item) {
+    return ((AudioReference) item).identifier;
+  }
+
+  private double routed(String result) {
+    return registry.get("jmusicbot.load.routing").tag("result", result).counter().count();
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import com.jagrosh.jmusicbot.audio.SourceRouter;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares offering a load to every source in turn, as the player manager does, against sending
+ * it through the {@link SourceRouter}. The sources stand in for the built-in ones and turn down
+ * what is not theirs with a pattern much like the ones those use, so only the dispatch itself is
+ * measured; {@code transforms} adds that many transforms that claim nothing in front of them.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.jagrosh.jmusicbot.SourceRoutingBenchmark}
+ *
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SourceRoutingBenchmark {
+  private static final Map<String, String> IDENTIFIERS =
+      Map.of(
+          "search", "ytsearch:never gonna give you up",
+          "youtube", "https://www.youtube.com/watch?v=dQw4w9WgXcQ",
+          "soundcloud", "https://soundcloud.com/artist/track",
+          "niconico", "https://www.nicovideo.jp/watch/sm9",
+          "http", "https://example.com/music/track.mp3");
+
+  @Param({"search", "youtube", "soundcloud", "niconico", "http"})
+  public String identifier;
+
+  @Param({"0", "5"})
+  public int transforms;
+
+  private final List<AudioSourceManager> chain = new ArrayList<>();
+  private SourceRouter router;
+  private AudioReference reference;
+
+  @Setup
+  public void setup() {
+    router = new SourceRouter(new SimpleMeterRegistry());
+    for (int i = 0; i < transforms; i++) {
+      Source transform =
+          new Source("transform" + i, "https?://(www\\.)?transform" + i + "\\.example/.*");
+      add(transform, transform::claims);
+    }
+    add(
+        new Source(
+            "youtube", "(ytm?search:|https?://([\\w-]+\\.)*(youtube\\.com|youtu\\.be)/).*"));
+    add(new Source("soundcloud", "(scsearch:|https?://([\\w-]+\\.)*soundcloud\\.com/).*"));
+    add(new Source("bandcamp", "https?://([\\w-]+\\.)*bandcamp\\.com/.*"));
+    add(new Source("vimeo", "https?://([\\w-]+\\.)*vimeo\\.com/.*"));
+    add(new Source("twitch", "https?://([\\w-]+\\.)*twitch\\.tv/.*"));
+    add(new Source("beam.pro", "https?://([\\w-]+\\.)*beam\\.pro/.*"));
+    add(new Source("getyarn.io", "https?://([\\w-]+\\.)*getyarn\\.io/.*"));
+    add(new Source("niconico", "https?://([\\w-]+\\.)*(nicovideo\\.jp|nico\\.ms)/.*"));
+    add(new Source("http", "https?://.*"));
+    add(new Source("local", "/.*"));
+    reference = new AudioReference(IDENTIFIERS.get(identifier), null);
+  }
+
+  private void add(AudioSourceManager source) {
+    add(source, null);
+  }
+
+  private void add(AudioSourceManager source, Predicate<String> claims) {
+    chain.add(source);
+    router.add(source, claims);
+  }
+
+  /** How the player manager finds the source of a load without the router */
+  @Benchmark
+  public AudioItem chain() {
+    for (AudioSourceManager source : chain) {
+      AudioItem item = source.loadItem(null, reference);
+      if (item != null) return item;
+    }
+    return AudioReference.NO_TRACK;
+  }
+
+  @Benchmark
+  public AudioItem routed() {
+    return router.loadItem(null, reference);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(SourceRoutingBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+
+  /** Loads what matches its pattern, as a reference back to the identifier */
+  private static class Source implements AudioSourceManager {
+    private final String name;
+    private final Pattern pattern;
+
+    private Source(String name, String regex) {
+      this.name = name;
+      this.pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+    }
+
+    @Override
+    public String getSourceName() {
+      return name;
+    }
+
+    private boolean claims(String identifier) {
+      return pattern.matcher(identifier).matches();
+    }
+
+    @Override
+    public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
+      return claims(reference.identifier) ? reference : null;
+    }
+
+    @Override
+    public boolean isTrackEncodable(AudioTrack track) {
+      return false;
+    }
+
+    @Override
+    public void encodeTrack(AudioTrack track, DataOutput output) {}
+
+    @Override
+    public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) {
+      return null;
+    }
+
+    @Override
+    public void shutdown() {}
+  }
+}
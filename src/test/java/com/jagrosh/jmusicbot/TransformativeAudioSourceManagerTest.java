@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 John Grosh <john.a.grosh@gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jagrosh.jmusicbot;
+
+import static org.junit.Assert.*;
+
+import com.jagrosh.jmusicbot.audio.TransformativeAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author John Grosh <john.a.grosh@gmail.com>
+ */
+public class TransformativeAudioSourceManagerTest {
+  private static final byte[] PAGE =
+      "<html><body><span id=\"song\">a song</span></body></html>".getBytes();
+
+  private final HttpInterfaceManager pages = HttpClientTools.createDefaultThreadLocalManager();
+  // how many times the page was fetched
+  private final AtomicInteger fetches = new AtomicInteger();
+  // holds up the trickling page until the test is over
+  private final CountDownLatch over = new CountDownLatch(1);
+  private HttpServer server;
+
+  @Before
+  public void start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/page", this::page);
+    server.createContext("/trickle", this::trickle);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+  }
+
+  @After
+  public void stop() throws IOException {
+    over.countDown();
+    server.stop(0);
+    pages.close();
+  }
+
+  @Test
+  public void pagesAreReadOnceUntilTheyExpire() throws Exception {
+    TransformativeAudioSourceManager transform = transform(5000, 300);
+    assertEquals("ytsearch:a song", transform.transform("test:page"));
+    assertEquals("ytsearch:a song", transform.transform("test:page"));
+    assertEquals(1, fetches.get());
+    Thread.sleep(400);
+    assertEquals("ytsearch:a song", transform.transform("test:page"));
+    assertEquals(2, fetches.get());
+
+    TransformativeAudioSourceManager uncached = transform(5000, 0);
+    uncached.transform("test:page");
+    uncached.transform("test:page");
+    assertEquals(4, fetches.get());
+  }
+
+  @Test
+  public void pagesThatTrickleInAreGivenUpOn() {
+    // each byte comes well within the timeout, but the page never ends
+    TransformativeAudioSourceManager transform = transform(500, 0);
+    long started = System.nanoTime();
+    assertThrows(IOException.class, () -> transform.transform("test:trickle"));
+    assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+  }
+
+  @Test
+  public void noTimeoutLetsPagesTakeTheirTime() throws IOException {
+    assertEquals("ytsearch:a song", transform(0, 0).transform("test:page"));
+  }
+
+  private TransformativeAudioSourceManager transform(long timeout, long cacheTtl) {
+    String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    return new TransformativeAudioSourceManager(
+        "test", pages, "test:(.*)", base + "$1", "#song", "ytsearch:%s", timeout, cacheTtl);
+  }
+
+  private void page(HttpExchange exchange) throws IOException {
+    fetches.incrementAndGet();
+    exchange.getResponseHeaders().set("Content-Type", "text/html");
+    exchange.sendResponseHeaders(200, PAGE.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(PAGE);
+    }
+  }
+
+  private void trickle(HttpExchange exchange) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "text/html");
+    exchange.sendResponseHeaders(200, 0);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write("<html><body>".getBytes());
+      while (!over.await(100, TimeUnit.MILLISECONDS)) {
+        out.write(' ');
+        out.flush();
+      }
+    } catch (InterruptedException | IOException e) {
+      // the client gave up, as it should
+    }
+  }
+}